@@ -0,0 +1,121 @@
+package maze.ai;
+
+import java.util.Arrays;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+import maze.model.CellIndexTable;
+import maze.model.Direction;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a full breadth first search from the center using the
+ * {@link CellQueue} ring buffer with the same search using a
+ * <code>Vector</code> of cells the way the flood fill algorithms used to.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellQueueBenchmark
+{
+   @Param(
+   {
+      "Large.mz2", "random256"
+   })
+   public String maze;
+
+   private MazeModel model;
+   private CellIndexTable cells;
+   private CellQueue queue;
+   private int[] distance;
+   private int[][] distanceXY;
+
+   @Setup
+   public void setUp()
+   {
+      this.model = MazeFixtures.load(this.maze);
+      this.cells = this.model.getCellIndexTable();
+      this.queue = new CellQueue(this.cells.getCellCount());
+      this.distance = new int[this.cells.getCellCount()];
+      this.distanceXY = new int[this.cells.getWidth() + 1][this.cells.getHeight() + 1];
+   }
+
+   @Benchmark
+   public int cellQueue()
+   {
+      Arrays.fill(this.distance, Integer.MAX_VALUE);
+      this.queue.clear();
+      final int start = this.cells.indexOf(this.cells.getWidth() / 2, this.cells.getHeight() / 2);
+      this.distance[start] = 0;
+      this.queue.add(start);
+      int last = 0;
+      while (!this.queue.isEmpty())
+      {
+         final int cell = this.queue.remove();
+         final int walls = this.model.getWallMask(this.cells.getX(cell), this.cells.getY(cell));
+         for (int dir = 0; dir < 4; dir++)
+         {
+            if ( (walls & (1 << dir)) == 0)
+            {
+               final int neighbor = this.cells.neighbor(cell, dir);
+               if (this.distance[cell] + 1 < this.distance[neighbor])
+               {
+                  this.distance[neighbor] = this.distance[cell] + 1;
+                  this.queue.add(neighbor);
+               }
+            }
+         }
+         last = cell;
+      }
+      return this.distance[last];
+   }
+
+   @Benchmark
+   public int vector()
+   {
+      for (int[] column : this.distanceXY)
+         Arrays.fill(column, Integer.MAX_VALUE);
+      final Vector<MazeCell> vector = new Vector<MazeCell>();
+      final MazeCell start = MazeCell.valueOf(this.cells.getWidth() / 2, this.cells.getHeight() / 2);
+      this.distanceXY[start.getX()][start.getY()] = 0;
+      vector.add(start);
+      MazeCell last = start;
+      while (!vector.isEmpty())
+      {
+         final MazeCell cell = vector.get(0);
+         vector.remove(0);
+         final int next = this.distanceXY[cell.getX()][cell.getY()] + 1;
+         for (Direction dir : Direction.values())
+         {
+            if (!this.model.getWall(cell, dir).isSet())
+            {
+               final MazeCell neighbor = cell.neighbor(dir);
+               if (next < this.distanceXY[neighbor.getX()][neighbor.getY()])
+               {
+                  this.distanceXY[neighbor.getX()][neighbor.getY()] = next;
+                  vector.add(neighbor);
+               }
+            }
+         }
+         last = cell;
+      }
+      return this.distanceXY[last.getX()][last.getY()];
+   }
+}
@@ -0,0 +1,92 @@
+package maze.ai;
+
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+import maze.model.MazeModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures complete simulations and single steps through the controller. Run
+ * with <code>-prof gc</code> to see the allocation rate, the
+ * <code>gc.alloc.rate.norm</code> of {@link #step()} is the number of bytes
+ * allocated per robot step.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotControllerBenchmark
+{
+   @Param(
+   {
+      "LeftWallFollower", "RightWallFollower", "Tremaux", "Floodfill", "IncrementalFloodfill",
+      "LeftWallFollower.py"
+   })
+   public String algorithm;
+
+   @Param(
+   {
+      "APEC2002.MAZ", "LongPath.MAZ", "SEOUL01.MAZ", "Large.mz2", "random64", "random256"
+   })
+   public String maze;
+
+   private MazeModel model;
+   private RobotBase robot;
+   private RobotController stepController;
+
+   @Setup
+   public void setUp() throws Exception
+   {
+      this.model = MazeFixtures.load(this.maze);
+      if (this.algorithm.endsWith(".py"))
+         this.robot = PythonFileRobot.loadBundled(this.algorithm);
+      else
+         this.robot = (RobotBase) Class.forName("maze.ai." + this.algorithm).newInstance();
+      this.stepController = new RobotController(this.model, this.robot);
+   }
+
+   /**
+    * A full run from the start until the robot is done.
+    * @return The number of steps taken.
+    */
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.MILLISECONDS)
+   public int run()
+   {
+      final RobotController controller = new RobotController(this.model, this.robot);
+      while (!controller.isRobotDone())
+      {
+         controller.nextStep();
+      }
+      return controller.getStepCount();
+   }
+
+   /**
+    * A single step through the controller. A new run is started when the robot
+    * is done.
+    */
+   @Benchmark
+   @BenchmarkMode(Mode.AverageTime)
+   @OutputTimeUnit(TimeUnit.NANOSECONDS)
+   public RobotStep step()
+   {
+      if (this.stepController.isRobotDone())
+      {
+         this.stepController = new RobotController(this.model, this.robot);
+      }
+      return this.stepController.nextStep();
+   }
+}
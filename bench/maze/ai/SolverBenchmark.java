@@ -0,0 +1,127 @@
+package maze.ai;
+
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+import maze.model.MazeModel;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the hot paths of the maze solving algorithms. The flood benchmarks
+ * run against the knowledge an algorithm has after it first reaches the
+ * center, which is when reflooding is the most expensive. The A* benchmarks
+ * plan the way back to the start from there.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SolverBenchmark
+{
+   /**
+    * Enough steps to explore the largest mazes, the default budget runs out
+    * before the robot reaches the center of a large one.
+    */
+   private static final RunBudget EXPLORE_BUDGET = RunBudget.DEFAULT.withMaxSteps(Integer.MAX_VALUE / 2);
+
+   @Param(
+   {
+      "APEC2002.MAZ", "DEFAULT.MAZ", "HITEL01.MAZ", "HITEL02.MAZ", "LongPath.MAZ",
+      "MINOS03Final.MAZ", "MM03FINS.MAZ", "SEOUL01.MAZ", "SEOUL02.MAZ", "Large.mz2",
+      "random64", "random128", "random256"
+   })
+   public String maze;
+
+   private MazeModel model;
+   private Floodfill floodfill;
+   private ModifiedFloodfill modifiedFloodfill;
+   private AStar aStar;
+   private AStar bidirectionalAStar;
+   private Tremaux tremaux;
+   private RobotController tremauxController;
+
+   @Setup
+   public void setUp()
+   {
+      this.model = MazeFixtures.load(this.maze);
+      this.floodfill = new Floodfill();
+      this.explore(this.floodfill);
+      this.modifiedFloodfill = new ModifiedFloodfill();
+      this.explore(this.modifiedFloodfill);
+      this.aStar = new AStar();
+      this.explore(this.aStar).nextStep();
+      this.bidirectionalAStar = new BidirectionalAStar();
+      this.explore(this.bidirectionalAStar).nextStep();
+      this.tremaux = new Tremaux();
+      this.tremauxController = new RobotController(this.model, this.tremaux);
+   }
+
+   /**
+    * Runs the robot until it reaches the center for the first time.
+    * @return The controller of the run.
+    * @throws IllegalStateException If the robot gave up before the center.
+    */
+   private RobotController explore(RobotBase robot)
+   {
+      final RobotController controller = new RobotController(this.model, robot, EXPLORE_BUDGET);
+      while (!controller.isRobotDone() && !controller.getRobotModelMaster().isAtCenter())
+      {
+         controller.nextStep();
+      }
+      if (!controller.getRobotModelMaster().isAtCenter())
+         throw new IllegalStateException(robot + " did not reach the center of " + this.maze + " after " +
+                                         controller.getStepCount() + " steps");
+      return controller;
+   }
+
+   @Benchmark
+   public void floodfill()
+   {
+      this.floodfill.floodfill();
+   }
+
+   @Benchmark
+   public void modifiedFloodfill()
+   {
+      this.modifiedFloodfill.modifiedFloodfill();
+   }
+
+   @Benchmark
+   public boolean aStar()
+   {
+      return this.aStar.plan();
+   }
+
+   @Benchmark
+   public boolean bidirectionalAStar()
+   {
+      return this.bidirectionalAStar.plan();
+   }
+
+   /**
+    * One step of the Tremaux algorithm, including moving the robot. A new run
+    * is started when the robot is done.
+    */
+   @Benchmark
+   public RobotStep tremauxNextStep()
+   {
+      if (this.tremauxController.isRobotDone())
+      {
+         this.tremauxController = new RobotController(this.model, this.tremaux);
+      }
+      return this.tremauxController.nextStep();
+   }
+}
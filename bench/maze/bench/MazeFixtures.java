@@ -0,0 +1,115 @@
+package maze.bench;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+
+import maze.model.MazeInfo;
+import maze.model.MazeModel;
+
+/**
+ * Provides the mazes used by the benchmarks. A maze is named either by the file
+ * name of one of the bundled example mazes or by <code>random</code> followed
+ * by a size, for example <code>random64</code>, which generates a reproducible
+ * perfect maze of that size.
+ */
+public final class MazeFixtures
+{
+   /**
+    * The prefix of generated maze names.
+    */
+   public static final String RANDOM = "random";
+
+   /**
+    * Get a maze by name.
+    * @param name An example maze file name or a generated maze name.
+    * @return A new maze model.
+    */
+   public static MazeModel load(String name)
+   {
+      if (name.startsWith(RANDOM))
+      {
+         final int size = Integer.parseInt(name.substring(RANDOM.length()));
+         return generate(size, size);
+      }
+      final InputStream in = MazeInfo.class.getResourceAsStream("mazeExamples/" + name);
+      if (in == null)
+         throw new IllegalArgumentException("Unknown maze: " + name);
+      try
+      {
+         final MazeModel maze = new MazeModel();
+         maze.loadMaze(in, name.toLowerCase().endsWith(".mz2"));
+         in.close();
+         return maze;
+      }
+      catch (IOException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   /**
+    * Generates a perfect maze, one with exactly one path between any two
+    * cells, using a depth first search with a fixed seed so every run of the
+    * benchmark uses the same maze. The starting cell wall and the open center
+    * follow the rules of a legal maze.
+    * @param width Number of columns.
+    * @param height Number of rows.
+    * @return A new maze model.
+    */
+   public static MazeModel generate(int width, int height)
+   {
+      final MazeModel maze = new MazeModel(width, height);
+      maze.setAllWalls();
+      final Random rand = new Random(width * 31 + height);
+      final boolean[] visited = new boolean[width * height];
+      final int[] stack = new int[width * height];
+      final int[] choices = new int[4];
+      final int start = (height - 1) * width;
+      int top = 0;
+      stack[top++] = start;
+      visited[start] = true;
+      while (top > 0)
+      {
+         final int cell = stack[top - 1];
+         final int x = cell % width;
+         final int y = cell / width;
+         int count = 0;
+         if (y > 0 && !visited[cell - width])
+            choices[count++] = MazeModel.NORTH;
+         // The starting cell must have a wall on its east side.
+         if (x < width - 1 && !visited[cell + 1] && cell != start)
+            choices[count++] = MazeModel.EAST;
+         if (y < height - 1 && !visited[cell + width])
+            choices[count++] = MazeModel.SOUTH;
+         if (x > 0 && !visited[cell - 1])
+            choices[count++] = MazeModel.WEST;
+         if (count == 0)
+         {
+            top--;
+            continue;
+         }
+         final int dir = choices[rand.nextInt(count)];
+         maze.clearWall(x + 1, y + 1, dir);
+         final int next;
+         if (dir == MazeModel.NORTH)
+            next = cell - width;
+         else if (dir == MazeModel.EAST)
+            next = cell + 1;
+         else if (dir == MazeModel.SOUTH)
+            next = cell + width;
+         else
+            next = cell - 1;
+         visited[next] = true;
+         stack[top++] = next;
+      }
+      maze.clearCenterWalls();
+      return maze;
+   }
+
+   /**
+    * Utility class.
+    */
+   private MazeFixtures()
+   {}
+}
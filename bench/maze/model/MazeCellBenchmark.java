@@ -0,0 +1,93 @@
+package maze.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures getting neighbor cells the way the solvers do. Each invocation
+ * performs {@link #QUERIES} lookups so the scores are per lookup. Run with
+ * <code>-prof gc</code> to see the allocation rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeCellBenchmark
+{
+   private static final int QUERIES = 4096;
+
+   @Param(
+   {
+      "APEC2002.MAZ", "Large.mz2", "random256"
+   })
+   public String maze;
+
+   private final MazeCell[] cells = new MazeCell[QUERIES];
+   private final Direction[] directions = new Direction[QUERIES];
+   private final int[] xs = new int[QUERIES];
+   private final int[] ys = new int[QUERIES];
+
+   @Setup
+   public void setUp()
+   {
+      final MazeModel model = MazeFixtures.load(this.maze);
+      final Random rand = new Random(42);
+      final int width = model.getSize().width;
+      final int height = model.getSize().height;
+      final Direction[] values = Direction.values();
+      for (int i = 0; i < QUERIES; i++)
+      {
+         // Stay one cell away from the border so every neighbor is in the maze.
+         final int x = rand.nextInt(width - 2) + 2;
+         final int y = rand.nextInt(height - 2) + 2;
+         this.cells[i] = MazeCell.valueOf(x, y);
+         this.directions[i] = values[rand.nextInt(values.length)];
+         this.xs[i] = x + MazeCell.MAX_CACHED_SIZE;
+         this.ys[i] = y + MazeCell.MAX_CACHED_SIZE;
+      }
+   }
+
+   /**
+    * Neighbors of cells in the loaded maze, which are all cached.
+    */
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int neighbor()
+   {
+      int sum = 0;
+      for (int i = 0; i < QUERIES; i++)
+         sum += this.cells[i].neighbor(this.directions[i]).getX();
+      return sum;
+   }
+
+   /**
+    * Cells outside of the cache, which is what every cell past 15 x 15 did
+    * before the cache grew with the maze size.
+    */
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int valueOfUncached()
+   {
+      int sum = 0;
+      for (int i = 0; i < QUERIES; i++)
+         sum += MazeCell.valueOf(this.xs[i], this.ys[i]).getX();
+      return sum;
+   }
+}
@@ -0,0 +1,96 @@
+package maze.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading and saving .mz2 files and .mz3 containers of generated
+ * mazes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeFileBenchmark
+{
+   @Param(
+   {
+      "random256", "random1024"
+   })
+   public String maze;
+
+   private MazeModel model;
+   private File file;
+   private File container;
+
+   @Setup
+   public void setUp() throws IOException
+   {
+      this.model = MazeFixtures.load(this.maze);
+      this.file = File.createTempFile("bench", ".mz2");
+      this.model.saveMaze(this.file.getPath(), this.maze);
+      this.container = File.createTempFile("bench", ".mz3");
+      this.model.saveMaze(this.container.getPath(), this.maze);
+   }
+
+   @TearDown
+   public void tearDown()
+   {
+      this.file.delete();
+      this.container.delete();
+   }
+
+   @Benchmark
+   public MazeModel load() throws IOException
+   {
+      final MazeModel loaded = new MazeModel();
+      loaded.loadMaze(this.file.getPath());
+      return loaded;
+   }
+
+   @Benchmark
+   public File save() throws IOException
+   {
+      this.model.saveMaze(this.file.getPath(), this.maze);
+      return this.file;
+   }
+
+   @Benchmark
+   public MazeModel loadContainer() throws IOException
+   {
+      final MazeContainer in = new MazeContainer(this.container);
+      try
+      {
+         return in.load(0);
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+
+   @Benchmark
+   public File saveContainer() throws IOException
+   {
+      this.model.saveMaze(this.container.getPath(), this.maze);
+      return this.container;
+   }
+}
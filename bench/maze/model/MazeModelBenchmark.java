@@ -0,0 +1,126 @@
+package maze.model;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import maze.bench.MazeFixtures;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of wall queries. Each invocation performs
+ * {@link #QUERIES} random queries so the scores are per query.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeModelBenchmark
+{
+   private static final int QUERIES = 4096;
+
+   @Param(
+   {
+      "APEC2002.MAZ", "Large.mz2", "random64", "random256"
+   })
+   public String maze;
+
+   private MazeModel model;
+   private final int[] xs = new int[QUERIES];
+   private final int[] ys = new int[QUERIES];
+   private final int[] dirs = new int[QUERIES];
+   private final MazeCell[] cells = new MazeCell[QUERIES];
+   private final Direction[] directions = new Direction[QUERIES];
+
+   @Setup
+   public void setUp()
+   {
+      this.model = MazeFixtures.load(this.maze);
+      final Random rand = new Random(42);
+      final int width = this.model.getSize().width;
+      final int height = this.model.getSize().height;
+      for (int i = 0; i < QUERIES; i++)
+      {
+         this.xs[i] = rand.nextInt(width) + 1;
+         this.ys[i] = rand.nextInt(height) + 1;
+         this.directions[i] = Direction.values()[rand.nextInt(4)];
+         this.dirs[i] = this.directions[i].getIndex();
+         this.cells[i] = MazeCell.valueOf(this.xs[i], this.ys[i]);
+      }
+   }
+
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int getWallIntegers()
+   {
+      int set = 0;
+      for (int i = 0; i < QUERIES; i++)
+      {
+         if (this.model.getWall(this.xs[i], this.ys[i], this.dirs[i]))
+            set++;
+      }
+      return set;
+   }
+
+   /**
+    * The object based query used by the GUI and older code. This allocates a
+    * wall object for every query.
+    */
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int getWallObjects()
+   {
+      int set = 0;
+      for (int i = 0; i < QUERIES; i++)
+      {
+         if (this.model.getWall(this.cells[i], this.directions[i]).isSet())
+            set++;
+      }
+      return set;
+   }
+
+   /**
+    * The allocation free query used by the solvers.
+    */
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int isWall()
+   {
+      int set = 0;
+      for (int i = 0; i < QUERIES; i++)
+      {
+         if (this.model.isWall(this.cells[i], this.directions[i]))
+            set++;
+      }
+      return set;
+   }
+
+   /**
+    * Reads all four walls of a cell in one query.
+    */
+   @Benchmark
+   @OperationsPerInvocation(QUERIES)
+   public int getWallMask()
+   {
+      int set = 0;
+      for (int i = 0; i < QUERIES; i++)
+      {
+         if ( (this.model.getWallMask(this.xs[i], this.ys[i]) & (1 << this.dirs[i])) != 0)
+            set++;
+      }
+      return set;
+   }
+}
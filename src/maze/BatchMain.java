@@ -0,0 +1,338 @@
+package maze;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import maze.ai.MotionProfile;
+import maze.ai.PythonFileRobot;
+import maze.ai.RobotBase;
+import maze.ai.RunBudget;
+import maze.ai.SolverRegistry;
+import maze.model.MazeContainer;
+import maze.model.MazeModel;
+import maze.sim.ResultCache;
+import maze.sim.SimulationResult;
+import maze.sim.Tournament;
+
+/**
+ * Command line entry point that evaluates every AI algorithm in the
+ * {@link SolverRegistry} against every maze file in a directory without
+ * opening any windows. Every maze in a .mz3 container is run. This allows a large number of simulations to be run on a
+ * headless build server. The simulations are run in parallel on all processor
+ * cores. With <code>-cache file</code> the results are saved to the file and
+ * simulations already in it are not run again. With <code>-trace dir</code>
+ * every step of every simulation is written to a trace file in the directory.
+ * Each run is limited to 2000 steps unless <code>-max-steps</code> is given,
+ * <code>-max-time</code> and <code>-max-cpu</code> also limit the wall clock
+ * time and the time the algorithm spends thinking, in milliseconds.
+ * <code>-max-step-time</code> limits the time of each step of a script. Python
+ * robot scripts are added to the algorithms with <code>-script file</code>,
+ * which can be given more than once. A script that is not a file is looked for
+ * in the scripts that come with the program. The estimated times of the best
+ * run and of the fastest run through the explored cells are for the default
+ * {@link MotionProfile} changed by <code>-max-speed</code> in m/s,
+ * <code>-accel</code> in m/s^2, <code>-turn-time</code> in seconds and
+ * <code>-no-diagonals</code>.<br />
+ * Usage:
+ * <code>java -cp MicroMouse.jar maze.BatchMain [-threads n] [-cache file] [-trace dir]
+ * [-max-steps n] [-max-time ms] [-max-cpu ms] [-max-step-time ms] [-script file]...
+ * [-max-speed m/s] [-accel m/s^2] [-turn-time s] [-no-diagonals] [directory]</code>
+ */
+public final class BatchMain
+{
+   private static final String[] NAME_EXT =
+   {
+      ".mz2", ".maz", ".mz3"
+   };
+
+   /**
+    * Command line entry point.
+    * @param args An optional thread count, result cache file, trace directory
+    *           and directory containing the maze files, defaults to every
+    *           core, no cache, no traces and the current directory.
+    */
+   public static void main(String[] args)
+   {
+      System.setProperty("java.awt.headless", "true");
+      int threads = Runtime.getRuntime().availableProcessors();
+      String dirName = ".";
+      File cacheFile = null;
+      File traceDir = null;
+      RunBudget budget = RunBudget.DEFAULT;
+      MotionProfile profile = MotionProfile.DEFAULT;
+      final List<String> scripts = new ArrayList<String>();
+      for (int i = 0; i < args.length; i++)
+      {
+         if (args[i].equals("-threads") && i + 1 < args.length)
+            threads = Integer.parseInt(args[++i]);
+         else if (args[i].equals("-cache") && i + 1 < args.length)
+            cacheFile = new File(args[++i]);
+         else if (args[i].equals("-trace") && i + 1 < args.length)
+            traceDir = new File(args[++i]);
+         else if (args[i].equals("-max-steps") && i + 1 < args.length)
+            budget = budget.withMaxSteps(Integer.parseInt(args[++i]));
+         else if (args[i].equals("-max-time") && i + 1 < args.length)
+            budget = budget.withMaxWallMillis(Long.parseLong(args[++i]));
+         else if (args[i].equals("-max-cpu") && i + 1 < args.length)
+            budget = budget.withMaxCpuMillis(Long.parseLong(args[++i]));
+         else if (args[i].equals("-max-step-time") && i + 1 < args.length)
+            budget = budget.withMaxStepMillis(Long.parseLong(args[++i]));
+         else if (args[i].equals("-script") && i + 1 < args.length)
+            scripts.add(args[++i]);
+         else if (args[i].equals("-max-speed") && i + 1 < args.length)
+            profile = profile.withMaxSpeed(Double.parseDouble(args[++i]));
+         else if (args[i].equals("-accel") && i + 1 < args.length)
+            profile = profile.withAcceleration(Double.parseDouble(args[++i]));
+         else if (args[i].equals("-turn-time") && i + 1 < args.length)
+            profile = profile.withTurnSeconds(Double.parseDouble(args[++i]));
+         else if (args[i].equals("-no-diagonals"))
+            profile = profile.withDiagonals(false);
+         else
+            dirName = args[i];
+      }
+      final File dir = new File(dirName);
+      if (!dir.isDirectory())
+      {
+         System.err.println("Not a directory: " + dir);
+         System.exit(2);
+      }
+
+      final Tournament tournament = new Tournament();
+      final ResultCache cache = cacheFile == null ? null : new ResultCache(100000, cacheFile);
+      tournament.setResultCache(cache);
+      tournament.setRecordTraces(traceDir != null);
+      tournament.setBudget(budget);
+      tournament.setMotionProfile(profile);
+      for (RobotBase robot : SolverRegistry.getInstance().createAll())
+      {
+         tournament.addAlgorithm(robot);
+      }
+      for (String script : scripts)
+      {
+         final File file = new File(script);
+         try
+         {
+            if (file.isFile())
+               tournament.addAlgorithm(PythonFileRobot.load(file));
+            else
+               tournament.addAlgorithm(PythonFileRobot.loadBundled(script));
+         }
+         catch (IOException e)
+         {
+            System.err.println("Could not load " + script + ": " + e.getMessage());
+            System.exit(2);
+         }
+      }
+      final File[] files = dir.listFiles();
+      Arrays.sort(files);
+      for (File file : files)
+      {
+         if (!isMazeFile(file))
+            continue;
+         if (file.getName().toLowerCase().endsWith(".mz3"))
+         {
+            addContainer(tournament, file);
+            continue;
+         }
+         final MazeModel maze = new MazeModel();
+         String name;
+         try
+         {
+            name = maze.loadMaze(file.getPath());
+         }
+         catch (IOException e)
+         {
+            System.err.println("Could not load " + file + ": " + e.getMessage());
+            continue;
+         }
+         if (name == null)
+            name = file.getName();
+         tournament.addMaze(name, maze);
+      }
+      final long start = System.nanoTime();
+      final List<SimulationResult> results = tournament.run(threads);
+      final long elapsed = System.nanoTime() - start;
+      printResults(results, System.out);
+      System.out.printf("%d simulations on %d threads in %.1f ms%n",
+                        results.size(),
+                        threads,
+                        elapsed / 1e6);
+      if (traceDir != null)
+         writeTraces(results, traceDir);
+      if (cache != null)
+      {
+         System.out.printf("%d results from the cache%n", cache.getHits());
+         try
+         {
+            cache.save();
+         }
+         catch (IOException e)
+         {
+            System.err.println("Could not save " + cacheFile + ": " + e.getMessage());
+         }
+      }
+
+      for (SimulationResult result : results)
+      {
+         if (result.getOutcome() == SimulationResult.Outcome.Crashed ||
+             result.getOutcome() == SimulationResult.Outcome.Error)
+            System.exit(1);
+      }
+   }
+
+   /**
+    * Adds every maze in a container to the tournament.
+    */
+   private static void addContainer(Tournament tournament, File file)
+   {
+      try
+      {
+         final MazeContainer container = new MazeContainer(file);
+         try
+         {
+            for (int i = 0; i < container.getMazeCount(); i++)
+            {
+               String name = container.getEntry(i).getName();
+               if (name.isEmpty())
+                  name = file.getName() + "#" + i;
+               tournament.addMaze(name, container.load(i));
+            }
+         }
+         finally
+         {
+            container.close();
+         }
+      }
+      catch (IOException e)
+      {
+         System.err.println("Could not load " + file + ": " + e.getMessage());
+      }
+   }
+
+   /**
+    * Writes the trace of every result to a file named after the maze and
+    * algorithm.
+    */
+   private static void writeTraces(List<SimulationResult> results, File dir)
+   {
+      if (!dir.isDirectory() && !dir.mkdirs())
+      {
+         System.err.println("Could not create " + dir);
+         return;
+      }
+      for (SimulationResult result : results)
+      {
+         if (result.getTrace() == null)
+            continue;
+         final String name = result.getMazeName() + "_" + result.getAlgorithmName();
+         final File file = new File(dir, name.replaceAll("[^A-Za-z0-9._-]", "_") + ".trace");
+         try
+         {
+            result.getTrace().write(file);
+         }
+         catch (IOException e)
+         {
+            System.err.println("Could not write " + file + ": " + e.getMessage());
+         }
+      }
+   }
+
+   /**
+    * Tells if the given file has one of the maze file extensions.
+    */
+   private static boolean isMazeFile(File file)
+   {
+      if (!file.isFile())
+         return false;
+      for (String ext : NAME_EXT)
+      {
+         if (file.getName().toLowerCase().endsWith(ext))
+            return true;
+      }
+      return false;
+   }
+
+   /**
+    * Prints a table of simulation results.
+    * @param results The results to print.
+    * @param out The stream to print to.
+    */
+   public static void printResults(List<SimulationResult> results, PrintStream out)
+   {
+      final String format = "%-20s %-24s %-16s %7s %7s %7s %7s %8s %8s %10s%n";
+      out.printf(format,
+                 "Maze",
+                 "Algorithm",
+                 "Outcome",
+                 "Steps",
+                 "Visited",
+                 "First",
+                 "Best",
+                 "Best (s)",
+                 "Fast (s)",
+                 "Time (ms)");
+      for (SimulationResult result : results)
+      {
+         out.printf(format,
+                    result.getMazeName(),
+                    result.getAlgorithmName(),
+                    result.getOutcome(),
+                    result.getTotalSteps(),
+                    result.getTotalTraversed(),
+                    result.wasCenterFound() ? String.valueOf(result.getFirstRunCells()) : "N/A",
+                    result.wasCenterFound() ? String.valueOf(result.getBestRunCells()) : "N/A",
+                    formatSeconds(result.getBestRunSeconds()),
+                    formatSeconds(result.getSpeedRunSeconds()),
+                    result.isCached() ? "cached" : String.format("%.3f", result.getElapsedNanos() / 1e6));
+         if (result.getMessage() != null)
+            out.println("   " + result.getMessage());
+         if (!result.getCounters().isEmpty())
+            out.println("   " + formatCounters(result));
+      }
+   }
+
+   /**
+    * Formats an estimated run time.
+    */
+   private static String formatSeconds(double seconds)
+   {
+      return Double.isNaN(seconds) ? "N/A" : String.format("%.2f", seconds);
+   }
+
+   /**
+    * Formats the algorithm counters of a result. Counts are shown with the
+    * amount per step, measurements like times are not whole numbers and are
+    * shown as they are.
+    */
+   private static String formatCounters(SimulationResult result)
+   {
+      final StringBuilder text = new StringBuilder();
+      for (Map.Entry<String, Number> counter : result.getCounters().entrySet())
+      {
+         if (text.length() > 0)
+            text.append(", ");
+         final Number value = counter.getValue();
+         text.append(counter.getKey()).append('=');
+         if (value instanceof Double || value instanceof Float)
+            text.append(String.format("%.1f", value.doubleValue()));
+         else
+         {
+            text.append(value);
+            if (result.getTotalSteps() > 0)
+               text.append(String.format(" (%.1f/step)", value.doubleValue() / result.getTotalSteps()));
+         }
+      }
+      return text.toString();
+   }
+
+   /**
+    * Utility class.
+    */
+   private BatchMain()
+   {}
+}
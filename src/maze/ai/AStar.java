@@ -0,0 +1,614 @@
+package maze.ai;
+
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import maze.model.CellIndexTable;
+import maze.model.Direction;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+
+/**
+ * A maze solving algorithm that plans a shortest path to its goal with an A*
+ * search over the walls it knows about, treating the cells it has not seen as
+ * open. The heuristic is the Manhattan distance to the nearest cell of the
+ * goal, which never overestimates and changes by at most one between
+ * neighbors, so the first path found is a shortest one and no cell is
+ * searched twice. The path is followed until a wall found on the way blocks
+ * it, only then is a new path planned. Like {@link Floodfill} it explores to
+ * the center, goes back to the start and on a speed run only plans through
+ * cells it has explored. Speed runs from the start follow the fastest run of
+ * the {@link SpeedRunPlanner}, which cuts zig-zags with diagonal steps. See
+ * {@link BidirectionalAStar} for a search from both ends.
+ */
+public class AStar extends RobotBase
+{
+   private static final boolean TO_CENTER = true;
+   private static final boolean TO_START = false;
+   /**
+    * Directions by direction index.
+    */
+   private static final Direction[] DIRECTIONS = new Direction[4];
+   static
+   {
+      for (Direction direction : Direction.values())
+         DIRECTIONS[direction.getIndex()] = direction;
+   }
+
+   private final boolean bidirectional;
+   private final MazeModel maze = new MazeModel();
+   private CellIndexTable cells;
+   private boolean[] explored;
+   /**
+    * Identifies the current search. A cost or closed flag is only set for the
+    * current search if its stamp is equal to this, so the arrays do not need
+    * to be cleared before each search.
+    */
+   private int searchId;
+   private int[] forwardCost;
+   private int[] forwardFrom;
+   private int[] forwardStamp;
+   private int[] forwardClosed;
+   private CellHeap forwardOpen;
+   private int[] backwardCost;
+   private int[] backwardFrom;
+   private int[] backwardStamp;
+   private int[] backwardClosed;
+   private CellHeap backwardOpen;
+   /**
+    * The planned path as cell indexes, starting with the cell the robot was in
+    * when it was planned.
+    */
+   private int[] path;
+   private int pathLength;
+   /**
+    * Position of the robot in the path.
+    */
+   private int pathPosition;
+   /**
+    * Set when a new wall is found, so the rest of the path is checked.
+    */
+   private boolean wallsFound;
+   private final ArrayList<RobotStep> moveQueue = new ArrayList<RobotStep>();
+   private boolean goal;
+   private boolean speedRunCapable;
+   private boolean turbo;
+   private int searches;
+   private long expanded;
+   private long planningNanos;
+
+   public AStar()
+   {
+      this(false);
+   }
+
+   /**
+    * Constructor.
+    * @param bidirectional True to search from the robot and from the goal at
+    *           the same time.
+    */
+   protected AStar(boolean bidirectional)
+   {
+      this.bidirectional = bidirectional;
+   }
+
+   @Override
+   public String toString()
+   {
+      return "A*";
+   }
+
+   @Override
+   public void initialize()
+   {
+      super.initialize();
+      moveQueue.clear();
+      maze.setSize(robotLocation.getMazeSize());
+      maze.clearMaze();
+      cells = maze.getCellIndexTable();
+      final int count = cells.getCellCount();
+      if (explored == null || explored.length != count)
+      {
+         explored = new boolean[count];
+         forwardCost = new int[count];
+         forwardFrom = new int[count];
+         forwardStamp = new int[count];
+         forwardClosed = new int[count];
+         forwardOpen = new CellHeap(count);
+         backwardCost = new int[count];
+         backwardFrom = new int[count];
+         backwardStamp = new int[count];
+         backwardClosed = new int[count];
+         backwardOpen = new CellHeap(count);
+         path = new int[count];
+      }
+      Arrays.fill(explored, false);
+      resetStamps();
+      pathLength = 0;
+      pathPosition = 0;
+      wallsFound = false;
+      goal = TO_CENTER;
+      speedRunCapable = false;
+      turbo = false;
+      searches = 0;
+      expanded = 0;
+      planningNanos = 0;
+   }
+
+   private void resetStamps()
+   {
+      Arrays.fill(forwardStamp, 0);
+      Arrays.fill(forwardClosed, 0);
+      Arrays.fill(backwardStamp, 0);
+      Arrays.fill(backwardClosed, 0);
+      searchId = 0;
+   }
+
+   @Override
+   public RobotStep nextStep()
+   {
+      if (moveQueue.isEmpty() == false)
+         return moveQueue.remove(0);
+
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
+      if (explored[here] == false)
+      {
+         checkWalls();
+         explored[here] = true;
+      }
+      if (isGoal(here))
+      {
+         if ( (goal == TO_CENTER) && (speedRunCapable == false))
+         {
+            speedRunCapable = true;
+            blockOutCenter();
+         }
+         goal = !goal;
+         pathLength = 0;
+      }
+      if (isSpeedy() && robotLocation.getCurrentLocation().equals(maze.getStartingCell()))
+      {
+         // The fastest run is planned for a robot facing north.
+         final Direction direction = robotLocation.getDirection();
+         if (direction != Direction.North)
+            return direction == Direction.East ? RobotStep.RotateLeft : RobotStep.RotateRight;
+         final SpeedRunPlanner.Route route = new SpeedRunPlanner(MotionProfile.DEFAULT).plan(maze, explored);
+         if (route != null && route.getSteps().isEmpty() == false)
+         {
+            moveQueue.addAll(route.getSteps());
+            pathLength = 0;
+            turbo = true;
+            return moveQueue.remove(0);
+         }
+      }
+      if (isPathValid(here) == false && plan() == false)
+      {
+         // Like the flood fill, forget the known walls when the goal can not
+         // be reached.
+         maze.clearMaze();
+         speedRunCapable = false;
+         Arrays.fill(explored, false);
+         explored[here] = true;
+         checkWalls();
+         plan();
+      }
+      if (pathLength < 2)
+         return RobotStep.RotateRight;
+
+      final int next = path[++pathPosition];
+      final Direction nextDirection = directionTo(here, next);
+      final Direction currentDirection = robotLocation.getDirection();
+      turbo = explored[next];
+      if (nextDirection == currentDirection)
+         return RobotStep.MoveForward;
+      if (nextDirection == currentDirection.getLeft())
+      {
+         moveQueue.add(RobotStep.MoveForward);
+         return RobotStep.RotateLeft;
+      }
+      if (nextDirection == currentDirection.getRight())
+      {
+         moveQueue.add(RobotStep.MoveForward);
+         return RobotStep.RotateRight;
+      }
+      return RobotStep.MoveBackward;
+   }
+
+   /**
+    * Moves down a straight in one go. A run follows the planned path through
+    * cells whose walls are already known, since the algorithm would decide the
+    * same in each of them, and ends in the first cell it has yet to explore.
+    * The queued steps of a speed run are batched the same way.
+    */
+   @Override
+   public RobotMove nextMove()
+   {
+      final RobotStep step = nextStep();
+      if (step == null || step.isTurn())
+         return RobotMove.valueOf(step);
+      int count = 1;
+      if (moveQueue.isEmpty() == false)
+      {
+         while (moveQueue.isEmpty() == false && moveQueue.get(0) == step)
+         {
+            moveQueue.remove(0);
+            count++;
+         }
+         return RobotMove.valueOf(step, count);
+      }
+      if (step != RobotStep.MoveForward || pathLength == 0)
+         return RobotMove.valueOf(step);
+      final Direction direction = robotLocation.getDirection();
+      final int start = cells.indexOf(maze.getStartingCell());
+      while (pathPosition < pathLength - 1)
+      {
+         final int cell = path[pathPosition];
+         if (explored[cell] == false || isGoal(cell) || cell == start ||
+             directionTo(cell, path[pathPosition + 1]) != direction)
+            break;
+         turbo = explored[path[++pathPosition]];
+         count++;
+      }
+      return RobotMove.valueOf(step, count);
+   }
+
+   /**
+    * Tells if the robot is on the planned path and no known wall blocks the
+    * rest of it.
+    */
+   private boolean isPathValid(int here)
+   {
+      if (pathPosition >= pathLength - 1 || path[pathPosition] != here)
+         return false;
+      if (wallsFound)
+      {
+         wallsFound = false;
+         for (int i = pathPosition; i < pathLength - 1; i++)
+         {
+            final int walls = getWallMask(path[i]);
+            if ( (walls & (1 << directionTo(path[i], path[i + 1]).getIndex())) != 0)
+               return false;
+         }
+      }
+      return true;
+   }
+
+   /**
+    * Plans a shortest path from where the robot is to the current goal. On a
+    * speed run it first tries to only use explored cells. Package visible so
+    * it can be benchmarked.
+    * @return false if the goal can not be reached with the known walls.
+    */
+   boolean plan()
+   {
+      final long start = System.nanoTime();
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
+      int end = search(here, isSpeedy());
+      if (end == CellIndexTable.NONE && isSpeedy())
+         end = search(here, false);
+      pathLength = 0;
+      pathPosition = 0;
+      wallsFound = false;
+      if (end != CellIndexTable.NONE)
+         buildPath(end);
+      planningNanos += System.nanoTime() - start;
+      return end != CellIndexTable.NONE;
+   }
+
+   /**
+    * Runs one search.
+    * @return The cell where the paths from both ends meet, the goal cell that
+    *         was reached for a one way search, or NONE.
+    */
+   private int search(int from, boolean speedy)
+   {
+      searches++;
+      if (searchId == Integer.MAX_VALUE)
+         resetStamps();
+      searchId++;
+      return bidirectional ? searchBothWays(from, speedy) : searchForward(from, speedy);
+   }
+
+   /**
+    * A* search from the robot to the nearest goal cell.
+    */
+   private int searchForward(int from, boolean speedy)
+   {
+      forwardOpen.clear();
+      reachForward(from, CellIndexTable.NONE, 0);
+      while (forwardOpen.isEmpty() == false)
+      {
+         final int cell = forwardOpen.remove();
+         if (forwardClosed[cell] == searchId)
+            continue;
+         forwardClosed[cell] = searchId;
+         expanded++;
+         if (isGoal(cell))
+            return cell;
+         final int walls = getWallMask(cell);
+         for (int dir = 0; dir < 4; dir++)
+         {
+            final int neighbor = cells.neighbor(cell, dir);
+            if ( (walls & (1 << dir)) == 0 && neighbor != CellIndexTable.NONE &&
+                (speedy == false || explored[neighbor]))
+               reachForward(neighbor, cell, forwardCost[cell] + 1);
+         }
+      }
+      return CellIndexTable.NONE;
+   }
+
+   /**
+    * Bidirectional A* search. One search starts at the robot with the
+    * distance to the goal as its heuristic, the other starts at the goal cells
+    * with the distance to the robot as its heuristic. The side with the
+    * smaller open set is expanded next. Every time a cell is reached by both
+    * the length of the path through it is checked. The search stops when the
+    * larger of the two smallest estimates is no shorter than the best path
+    * found, since every path through a cell neither side has expanded is at
+    * least that long.
+    */
+   private int searchBothWays(int from, boolean speedy)
+   {
+      forwardOpen.clear();
+      backwardOpen.clear();
+      int best = Integer.MAX_VALUE;
+      int meet = CellIndexTable.NONE;
+      reachForward(from, CellIndexTable.NONE, 0);
+      for (int cell : getGoalCells())
+      {
+         if (speedy && explored[cell] == false)
+            continue;
+         reachBackward(cell, CellIndexTable.NONE, 0, from);
+         if (cell == from)
+            return from;
+      }
+
+      while (true)
+      {
+         skipClosed(forwardOpen, forwardClosed);
+         skipClosed(backwardOpen, backwardClosed);
+         if (forwardOpen.isEmpty() || backwardOpen.isEmpty())
+            break;
+         if (Math.max(forwardOpen.peekPriority(), backwardOpen.peekPriority()) >= best)
+            break;
+         final boolean forward = forwardOpen.size() <= backwardOpen.size();
+         final int cell = forward ? forwardOpen.remove() : backwardOpen.remove();
+         (forward ? forwardClosed : backwardClosed)[cell] = searchId;
+         expanded++;
+         final int walls = getWallMask(cell);
+         for (int dir = 0; dir < 4; dir++)
+         {
+            final int neighbor = cells.neighbor(cell, dir);
+            if ( (walls & (1 << dir)) != 0 || neighbor == CellIndexTable.NONE ||
+                (speedy && explored[neighbor] == false))
+               continue;
+            final boolean improved;
+            if (forward)
+               improved = reachForward(neighbor, cell, forwardCost[cell] + 1);
+            else
+               improved = reachBackward(neighbor, cell, backwardCost[cell] + 1, from);
+            if (improved && forwardStamp[neighbor] == searchId && backwardStamp[neighbor] == searchId &&
+                forwardCost[neighbor] + backwardCost[neighbor] < best)
+            {
+               best = forwardCost[neighbor] + backwardCost[neighbor];
+               meet = neighbor;
+            }
+         }
+      }
+      return meet;
+   }
+
+   /**
+    * Removes cells that have already been expanded from the top of a heap.
+    */
+   private void skipClosed(CellHeap heap, int[] closed)
+   {
+      while (heap.isEmpty() == false && closed[heap.peek()] == searchId)
+         heap.remove();
+   }
+
+   /**
+    * Records a path from the robot to a cell if it is shorter than the one
+    * known.
+    * @return true if the cost of the cell was lowered.
+    */
+   private boolean reachForward(int cell, int from, int cost)
+   {
+      if (forwardStamp[cell] == searchId && forwardCost[cell] <= cost)
+         return false;
+      forwardStamp[cell] = searchId;
+      forwardCost[cell] = cost;
+      forwardFrom[cell] = from;
+      forwardOpen.add(cell, cost + distanceToGoal(cell));
+      return true;
+   }
+
+   /**
+    * Records a path from a cell to the goal if it is shorter than the one
+    * known.
+    * @return true if the cost of the cell was lowered.
+    */
+   private boolean reachBackward(int cell, int next, int cost, int robot)
+   {
+      if (backwardStamp[cell] == searchId && backwardCost[cell] <= cost)
+         return false;
+      backwardStamp[cell] = searchId;
+      backwardCost[cell] = cost;
+      backwardFrom[cell] = next;
+      backwardOpen.add(cell, cost + Math.abs(cells.getX(cell) - cells.getX(robot)) +
+                             Math.abs(cells.getY(cell) - cells.getY(robot)));
+      return true;
+   }
+
+   /**
+    * Fills in the path from the robot through a cell found by the last search
+    * to the goal.
+    */
+   private void buildPath(int end)
+   {
+      int length = 0;
+      for (int cell = end; cell != CellIndexTable.NONE; cell = forwardFrom[cell])
+         path[length++] = cell;
+      for (int i = 0, j = length - 1; i < j; i++, j--)
+      {
+         final int swap = path[i];
+         path[i] = path[j];
+         path[j] = swap;
+      }
+      if (bidirectional)
+      {
+         for (int cell = backwardFrom[end]; cell != CellIndexTable.NONE; cell = backwardFrom[cell])
+            path[length++] = cell;
+      }
+      pathLength = length;
+   }
+
+   /**
+    * The Manhattan distance from a cell to the nearest cell of the current
+    * goal.
+    */
+   private int distanceToGoal(int cell)
+   {
+      final int x = cells.getX(cell);
+      final int y = cells.getY(cell);
+      if (goal == TO_START)
+         return Math.abs(x - 1) + Math.abs(y - cells.getHeight());
+      return gap(x, cells.getWidth() / 2) + gap(y, cells.getHeight() / 2);
+   }
+
+   /**
+    * The distance from a coordinate to the two center rows or columns that
+    * start at <code>low</code>.
+    */
+   private static int gap(int value, int low)
+   {
+      if (value < low)
+         return low - value;
+      if (value > low + 1)
+         return value - low - 1;
+      return 0;
+   }
+
+   private boolean isGoal(int cell)
+   {
+      return distanceToGoal(cell) == 0;
+   }
+
+   private int[] getGoalCells()
+   {
+      final int width = cells.getWidth();
+      final int height = cells.getHeight();
+      if (goal == TO_START)
+         return new int[]
+         {
+            cells.indexOf(1, height)
+         };
+      return new int[]
+      {
+         cells.indexOf(width / 2, height / 2), cells.indexOf(width / 2 + 1, height / 2),
+         cells.indexOf(width / 2, height / 2 + 1), cells.indexOf(width / 2 + 1, height / 2 + 1)
+      };
+   }
+
+   /**
+    * Tells if the search toward the current goal may only use explored cells.
+    */
+   private boolean isSpeedy()
+   {
+      return (goal == TO_CENTER) && (speedRun == true) && (speedRunCapable == true);
+   }
+
+   private int getWallMask(int cell)
+   {
+      return maze.getWallMask(cells.getX(cell), cells.getY(cell));
+   }
+
+   /**
+    * Get the direction from a cell to its neighbor.
+    */
+   private Direction directionTo(int cell, int neighbor)
+   {
+      for (int dir = 0; dir < 4; dir++)
+      {
+         if (cells.neighbor(cell, dir) == neighbor)
+            return DIRECTIONS[dir];
+      }
+      throw new IllegalArgumentException("Cells " + cell + " and " + neighbor + " are not neighbors");
+   }
+
+   /**
+    * Sets the algorithm's memory of the maze to think that there are no other
+    * ways out of the center, since there is only one entrance to the goal.
+    * This is only done when first entering the center.
+    */
+   private void blockOutCenter()
+   {
+      final Dimension size = maze.getSize();
+      final MazeCell current = robotLocation.getCurrentLocation();
+      blockOut(MazeCell.valueOf(size.width / 2, size.height / 2), current, Direction.North, Direction.West);
+      blockOut(MazeCell.valueOf(size.width / 2 + 1, size.height / 2), current, Direction.North, Direction.East);
+      blockOut(MazeCell.valueOf(size.width / 2, size.height / 2 + 1), current, Direction.South, Direction.West);
+      blockOut(MazeCell.valueOf(size.width / 2 + 1, size.height / 2 + 1), current, Direction.South, Direction.East);
+   }
+
+   private void blockOut(MazeCell cell, MazeCell current, Direction first, Direction second)
+   {
+      if (cell.equals(current))
+         return;
+      addWall(cell, first);
+      addWall(cell, second);
+   }
+
+   /**
+    * Updates the algorithm's memory of the maze with the walls around the
+    * robot.
+    */
+   private void checkWalls()
+   {
+      final MazeCell cell = robotLocation.getCurrentLocation();
+      final Direction direction = robotLocation.getDirection();
+      if (robotLocation.isWallFront())
+         addWall(cell, direction);
+      if (robotLocation.isWallLeft())
+         addWall(cell, direction.getLeft());
+      if (robotLocation.isWallRight())
+         addWall(cell, direction.getRight());
+      if (robotLocation.isWallBack())
+         addWall(cell, direction.getOpposite());
+   }
+
+   private void addWall(MazeCell cell, Direction direction)
+   {
+      if (maze.isWall(cell, direction) == false)
+      {
+         maze.setWall(cell.getX(), cell.getY(), direction.getIndex());
+         wallsFound = true;
+      }
+   }
+
+   /**
+    * True when the robot is moving through cells it has already explored.
+    */
+   @Override
+   public boolean isInTurboMode()
+   {
+      return turbo;
+   }
+
+   /**
+    * Counts the searches, the cells they expanded and the time spent
+    * planning.
+    */
+   @Override
+   public Map<String, Number> getCounters()
+   {
+      final Map<String, Number> counters = new LinkedHashMap<String, Number>();
+      counters.put("searches", searches);
+      counters.put("expanded", expanded);
+      counters.put("planning ms", planningNanos / 1e6);
+      return counters;
+   }
+}
@@ -0,0 +1,23 @@
+package maze.ai;
+
+/**
+ * A* that searches from the robot and from the goal at the same time and
+ * stops once the two searches can not find a shorter path between them. It
+ * takes paths of the same length as {@link AStar}. Whether it expands fewer
+ * cells depends on the maze: it does on LongPath and MM03FINS of the example
+ * mazes, but on most of the others, like APEC2002 and SEOUL01, searching from
+ * the robot alone expands fewer.
+ */
+public class BidirectionalAStar extends AStar
+{
+   public BidirectionalAStar()
+   {
+      super(true);
+   }
+
+   @Override
+   public String toString()
+   {
+      return "Bidirectional A*";
+   }
+}
@@ -0,0 +1,105 @@
+package maze.ai;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of cell indexes for the best first searches of the A*
+ * algorithms. It is a binary heap of <code>long</code> keys, the priority in
+ * the high 32 bits and the cell index in the low 32 bits, so a search does not
+ * create any objects once the heap has grown to its working size. A cell can
+ * be added again with a better priority, the old entry is left in the heap and
+ * the search skips it when it comes out.
+ */
+final class CellHeap
+{
+   private long[] keys;
+   private int size;
+
+   /**
+    * Create an empty heap.
+    * @param capacity The number of entries to make room for at first.
+    */
+   CellHeap(int capacity)
+   {
+      keys = new long[Math.max(capacity, 16)];
+   }
+
+   /**
+    * Add a cell.
+    * @param cell The cell index.
+    * @param priority The priority, smaller comes out first. Must not be
+    *           negative.
+    */
+   void add(int cell, int priority)
+   {
+      if (size == keys.length)
+         keys = Arrays.copyOf(keys, size * 2);
+      final long key = ((long) priority << 32) | cell;
+      int i = size++;
+      while (i > 0)
+      {
+         final int parent = (i - 1) >>> 1;
+         if (keys[parent] <= key)
+            break;
+         keys[i] = keys[parent];
+         i = parent;
+      }
+      keys[i] = key;
+   }
+
+   /**
+    * Get the first cell without removing it.
+    */
+   int peek()
+   {
+      return (int) keys[0];
+   }
+
+   /**
+    * Get the priority of the first cell without removing it.
+    */
+   int peekPriority()
+   {
+      return (int) (keys[0] >>> 32);
+   }
+
+   /**
+    * Remove the cell with the smallest priority.
+    * @return The cell index.
+    */
+   int remove()
+   {
+      final int cell = (int) keys[0];
+      final long last = keys[--size];
+      int i = 0;
+      while (true)
+      {
+         int child = 2 * i + 1;
+         if (child >= size)
+            break;
+         if (child + 1 < size && keys[child + 1] < keys[child])
+            child++;
+         if (last <= keys[child])
+            break;
+         keys[i] = keys[child];
+         i = child;
+      }
+      keys[i] = last;
+      return cell;
+   }
+
+   boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   int size()
+   {
+      return size;
+   }
+
+   void clear()
+   {
+      size = 0;
+   }
+}
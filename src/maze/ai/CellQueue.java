@@ -0,0 +1,84 @@
+package maze.ai;
+
+import java.util.BitSet;
+
+/**
+ * A first in first out queue of cell indexes for the breadth first searches of
+ * the flood fill algorithms. It is a ring buffer with room for every cell of
+ * the maze, allocated once and reused for each search so a search does not
+ * create any objects. A cell can only be in the queue once, adding a cell that
+ * is already waiting does nothing. This also makes {@link #contains(int)} a
+ * single bit lookup.
+ */
+final class CellQueue
+{
+   private final int[] cells;
+   private final BitSet queued;
+   private int head;
+   private int size;
+
+   /**
+    * Create an empty queue.
+    * @param cellCount Number of cells in the maze, all cell indexes must be
+    *           less than this.
+    */
+   CellQueue(int cellCount)
+   {
+      cells = new int[cellCount];
+      queued = new BitSet(cellCount);
+   }
+
+   /**
+    * Add a cell to the end of the queue unless it is already in the queue.
+    * @param cell The cell index.
+    * @return false if the cell was already in the queue.
+    */
+   boolean add(int cell)
+   {
+      if (queued.get(cell))
+         return false;
+      queued.set(cell);
+      int tail = head + size;
+      if (tail >= cells.length)
+         tail -= cells.length;
+      cells[tail] = cell;
+      size++;
+      return true;
+   }
+
+   int remove()
+   {
+      final int cell = cells[head];
+      head++;
+      if (head == cells.length)
+         head = 0;
+      size--;
+      queued.clear(cell);
+      return cell;
+   }
+
+   /**
+    * Get the next cell without removing it.
+    */
+   int peek()
+   {
+      return cells[head];
+   }
+
+   boolean isEmpty()
+   {
+      return size == 0;
+   }
+
+   void clear()
+   {
+      queued.clear();
+      head = 0;
+      size = 0;
+   }
+
+   boolean contains(int cell)
+   {
+      return queued.get(cell);
+   }
+}
@@ -2,29 +2,92 @@ package maze.ai;
 
 import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
+import maze.model.CellIndexTable;
 import maze.model.Direction;
 import maze.model.MazeCell;
 import maze.model.MazeModel;
 import maze.model.RobotModel;
 
 /**
- * A maze solving algorithm that does a best path search after each step.
+ * A maze solving algorithm that does a best path search after each step. In
+ * incremental mode, see {@link IncrementalFloodfill}, only the distances that
+ * depend on newly found walls are calculated again.
  */
 public class Floodfill extends RobotBase
 {
-   private int[][] distance;
-   private boolean[][] explored;
+   /**
+    * Distance of each cell by cell index.
+    */
+   private int[] distance;
+   /**
+    * Explored flag of each cell by cell index.
+    */
+   private boolean[] explored;
+   /**
+    * Copy of the distances for {@link #getUnderstandingInt()}.
+    */
+   private int[][] understanding;
+   private CellIndexTable cells;
+   private CellQueue queue;
+   /**
+    * Update the distances after walls are found by repairing only the cells
+    * that depended on them.
+    */
+   private final boolean incremental;
+   /**
+    * True when the distances are correct for the walls known at the last
+    * search, so they can be repaired instead of recalculated.
+    */
+   private boolean distancesValid;
+   /**
+    * Walls found since the last search as cell index * 4 + direction index.
+    */
+   private CellQueue foundWalls;
+   /**
+    * Cells whose distance was lost during a repair.
+    */
+   private boolean[] invalid;
+   private int[] invalidCells;
+   private int invalidCount;
+   /**
+    * Starting points of a repair search as distance &lt;&lt; 32 | cell index.
+    */
+   private long[] seeds;
+   private long relaxations;
+   private int floods;
+   private int repairs;
    private ArrayList<RobotStep> moveQueue = new ArrayList<RobotStep>();
    private boolean turbo = false;
-   private static final int USELESS = 1024;
+   /**
+    * Distance given to cells that cannot reach the goal. This must be larger
+    * than any real distance in the largest maze.
+    */
+   private static final int USELESS = Integer.MAX_VALUE / 2;
    private MazeModel maze = new MazeModel();
    private boolean goal;
    private static final boolean TO_CENTER = true;
    private static final boolean TO_START = false;
    private boolean speedRunCapable;
 
+   public Floodfill()
+   {
+      this(false);
+   }
+
+   /**
+    * Constructor.
+    * @param incremental True to repair the distances when walls are found
+    *           instead of searching the whole maze again.
+    */
+   protected Floodfill(boolean incremental)
+   {
+      this.incremental = incremental;
+   }
+
    /**
     * Returns a string describing this class
     */
@@ -44,20 +107,26 @@ public class Floodfill extends RobotBase
       moveQueue.clear();
       maze.setSize(robotLocation.getMazeSize());
       maze.clearMaze();
+      cells = maze.getCellIndexTable();
       Dimension size = maze.getSize();
-      if (distance == null)
-      {
-         distance = new int[size.width][size.height];
-         explored = new boolean[size.width][size.height];
-      }
-      for (int i = 0; i < size.getWidth(); i++)
-      {
-         for (int j = 0; j < size.getHeight(); j++)
-         {
-            distance[i][j] = USELESS;
-            explored[i][j] = false;
-         }
-      }
+      if (distance == null || distance.length != cells.getCellCount())
+      {
+         distance = new int[cells.getCellCount()];
+         explored = new boolean[cells.getCellCount()];
+         understanding = new int[size.width][size.height];
+         queue = new CellQueue(cells.getCellCount());
+         foundWalls = new CellQueue(cells.getCellCount() * 4);
+         invalid = new boolean[cells.getCellCount()];
+         invalidCells = new int[cells.getCellCount()];
+         seeds = new long[cells.getCellCount()];
+      }
+      Arrays.fill(distance, USELESS);
+      Arrays.fill(explored, false);
+      foundWalls.clear();
+      distancesValid = false;
+      relaxations = 0;
+      floods = 0;
+      repairs = 0;
       goal = TO_CENTER;
       speedRunCapable = false;
    }
@@ -125,70 +194,16 @@ public class Floodfill extends RobotBase
     */
    private boolean getNeighborExplored(Direction direction)
    {
-      MazeCell neighbor;
-      MazeCell here = robotLocation.getCurrentLocation();
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
-         return false;
-      }
-
-      return getExplored(neighbor);
+      return getNeighborExplored(cells.indexOf(robotLocation.getCurrentLocation()), direction.getIndex());
    }
 
    /**
     * Returns the explored flag of the given location's neighbor.
     */
-   private boolean getNeighborExplored(MazeCell here, Direction direction)
+   private boolean getNeighborExplored(int here, int dir)
    {
-      MazeCell neighbor;
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
-         return false;
-      }
-
-      return getExplored(neighbor);
-   }
-
-   /**
-    * Returns the explored flag of the given location.
-    */
-   private boolean getExplored(MazeCell cell)
-   {
-      return explored[cell.getX() - 1][cell.getY() - 1];
+      final int neighbor = cells.neighbor(here, dir);
+      return neighbor != CellIndexTable.NONE && explored[neighbor];
    }
 
    /**
@@ -196,7 +211,7 @@ public class Floodfill extends RobotBase
     */
    private boolean getExplored()
    {
-      return getExplored(robotLocation.getCurrentLocation());
+      return explored[cells.indexOf(robotLocation.getCurrentLocation())];
    }
 
    /**
@@ -204,7 +219,7 @@ public class Floodfill extends RobotBase
     */
    private void setExplored()
    {
-      explored[robotLocation.getCurrentLocation().getX() - 1][robotLocation.getCurrentLocation().getY() - 1] = true;
+      explored[cells.indexOf(robotLocation.getCurrentLocation())] = true;
    }
 
    /**
@@ -214,45 +229,46 @@ public class Floodfill extends RobotBase
     */
    private Direction getBestDirection()
    {
-      MazeCell here = robotLocation.getCurrentLocation();
-      int bestDistance = getDistance(here);
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
+      int bestDistance = distance[here];
       Direction bestDirection = null;
+      final int walls = maze.getWallMask(robotLocation.getCurrentLocation());
 
-      if ( (bestDistance > getNeighborDistance(here, robotLocation.getDirection())) &&
+      if ( (bestDistance > getNeighborDistance(here, robotLocation.getDirection().getIndex())) &&
           (robotLocation.isWallFront() == false))
       {
          bestDirection = robotLocation.getDirection();
-         bestDistance = getNeighborDistance(here, bestDirection);
+         bestDistance = getNeighborDistance(here, bestDirection.getIndex());
       }
 
-      if ( (bestDistance > getNeighborDistance(here, Direction.North)) &&
-          (maze.getWall(here, Direction.North).isSet() == false))
+      if ( (bestDistance > getNeighborDistance(here, MazeModel.NORTH)) &&
+          ( (walls & MazeModel.NORTH_MASK) == 0))
       {
          bestDirection = Direction.North;
-         bestDistance = getNeighborDistance(here, bestDirection);
+         bestDistance = getNeighborDistance(here, MazeModel.NORTH);
       }
-      if ( (bestDistance > getNeighborDistance(here, Direction.East)) &&
-          (maze.getWall(here, Direction.East).isSet() == false))
+      if ( (bestDistance > getNeighborDistance(here, MazeModel.EAST)) &&
+          ( (walls & MazeModel.EAST_MASK) == 0))
       {
          bestDirection = Direction.East;
-         bestDistance = getNeighborDistance(here, bestDirection);
+         bestDistance = getNeighborDistance(here, MazeModel.EAST);
       }
-      if ( (bestDistance > getNeighborDistance(here, Direction.West)) &&
-          (maze.getWall(here, Direction.West).isSet() == false))
+      if ( (bestDistance > getNeighborDistance(here, MazeModel.WEST)) &&
+          ( (walls & MazeModel.WEST_MASK) == 0))
       {
          bestDirection = Direction.West;
-         bestDistance = getNeighborDistance(here, bestDirection);
+         bestDistance = getNeighborDistance(here, MazeModel.WEST);
       }
-      if ( (bestDistance > getNeighborDistance(here, Direction.South)) &&
-          (maze.getWall(here, Direction.South).isSet() == false))
+      if ( (bestDistance > getNeighborDistance(here, MazeModel.SOUTH)) &&
+          ( (walls & MazeModel.SOUTH_MASK) == 0))
       {
          bestDirection = Direction.South;
-         bestDistance = getNeighborDistance(here, bestDirection);
+         bestDistance = getNeighborDistance(here, MazeModel.SOUTH);
       }
 
       if (bestDirection == null)
       {
-         floodfill();
+         updateDistances();
          return getBestDirection();
       }
       else
@@ -262,92 +278,69 @@ public class Floodfill extends RobotBase
    }
 
    /**
-    * Returns the distance of the MazeCell adjacent to the passed MazeCell and
-    * is adjacent in the specified direction.
+    * Returns the distance of the cell adjacent to the given cell index in the
+    * specified direction.
     */
-   private int getNeighborDistance(MazeCell here, Direction direction)
+   private int getNeighborDistance(int here, int dir)
    {
-      MazeCell neighbor;
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
+      final int neighbor = cells.neighbor(here, dir);
+      if (neighbor == CellIndexTable.NONE)
          return USELESS;
-      }
-
-      return getDistance(neighbor);
+      return distance[neighbor];
    }
 
    /**
-    * Returns the distance of the desired MazeCell
+    * Sets the distance of a cell and adds it to the search queue.
     */
-   private int getDistance(MazeCell here)
+   private void enqueue(int cell, int value)
    {
-      return distance[here.getX() - 1][here.getY() - 1];
+      distance[cell] = value;
+      queue.add(cell);
    }
 
    /**
-    * Sets the distance of the desired MazeCell to the value provided
+    * Relaxes the neighbor of a cell in one direction during the search.
     */
-   private void setDistance(MazeCell here, int value)
+   private void visit(int cell, int walls, int dir, int nextDistance, boolean speedy)
    {
-      distance[here.getX() - 1][here.getY() - 1] = value;
+      //Check to see if accessible
+      if ( (walls & (1 << dir)) == 0)
+      { //Check to see if it should be added to queue
+         relaxations++;
+         final int neighbor = cells.neighbor(cell, dir);
+         if ( (nextDistance < distance[neighbor]) && ( (speedy == false) || explored[neighbor]))
+            enqueue(neighbor, nextDistance);
+      }
    }
 
-   private void floodfill()
+   /**
+    * Recalculates the distance of every cell from the current goal. Package
+    * visible so it can be benchmarked.
+    */
+   void floodfill()
    {
       Dimension size = maze.getSize();
-      Vector<MazeCell> queue = new Vector<MazeCell>();
-      MazeCell cell;
-      int currentDistance;
       boolean speedy;
 
-      for (int i = 1; i <= size.width; i++)
-      {
-         for (int j = 1; j <= size.height; j++)
-         {
-            setDistance(MazeCell.valueOf(i, j), USELESS);
-         }
-      }
+      floods++;
+      Arrays.fill(distance, USELESS);
+      queue.clear();
+      foundWalls.clear();
+      distancesValid = true;
 
       if (goal == TO_START)
       {
-         cell = MazeCell.valueOf(1, size.height);
-         setDistance(cell, 0);
-         queue.add(cell);
+         enqueue(cells.indexOf(1, size.height), 0);
          speedy = false;
       }
       else
       {
          int targetX = size.width / 2;
          int targetY = size.height / 2;
-         cell = MazeCell.valueOf(targetX, targetY);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX + 1, targetY);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX, targetY + 1);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX + 1, targetY + 1);
-         setDistance(cell, 0);
-         queue.add(cell);
+         enqueue(cells.indexOf(targetX, targetY), 0);
+         enqueue(cells.indexOf(targetX + 1, targetY), 0);
+         enqueue(cells.indexOf(targetX, targetY + 1), 0);
+         enqueue(cells.indexOf(targetX + 1, targetY + 1), 0);
          if ( (speedRun == true) && (speedRunCapable == true))
          {
             speedy = true;
@@ -360,73 +353,178 @@ public class Floodfill extends RobotBase
 
       while (queue.isEmpty() == false)
       {
-         cell = queue.get(0);
-         queue.remove(0);
-         currentDistance = getDistance(cell);
+         final int cell = queue.remove();
+         final int nextDistance = distance[cell] + 1;
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         visit(cell, walls, MazeModel.NORTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.SOUTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.WEST, nextDistance, speedy);
+         visit(cell, walls, MazeModel.EAST, nextDistance, speedy);
+      }
 
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.North).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.North)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.North) == true)))
-            {
-               queue.add(cell.plusY(-1));
-               setDistance(cell.plusY(-1), currentDistance + 1);
-            }
-         }
+      purgeIfLost();
+   }
 
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.South).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.South)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.South))))
-            {
-               queue.add(cell.plusY(1));
-               setDistance(cell.plusY(1), currentDistance + 1);
-            }
-         }
+   /**
+    * Tells if the search toward the current goal may only use explored cells.
+    */
+   private boolean isSpeedy()
+   {
+      return (goal == TO_CENTER) && (speedRun == true) && (speedRunCapable == true);
+   }
 
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.West).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.West)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.West))))
+   /**
+    * Brings the distances up to date with the walls found so far, by repairing
+    * them in incremental mode or else by searching the whole maze. Package
+    * visible so it can be tested.
+    */
+   void updateDistances()
+   {
+      // A speed run only searches explored cells. Exploring a cell can make
+      // distances shorter which a repair does not handle.
+      if (incremental && distancesValid && !isSpeedy())
+      {
+         repair();
+         purgeIfLost();
+      }
+      else
+      {
+         floodfill();
+      }
+   }
+
+   /**
+    * Forgets the known walls if the current location cannot reach the goal.
+    */
+   private void purgeIfLost()
+   {
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
+      if (distance[here] == USELESS)
+      {
+         //System.out.println("Purging Knowledge");
+         maze.clearMaze();
+         speedRunCapable = false;
+         Arrays.fill(explored, false);
+         explored[here] = true;
+         checkWalls();
+         floodfill();
+      }
+   }
+
+   /**
+    * Updates the distances after walls were found without searching the whole
+    * maze. Walls only make distances longer, so first every cell that no
+    * longer has a neighbor one step closer to the goal is invalidated, along
+    * with the cells that depended on it. Then a search starting from the
+    * valid cells around them, in order of distance, fills the invalid cells
+    * back in. The result is the same as {@link #floodfill()}. Package visible
+    * so it can be benchmarked.
+    */
+   void repair()
+   {
+      repairs++;
+      queue.clear();
+      invalidCount = 0;
+      while (foundWalls.isEmpty() == false)
+      {
+         final int wall = foundWalls.remove();
+         final int cell = wall / 4;
+         checkSupport(cell);
+         checkSupport(cells.neighbor(cell, wall % 4));
+      }
+      while (queue.isEmpty() == false)
+      {
+         final int cell = queue.remove();
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         for (int dir = 0; dir < 4; dir++)
+         {
+            if ( (walls & (1 << dir)) == 0)
             {
-               queue.add(cell.plusX(-1));
-               setDistance(cell.plusX(-1), currentDistance + 1);
+               relaxations++;
+               final int neighbor = cells.neighbor(cell, dir);
+               if (distance[neighbor] == distance[cell] + 1)
+                  checkSupport(neighbor);
             }
          }
+      }
 
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.East).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.East)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.East))))
+      // Seed the search with the best valid neighbor of each invalid cell.
+      int seedCount = 0;
+      for (int i = 0; i < invalidCount; i++)
+      {
+         final int cell = invalidCells[i];
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         int best = USELESS;
+         for (int dir = 0; dir < 4; dir++)
+         {
+            if ( (walls & (1 << dir)) == 0)
             {
-               queue.add(cell.plusX(1));
-               setDistance(cell.plusX(1), currentDistance + 1);
+               relaxations++;
+               final int neighbor = cells.neighbor(cell, dir);
+               if (invalid[neighbor] == false && distance[neighbor] + 1 < best)
+                  best = distance[neighbor] + 1;
             }
          }
+         if (best < USELESS)
+            seeds[seedCount++] = ((long) best << 32) | cell;
+      }
+      for (int i = 0; i < invalidCount; i++)
+      {
+         distance[invalidCells[i]] = USELESS;
+         invalid[invalidCells[i]] = false;
+      }
+      Arrays.sort(seeds, 0, seedCount);
 
+      // Breadth first search that takes the seeds in as their distance comes up.
+      int nextSeed = 0;
+      while (nextSeed < seedCount || queue.isEmpty() == false)
+      {
+         final int cell;
+         if (queue.isEmpty() == false &&
+             (nextSeed == seedCount || distance[queue.peek()] <= (int) (seeds[nextSeed] >>> 32)))
+         {
+            cell = queue.remove();
+         }
+         else
+         {
+            cell = (int) seeds[nextSeed];
+            final int seedDistance = (int) (seeds[nextSeed] >>> 32);
+            nextSeed++;
+            if (seedDistance >= distance[cell])
+               continue;
+            distance[cell] = seedDistance;
+         }
+         final int nextDistance = distance[cell] + 1;
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         visit(cell, walls, MazeModel.NORTH, nextDistance, false);
+         visit(cell, walls, MazeModel.SOUTH, nextDistance, false);
+         visit(cell, walls, MazeModel.WEST, nextDistance, false);
+         visit(cell, walls, MazeModel.EAST, nextDistance, false);
       }
+   }
 
-      MazeCell here = robotLocation.getCurrentLocation();
-      if (getDistance(here) == USELESS)
+   /**
+    * Invalidates a cell during a repair if none of its neighbors is one step
+    * closer to the goal anymore.
+    */
+   private void checkSupport(int cell)
+   {
+      if (invalid[cell] || distance[cell] == 0 || distance[cell] >= USELESS)
+         return;
+      final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+      for (int dir = 0; dir < 4; dir++)
       {
-         //System.out.println("Purging Knowledge");
-         maze.clearMaze();
-         speedRunCapable = false;
-         for (int i = 0; i < size.width; i++)
+         if ( (walls & (1 << dir)) == 0)
          {
-            for (int j = 0; j < size.height; j++)
-            {
-               explored[i][j] = false;
-            }
+            relaxations++;
+            final int neighbor = cells.neighbor(cell, dir);
+            if (invalid[neighbor] == false && distance[neighbor] == distance[cell] - 1)
+               return;
          }
-         explored[here.getX() - 1][here.getY() - 1] = true;
-         checkWalls();
-         floodfill();
       }
+      invalid[cell] = true;
+      invalidCells[invalidCount++] = cell;
+      queue.add(cell);
    }
 
    /**
@@ -497,20 +595,33 @@ public class Floodfill extends RobotBase
       Direction direction = robotLocation.getDirection();
       if (robotLocation.isWallFront())
       {
-         maze.setWall(cell.getX(), cell.getY(), direction.getIndex());
+         addWall(cell, direction);
       }
       if (robotLocation.isWallLeft())
       {
-         maze.setWall(cell.getX(), cell.getY(), direction.getLeft().getIndex());
+         addWall(cell, direction.getLeft());
       }
       if (robotLocation.isWallRight())
       {
-         maze.setWall(cell.getX(), cell.getY(), direction.getRight().getIndex());
+         addWall(cell, direction.getRight());
       }
       if (robotLocation.isWallBack())
       {
-         maze.setWall(cell.getX(), cell.getY(), direction.getOpposite().getIndex());
+         addWall(cell, direction.getOpposite());
+      }
+   }
+
+   /**
+    * Adds a wall to the algorithm's memory of the maze and remembers it for
+    * the next repair if it is new. Package visible so it can be tested.
+    */
+   void addWall(MazeCell cell, Direction direction)
+   {
+      if (incremental && maze.isWall(cell, direction) == false)
+      {
+         foundWalls.add(cells.indexOf(cell) * 4 + direction.getIndex());
       }
+      maze.setWall(cell.getX(), cell.getY(), direction.getIndex());
    }
 
    /**
@@ -525,11 +636,30 @@ public class Floodfill extends RobotBase
    /**
     * Returns the instance of how the algorithm understands the maze. For
     * Floodfill this is an integer for each cell representing the expected
-    * distance from the center.
+    * distance from the center, or {@link RobotBase#UNREACHABLE}.
     */
    public int[][] getUnderstandingInt()
    {
-      return distance;
+      if (distance == null)
+         return null;
+      for (int i = 0; i < distance.length; i++)
+         understanding[i % cells.getWidth()][i / cells.getWidth()] = distance[i] >= USELESS ? UNREACHABLE
+                                                                                            : distance[i];
+      return understanding;
+   }
+
+   /**
+    * Counts the full searches, the repairs and the neighbor checks done by
+    * both, which is the work done to keep the distances up to date.
+    */
+   @Override
+   public Map<String, Number> getCounters()
+   {
+      final Map<String, Number> counters = new LinkedHashMap<String, Number>();
+      counters.put("floods", floods);
+      counters.put("repairs", repairs);
+      counters.put("relaxations", relaxations);
+      return counters;
    }
 
    @Override
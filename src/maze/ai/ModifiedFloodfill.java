@@ -2,8 +2,9 @@ package maze.ai;
 
 import java.awt.Dimension;
 import java.util.ArrayList;
-import java.util.Vector;
+import java.util.Arrays;
 
+import maze.model.CellIndexTable;
 import maze.model.Direction;
 import maze.model.MazeCell;
 import maze.model.MazeModel;
@@ -11,12 +12,39 @@ import maze.model.RobotModel;
 
 public class ModifiedFloodfill extends RobotBase
 {
-   private int[][] distance;
-   private boolean[][] explored;
-   private int[][] directions;
+   /**
+    * Distance of each cell by cell index.
+    */
+   private int[] distance;
+   /**
+    * Explored flag of each cell by cell index.
+    */
+   private boolean[] explored;
+   /**
+    * The {@link Direction2} bits of each cell by cell index.
+    */
+   private int[] directions;
+   /**
+    * Copy of the distances for {@link #getUnderstandingInt()}.
+    */
+   private int[][] understanding;
+   private CellIndexTable cells;
+   private CellQueue queue;
+   private CellQueue badQueue;
    private ArrayList<RobotStep> moveQueue = new ArrayList<RobotStep>();
    private boolean turbo = false;
-   private static final int USELESS = 1024;
+   /**
+    * Distance given to cells that cannot reach the goal. This must be larger
+    * than any real distance in the largest maze.
+    */
+   private static final int USELESS = Integer.MAX_VALUE / 2;
+   /**
+    * The {@link Direction2} of each direction index.
+    */
+   private static final Direction2[] DIRECTIONS =
+   {
+      Direction2.North, Direction2.East, Direction2.South, Direction2.West
+   };
    private MazeModel maze = new MazeModel();
    private boolean goal;
    private static final boolean TO_CENTER = true;
@@ -43,22 +71,20 @@ public class ModifiedFloodfill extends RobotBase
       moveQueue.clear();
       maze.setSize(robotLocation.getMazeSize());
       maze.clearMaze();
+      cells = maze.getCellIndexTable();
       Dimension size = maze.getSize();
-      if (distance == null)
-      {
-         distance = new int[size.width][size.height];
-         explored = new boolean[size.width][size.height];
-         directions = new int[size.width][size.height];
-      }
-      for (int i = 0; i < size.width; i++)
-      {
-         for (int j = 0; j < size.height; j++)
-         {
-            distance[i][j] = USELESS;
-            explored[i][j] = false;
-            directions[i][j] = 0;
-         }
-      }
+      if (distance == null || distance.length != cells.getCellCount())
+      {
+         distance = new int[cells.getCellCount()];
+         explored = new boolean[cells.getCellCount()];
+         directions = new int[cells.getCellCount()];
+         understanding = new int[size.width][size.height];
+         queue = new CellQueue(cells.getCellCount());
+         badQueue = new CellQueue(cells.getCellCount());
+      }
+      Arrays.fill(distance, USELESS);
+      Arrays.fill(explored, false);
+      Arrays.fill(directions, 0);
       goal = TO_CENTER;
       speedRunCapable = false;
    }
@@ -126,70 +152,16 @@ public class ModifiedFloodfill extends RobotBase
     */
    private boolean getNeighborExplored(Direction direction)
    {
-      MazeCell neighbor;
-      MazeCell here = robotLocation.getCurrentLocation();
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
-         return false;
-      }
-
-      return getExplored(neighbor);
+      return getNeighborExplored(cells.indexOf(robotLocation.getCurrentLocation()), direction.getIndex());
    }
 
    /**
     * Returns the explored flag of the given location's neighbor.
     */
-   private boolean getNeighborExplored(MazeCell here, Direction direction)
-   {
-      MazeCell neighbor;
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
-         return false;
-      }
-
-      return getExplored(neighbor);
-   }
-
-   /**
-    * Returns the explored flag of the given location.
-    */
-   private boolean getExplored(MazeCell cell)
+   private boolean getNeighborExplored(int here, int dir)
    {
-      return explored[cell.getX() - 1][cell.getY() - 1];
+      final int neighbor = cells.neighbor(here, dir);
+      return neighbor != CellIndexTable.NONE && explored[neighbor];
    }
 
    /**
@@ -197,7 +169,7 @@ public class ModifiedFloodfill extends RobotBase
     */
    private boolean getExplored()
    {
-      return getExplored(robotLocation.getCurrentLocation());
+      return explored[cells.indexOf(robotLocation.getCurrentLocation())];
    }
 
    /**
@@ -205,7 +177,7 @@ public class ModifiedFloodfill extends RobotBase
     */
    private void setExplored()
    {
-      explored[robotLocation.getCurrentLocation().getX() - 1][robotLocation.getCurrentLocation().getY() - 1] = true;
+      explored[cells.indexOf(robotLocation.getCurrentLocation())] = true;
    }
 
    /**
@@ -215,7 +187,7 @@ public class ModifiedFloodfill extends RobotBase
     */
    private Direction getBestDirection()
    {
-      MazeCell here = robotLocation.getCurrentLocation();
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
       Direction current = robotLocation.getDirection();
       //int bestDistance = getDistance(here);
       Direction bestDirection = null;
@@ -292,94 +264,83 @@ public class ModifiedFloodfill extends RobotBase
    }
 
    /**
-    * Returns the distance of the MazeCell adjacent to the passed MazeCell and
-    * is adjacent in the specified direction.
+    * Returns the distance of the cell adjacent to the given cell index in the
+    * specified direction.
     */
-   private int getNeighborDistance(MazeCell here, Direction direction)
+   private int getNeighborDistance(int here, int dir)
    {
-      MazeCell neighbor;
-      Dimension size = maze.getSize();
-      if ( (direction == Direction.North) && (here.getY() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() - 1);
-      }
-      else if ( (direction == Direction.South) && (here.getY() != size.getHeight()))
-      {
-         neighbor = MazeCell.valueOf(here.getX(), here.getY() + 1);
-      }
-      else if ( (direction == Direction.East) && (here.getX() != size.getWidth()))
-      {
-         neighbor = MazeCell.valueOf(here.getX() + 1, here.getY());
-      }
-      else if ( (direction == Direction.West) && (here.getX() != 1))
-      {
-         neighbor = MazeCell.valueOf(here.getX() - 1, here.getY());
-      }
-      else
-      {
+      final int neighbor = cells.neighbor(here, dir);
+      if (neighbor == CellIndexTable.NONE)
          return USELESS;
-      }
-
-      return getDistance(neighbor);
+      return distance[neighbor];
    }
 
    /**
-    * Returns the distance of the desired MazeCell
+    * Relaxes the neighbor of a cell in one direction during a search. A
+    * neighbor that is now closer is added to the queue and points back at the
+    * cell, one that is just as close also points back at the cell.
     */
-   private int getDistance(MazeCell here)
+   private void visit(int cell, int walls, int dir, int nextDistance, boolean speedy)
    {
-      return distance[here.getX() - 1][here.getY() - 1];
+      //Check to see if accessible
+      if ( (walls & (1 << dir)) != 0)
+         return;
+      final int neighbor = cells.neighbor(cell, dir);
+      if ( (speedy == true) && (explored[neighbor] == false))
+         return;
+      final int back = DIRECTIONS[(dir + 2) % 4].getIndex();
+      //Check to see if it should be added to queue
+      if (nextDistance < distance[neighbor])
+      {
+         queue.add(neighbor);
+         distance[neighbor] = nextDistance;
+         directions[neighbor] = back;
+      }
+      else if (nextDistance == distance[neighbor])
+      {
+         directions[neighbor] |= back;
+      }
    }
 
    /**
-    * Sets the distance of the desired MazeCell to the value provided
+    * Relaxes all the neighbors of the cells in the queue until it is empty.
     */
-   private void setDistance(MazeCell here, int value)
+   private void search(boolean speedy)
    {
-      distance[here.getX() - 1][here.getY() - 1] = value;
+      while (queue.isEmpty() == false)
+      {
+         final int cell = queue.remove();
+         final int nextDistance = distance[cell] + 1;
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         visit(cell, walls, MazeModel.NORTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.SOUTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.WEST, nextDistance, speedy);
+         visit(cell, walls, MazeModel.EAST, nextDistance, speedy);
+      }
    }
 
    private void floodfill()
    {
       Dimension size = maze.getSize();
-      Vector<MazeCell> queue = new Vector<MazeCell>();
-      MazeCell cell;
-      int currentDistance;
       boolean speedy;
 
-      for (int i = 1; i <= size.width; i++)
-      {
-         for (int j = 1; j <= size.height; j++)
-         {
-            MazeCell here = MazeCell.valueOf(i, j);
-            setDistance(here, USELESS);
-            setDirection(here, 0);
-         }
-      }
+      Arrays.fill(distance, USELESS);
+      Arrays.fill(directions, 0);
+      queue.clear();
 
       if (goal == TO_START)
       {
-         cell = MazeCell.valueOf(1, size.height);
-         setDistance(cell, 0);
-         queue.add(cell);
+         setGoal(cells.indexOf(1, size.height));
          speedy = false;
       }
       else
       {
          int targetX = size.width / 2;
          int targetY = size.height / 2;
-         cell = MazeCell.valueOf(targetX, targetY);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX + 1, targetY);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX, targetY + 1);
-         setDistance(cell, 0);
-         queue.add(cell);
-         cell = MazeCell.valueOf(targetX + 1, targetY + 1);
-         setDistance(cell, 0);
-         queue.add(cell);
+         setGoal(cells.indexOf(targetX, targetY));
+         setGoal(cells.indexOf(targetX + 1, targetY));
+         setGoal(cells.indexOf(targetX, targetY + 1));
+         setGoal(cells.indexOf(targetX + 1, targetY + 1));
          if ( (speedRun == true) && (speedRunCapable == true))
          {
             speedy = true;
@@ -390,129 +351,52 @@ public class ModifiedFloodfill extends RobotBase
          }
       }
 
-      while (queue.isEmpty() == false)
-      {
-         cell = queue.get(0);
-         queue.remove(0);
-         currentDistance = getDistance(cell);
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.North).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.North)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.North) == true)))
-            {
-               queue.add(cell.plusY(-1));
-               setDistance(cell.plusY(-1), currentDistance + 1);
-               setDirection(cell.plusY(-1), Direction2.South.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.North)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.North) == true)))
-            {
-               setDirection(cell.plusY(-1), Direction2.South.getIndex() +
-                                            getDirection(cell.plusY(-1)));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.South).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.South)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.South))))
-            {
-               queue.add(cell.plusY(1));
-               setDistance(cell.plusY(1), currentDistance + 1);
-               setDirection(cell.plusY(1), Direction2.North.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.South)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.South) == true)))
-            {
-               setDirection(cell.plusY(1), Direction2.North.getIndex() +
-                                           getDirection(cell.plusY(1)));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.West).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.West)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.West))))
-            {
-               queue.add(cell.plusX(-1));
-               setDistance(cell.plusX(-1), currentDistance + 1);
-               setDirection(cell.plusX(-1), Direction2.East.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.West)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.West) == true)))
-            {
-               setDirection(cell.plusX(-1), Direction2.East.getIndex() +
-                                            getDirection(cell.plusX(-1)));
-            }
-
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.East).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.East)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.East))))
-            {
-               queue.add(cell.plusX(1));
-               setDistance(cell.plusX(1), currentDistance + 1);
-               setDirection(cell.plusX(1), Direction2.West.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.East)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.East) == true)))
-            {
-               setDirection(cell.plusX(1), Direction2.West.getIndex() + getDirection(cell.plusX(1)));
-            }
-         }
-      }
+      search(speedy);
 
-      MazeCell here = robotLocation.getCurrentLocation();
-      if (getDistance(here) == USELESS)
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
+      if (distance[here] == USELESS)
       {
-         System.out.println("Purging Knowledge");
          maze.clearMaze();
          speedRunCapable = false;
-         for (int i = 0; i < size.width; i++)
-         {
-            for (int j = 0; j < size.height; j++)
-            {
-               explored[i][j] = false;
-            }
-         }
-         explored[here.getX() - 1][here.getY() - 1] = true;
-         checkWalls();
-         floodfill();
+         Arrays.fill(explored, false);
+         explored[here] = true;
       }
    }
 
+   /**
+    * Gives a goal cell a distance of 0 and adds it to the search queue.
+    */
+   private void setGoal(int cell)
+   {
+      distance[cell] = 0;
+      queue.add(cell);
+   }
+
    /**
     * This function loads a value into the directions array based upon the cell
     * passed and the value in i
     */
-   private void setDirection(MazeCell here, int i)
+   private void setDirection(int here, int i)
    {
-      directions[here.getX() - 1][here.getX() - 1] = i;
+      directions[here] = i;
    }
 
    /**
     * This function loads a value into the directions array based upon the cell
     * passed and the value in i
     */
-   private int getDirection(MazeCell here)
+   private int getDirection(int here)
    {
-      return directions[here.getX() - 1][here.getX() - 1];
+      return directions[here];
    }
 
    /**
     * This function loads a value into the directions array based upon the cell
     * passed and the value in i
     */
-   private boolean isSameDirection(MazeCell here, Direction2 dir)
+   private boolean isSameDirection(int here, Direction2 dir)
    {
-      if (directions[here.getX() - 1][here.getX() - 1] == dir.getIndex())
+      if (directions[here] == dir.getIndex())
       {
          return true;
       }
@@ -526,9 +410,9 @@ public class ModifiedFloodfill extends RobotBase
     * This function loads a value into the directions array based upon the cell
     * passed and the value in i
     */
-   private boolean hasSameDirection(MazeCell here, Direction2 dir)
+   private boolean hasSameDirection(int here, Direction2 dir)
    {
-      return Direction2.containsDirection(directions[here.getX() - 1][here.getX() - 1], dir);
+      return Direction2.containsDirection(directions[here], dir);
    }
 
    /**
@@ -596,34 +480,35 @@ public class ModifiedFloodfill extends RobotBase
    private void checkWalls()
    {
       MazeCell cell = robotLocation.getCurrentLocation();
+      final int index = cells.indexOf(cell);
       Direction direction = robotLocation.getDirection();
       if (robotLocation.isWallFront())
       {
          maze.setWall(cell.getX(), cell.getY(), direction.getIndex());
-         if (hasSameDirection(cell, Direction2.getDirection(direction)))
+         if (hasSameDirection(index, Direction2.getDirection(direction)))
          {
-            setDirection(cell, getDirection(cell) ^ Direction2.getDirection(direction).getIndex());
+            setDirection(index, getDirection(index) ^ Direction2.getDirection(direction).getIndex());
          }
       }
       if (robotLocation.isWallLeft())
       {
          maze.setWall(cell.getX(), cell.getY(), direction.getLeft().getIndex());
-         setDirection(cell,
-                      getDirection(cell) &
+         setDirection(index,
+                      getDirection(index) &
                             (Direction2.Mask.getIndex() ^ Direction2.getDirection(direction.getLeft()).getIndex()));
       }
       if (robotLocation.isWallRight())
       {
          maze.setWall(cell.getX(), cell.getY(), direction.getRight().getIndex());
-         setDirection(cell,
-                      getDirection(cell) &
+         setDirection(index,
+                      getDirection(index) &
                             (Direction2.Mask.getIndex() ^ Direction2.getDirection(direction.getRight()).getIndex()));
       }
       if (robotLocation.isWallBack())
       {
          maze.setWall(cell.getX(), cell.getY(), direction.getOpposite().getIndex());
-         setDirection(cell,
-                      getDirection(cell) &
+         setDirection(index,
+                      getDirection(index) &
                             (Direction2.Mask.getIndex() ^ Direction2.getDirection(direction.getOpposite()).getIndex()));
       }
    }
@@ -640,11 +525,16 @@ public class ModifiedFloodfill extends RobotBase
    /**
     * Returns the instance of how the algorithm understands the maze. For
     * Floodfill this is an integer for each cell representing the expected
-    * distance from the center.
+    * distance from the center, or {@link RobotBase#UNREACHABLE}.
     */
    public int[][] getUnderstandingInt()
    {
-      return distance;
+      if (distance == null)
+         return null;
+      for (int i = 0; i < distance.length; i++)
+         understanding[i % cells.getWidth()][i / cells.getWidth()] = distance[i] >= USELESS ? UNREACHABLE
+                                                                                            : distance[i];
+      return understanding;
    }
 
    @Override
@@ -657,14 +547,13 @@ public class ModifiedFloodfill extends RobotBase
       distance = null; //insures that initialize() works right
    }
 
-   private void modifiedFloodfill()
+   /**
+    * Repairs the distances around the current location after a wall is found.
+    * Package visible so it can be benchmarked.
+    */
+   void modifiedFloodfill()
    {
-      //Dimension size = maze.getSize();
-      Vector<MazeCell> queue = new Vector<MazeCell>();
-      Vector<MazeCell> badQueue = new Vector<MazeCell>();
-      MazeCell cell;
-      MazeCell here = robotLocation.getCurrentLocation();
-      int currentDistance;
+      final int here = cells.indexOf(robotLocation.getCurrentLocation());
       boolean speedy;
 
       if ( (goal == TO_CENTER) && (speedRun == true) && (speedRunCapable == true))
@@ -677,78 +566,18 @@ public class ModifiedFloodfill extends RobotBase
       }
 
       //Load up a queue until you find good info
+      queue.clear();
+      badQueue.clear();
       badQueue.add(here);
-      while ( (badQueue.isEmpty() == false)/* && (queue.isEmpty() == true)*/)
+      while (badQueue.isEmpty() == false)
       {
-         cell = badQueue.get(0);
-         badQueue.remove(0);
-         this.setDistance(cell, USELESS);
-         currentDistance = USELESS;
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.North).isSet() == false)
-         { //Check to see if it should be added to queue
-            if (neighborIsPoisoned(cell, Direction.North))
-            {
-               //if( queue.isEmpty()){
-               badQueue.add(cell.plusY(-1));
-               //}
-               setDirection(cell.plusY(-1), Direction2.Directionless.getIndex());
-            }
-            else
-            {
-               queue.add(cell.plusY(-1));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.South).isSet() == false)
-         { //Check to see if it should be added to queue
-            if (neighborIsPoisoned(cell, Direction.South))
-            {
-               //if( queue.isEmpty()){
-               badQueue.add(cell.plusY(1));
-               //}
-               setDirection(cell.plusY(1), Direction2.Directionless.getIndex());
-            }
-            else
-            {
-               queue.add(cell.plusY(1));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.West).isSet() == false)
-         { //Check to see if it should be added to queue
-            if (neighborIsPoisoned(cell, Direction.West))
-            {
-               //if( queue.isEmpty()){
-               badQueue.add(cell.plusX(-1));
-               //}
-               setDirection(cell.plusX(-1), Direction2.Directionless.getIndex());
-            }
-            else
-            {
-               queue.add(cell.plusX(-1));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.East).isSet() == false)
-         { //Check to see if it should be added to queue
-            if (neighborIsPoisoned(cell, Direction.East))
-            {
-               //if( queue.isEmpty()){
-               badQueue.add(cell.plusX(1));
-               //}
-               setDirection(cell.plusX(1), Direction2.Directionless.getIndex());
-            }
-            else
-            {
-               queue.add(cell.plusX(1));
-            }
-         }
-         this.setDistance(cell, USELESS);
+         final int cell = badQueue.remove();
+         distance[cell] = USELESS;
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         poison(cell, walls, MazeModel.NORTH);
+         poison(cell, walls, MazeModel.SOUTH);
+         poison(cell, walls, MazeModel.WEST);
+         poison(cell, walls, MazeModel.EAST);
       }
 
       //Work back from the good knowledge to the current location
@@ -758,88 +587,42 @@ public class ModifiedFloodfill extends RobotBase
          {
             return;
          }
-         cell = queue.get(0);
-         queue.remove(0);
-         currentDistance = getDistance(cell);
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.North).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.North)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.North) == true)))
-            {
-               queue.add(cell.plusY(-1));
-               setDistance(cell.plusY(-1), currentDistance + 1);
-               setDirection(cell.plusY(-1), Direction2.South.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.North)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.North) == true)))
-            {
-               setDirection(cell.plusY(-1), Direction2.South.getIndex() +
-                                            getDirection(cell.plusY(-1)));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.South).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.South)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.South))))
-            {
-               queue.add(cell.plusY(1));
-               setDistance(cell.plusY(1), currentDistance + 1);
-               setDirection(cell.plusY(1), Direction2.North.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.South)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.South) == true)))
-            {
-               setDirection(cell.plusY(1), Direction2.North.getIndex() +
-                                           getDirection(cell.plusY(1)));
-            }
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.West).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.West)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.West))))
-            {
-               queue.add(cell.plusX(-1));
-               setDistance(cell.plusX(-1), currentDistance + 1);
-               setDirection(cell.plusX(-1), Direction2.East.getIndex());
-            }
-            else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.West)) &&
-                     ( (speedy == false) || (getNeighborExplored(cell, Direction.West) == true)))
-            {
-               setDirection(cell.plusX(-1), Direction2.East.getIndex() +
-                                            getDirection(cell.plusX(-1)));
-            }
-
-         }
-
-         //Check to see if accessible
-         if (maze.getWall(cell, Direction.East).isSet() == false)
-         { //Check to see if it should be added to queue
-            if ( ( (currentDistance + 1) < getNeighborDistance(cell, Direction.East)) &&
-                ( (speedy == false) || (getNeighborExplored(cell, Direction.East))))
-            {
-               queue.add(cell.plusX(1));
-               setDistance(cell.plusX(1), currentDistance + 1);
-               setDirection(cell.plusX(1), Direction2.West.getIndex());
-            }
-         }
-         else if ( ( (currentDistance + 1) == getNeighborDistance(cell, Direction.East)) &&
-                  ( (speedy == false) || (getNeighborExplored(cell, Direction.East) == true)))
-         {
-            setDirection(cell.plusY(-1), Direction2.West.getIndex() + getDirection(cell.plusX(1)));
-         }
+         final int cell = queue.remove();
+         final int nextDistance = distance[cell] + 1;
+         final int walls = maze.getWallMask(cells.getX(cell), cells.getY(cell));
+         visit(cell, walls, MazeModel.NORTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.SOUTH, nextDistance, speedy);
+         visit(cell, walls, MazeModel.WEST, nextDistance, speedy);
+         visit(cell, walls, MazeModel.EAST, nextDistance, speedy);
       }
 
-      System.out.println("Failed Modified");
+      // The partial search did not reach the robot, search the whole maze.
       floodfill();
    }
 
-   private boolean neighborIsPoisoned(MazeCell cell, Direction dir)
+   /**
+    * Sorts the open neighbor of a cell into the queue of cells whose distance
+    * was based on the cell and must be found again, or the queue of cells with
+    * good information to search from.
+    */
+   private void poison(int cell, int walls, int dir)
+   {
+      //Check to see if accessible
+      if ( (walls & (1 << dir)) != 0)
+         return;
+      final int neighbor = cells.neighbor(cell, dir);
+      if (neighborIsPoisoned(cell, dir))
+      {
+         badQueue.add(neighbor);
+         setDirection(neighbor, Direction2.Directionless.getIndex());
+      }
+      else
+      {
+         queue.add(neighbor);
+      }
+   }
+
+   private boolean neighborIsPoisoned(int cell, int dir)
    {
       //This function determines if a cell is tainted by bad information
       //This can be tested by finding if the cell has a neighbor that is
@@ -850,66 +633,20 @@ public class ModifiedFloodfill extends RobotBase
          return false;
       }
 
-      MazeCell here;
-      Direction whereFrom = dir.getOpposite();
-
-      if (dir.equals(Direction.North))
-      {
-         here = cell.plusY(-1);
-      }
-      else if (dir.equals(Direction.South))
+      final int here = cells.neighbor(cell, dir);
+      if (here == CellIndexTable.NONE)
       {
-         here = cell.plusY(1);
-      }
-      else if (dir.equals(Direction.East))
-      {
-         here = cell.plusX(1);
-      }
-      else if (dir.equals(Direction.West))
-      {
-         here = cell.plusX(-1);
-      }
-      else
-      {
-         //If directionless was passed then we just act like it's not poisoned
          return false;
       }
+      final Direction2 whereFrom = DIRECTIONS[(dir + 2) % 4];
 
-      /*
-      if(!whereFrom.equals(Direction.North))
-      {
-         if(getDistance(here)> getNeighborDistance(here,Direction.North)){
-      	   return false;
-         }
-      }
-      if(!whereFrom.equals(Direction.South))
-      {
-         if(getDistance(here)> getNeighborDistance(here,Direction.South)){
-      	   return false;
-         }
-      }
-      if(!whereFrom.equals(Direction.West))
-      {
-         if(getDistance(here)> getNeighborDistance(here,Direction.West)){
-      	   return false;
-         }
-      }
-      if(!whereFrom.equals(Direction.East))
-      {
-         if(getDistance(here)> getNeighborDistance(here,Direction.East)){
-      	   return false;
-         }
-      }
-      */
-
-      if ( (hasSameDirection(here, Direction2.getDirection(whereFrom)) == true) &&
-          isSameDirection(here, Direction2.getDirection(whereFrom)) == false)
+      if ( (hasSameDirection(here, whereFrom) == true) && isSameDirection(here, whereFrom) == false)
       {
-         setDirection(here, getDirection(here) ^ Direction2.getDirection(whereFrom).getIndex());
+         setDirection(here, getDirection(here) ^ whereFrom.getIndex());
          return false;
       }
 
-      return isSameDirection(here, Direction2.getDirection(whereFrom));
+      return isSameDirection(here, whereFrom);
    }
 
    public static enum Direction2
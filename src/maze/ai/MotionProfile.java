@@ -0,0 +1,224 @@
+package maze.ai;
+
+import java.util.List;
+
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+
+/**
+ * Describes how fast a robot moves so the time of a run can be estimated. The
+ * robot accelerates and brakes at a constant rate up to a top speed on
+ * straights, takes turns at a lower fixed speed and spends a fixed time in
+ * each turn. A run starts standing still and ends stopped in the goal. The
+ * estimates ignore the shape of the corners and only compare paths with each
+ * other, they are not meant to match a real robot to the millisecond.
+ * Instances are immutable.
+ * @see SpeedRunPlanner
+ */
+public final class MotionProfile
+{
+   /**
+    * A robot in a classic 18 cm maze that reaches 2.5 m/s, accelerates at 5
+    * m/s^2, turns at 0.5 m/s taking a quarter of a second for each 90 degree
+    * turn and runs diagonals.
+    */
+   public static final MotionProfile DEFAULT = new MotionProfile(0.18, 2.5, 5, 0.5, 0.25, true);
+
+   private final double cellMeters;
+   private final double maxSpeed;
+   private final double acceleration;
+   private final double turnSpeed;
+   private final double turnSeconds;
+   private final boolean diagonals;
+
+   /**
+    * Create a profile.
+    * @param cellMeters The width of a cell in meters.
+    * @param maxSpeed The top speed in meters per second.
+    * @param acceleration The acceleration and braking in meters per second
+    *           squared.
+    * @param turnSpeed The speed through turns in meters per second, no more
+    *           than the top speed.
+    * @param turnSeconds The time a 90 degree turn takes, a 45 degree turn
+    *           takes half of it.
+    * @param diagonals True if the robot can cut through zig-zags on a
+    *           diagonal.
+    */
+   public MotionProfile(double cellMeters,
+                        double maxSpeed,
+                        double acceleration,
+                        double turnSpeed,
+                        double turnSeconds,
+                        boolean diagonals)
+   {
+      if ( (cellMeters > 0 && maxSpeed > 0 && acceleration > 0) == false)
+         throw new IllegalArgumentException("The cell size, top speed and acceleration must be positive.");
+      if ( (turnSpeed > 0 && turnSpeed <= maxSpeed) == false)
+         throw new IllegalArgumentException("The turn speed must be positive and no more than the top speed.");
+      if ( (turnSeconds >= 0) == false)
+         throw new IllegalArgumentException("The turn time can not be negative.");
+      this.cellMeters = cellMeters;
+      this.maxSpeed = maxSpeed;
+      this.acceleration = acceleration;
+      this.turnSpeed = turnSpeed;
+      this.turnSeconds = turnSeconds;
+      this.diagonals = diagonals;
+   }
+
+   public double getCellMeters()
+   {
+      return cellMeters;
+   }
+
+   public double getMaxSpeed()
+   {
+      return maxSpeed;
+   }
+
+   public double getAcceleration()
+   {
+      return acceleration;
+   }
+
+   public double getTurnSpeed()
+   {
+      return turnSpeed;
+   }
+
+   /**
+    * Get the time of a 90 degree turn.
+    */
+   public double getTurnSeconds()
+   {
+      return turnSeconds;
+   }
+
+   public boolean isDiagonals()
+   {
+      return diagonals;
+   }
+
+   /**
+    * Creates a copy with a different top speed.
+    */
+   public MotionProfile withMaxSpeed(double speed)
+   {
+      return new MotionProfile(cellMeters, speed, acceleration, Math.min(turnSpeed, speed), turnSeconds, diagonals);
+   }
+
+   /**
+    * Creates a copy with a different acceleration.
+    */
+   public MotionProfile withAcceleration(double acceleration)
+   {
+      return new MotionProfile(cellMeters, maxSpeed, acceleration, turnSpeed, turnSeconds, diagonals);
+   }
+
+   /**
+    * Creates a copy with a different time for a 90 degree turn.
+    */
+   public MotionProfile withTurnSeconds(double seconds)
+   {
+      return new MotionProfile(cellMeters, maxSpeed, acceleration, turnSpeed, seconds, diagonals);
+   }
+
+   /**
+    * Creates a copy that does or does not run diagonals.
+    */
+   public MotionProfile withDiagonals(boolean diagonals)
+   {
+      return new MotionProfile(cellMeters, maxSpeed, acceleration, turnSpeed, turnSeconds, diagonals);
+   }
+
+   /**
+    * Get the time to drive a straight line as fast as possible.
+    * @param meters The length of the line.
+    * @param startSpeed The speed at the start of the line.
+    * @param endSpeed The speed to brake to by the end of the line. If the line
+    *           is too short to brake the robot ends up faster, if it is too
+    *           short to speed up the robot ends up slower.
+    * @return Seconds.
+    */
+   public double getStraightSeconds(double meters, double startSpeed, double endSpeed)
+   {
+      // The highest speed that still leaves room to brake to the end speed.
+      final double peak = Math.sqrt(acceleration * meters + (startSpeed * startSpeed + endSpeed * endSpeed) / 2);
+      if (peak < startSpeed)
+         return (startSpeed - Math.sqrt(Math.max(0, startSpeed * startSpeed - 2 * acceleration * meters))) /
+                acceleration;
+      if (peak < endSpeed)
+         return (Math.sqrt(startSpeed * startSpeed + 2 * acceleration * meters) - startSpeed) / acceleration;
+      if (peak <= maxSpeed)
+         return (2 * peak - startSpeed - endSpeed) / acceleration;
+      final double rampMeters = (2 * maxSpeed * maxSpeed - startSpeed * startSpeed - endSpeed * endSpeed) /
+                                (2 * acceleration);
+      return (2 * maxSpeed - startSpeed - endSpeed) / acceleration + (meters - rampMeters) / maxSpeed;
+   }
+
+   /**
+    * Get the time of a turn.
+    * @param eighths The size of the turn in steps of 45 degrees.
+    * @return Seconds.
+    */
+   public double getTurnSeconds(int eighths)
+   {
+      return Math.abs(eighths) * turnSeconds / 2;
+   }
+
+   /**
+    * Estimates the time to drive along a path of neighboring cells without
+    * cutting any corners. The robot starts facing north.
+    * @param path The cells from the start to the goal.
+    * @return Seconds, 0 for a path of less than two cells.
+    */
+   public double getRunSeconds(List<MazeCell> path)
+   {
+      double seconds = 0;
+      double speed = 0;
+      int heading = MazeModel.NORTH;
+      int straight = 0;
+      MazeCell previous = null;
+      for (MazeCell cell : path)
+      {
+         if (previous != null && cell.equals(previous) == false)
+         {
+            final int direction = directionOf(previous, cell);
+            if (direction != heading)
+            {
+               if (straight > 0)
+               {
+                  seconds += getStraightSeconds(straight * cellMeters, speed, turnSpeed);
+                  speed = turnSpeed;
+               }
+               seconds += getTurnSeconds( (direction - heading + 4) % 4 == 2 ? 4 : 2);
+               heading = direction;
+               straight = 0;
+            }
+            straight++;
+         }
+         previous = cell;
+      }
+      if (straight > 0)
+         seconds += getStraightSeconds(straight * cellMeters, speed, 0);
+      return seconds;
+   }
+
+   /**
+    * Get the direction index from a cell to the next one in a path.
+    */
+   private static int directionOf(MazeCell from, MazeCell to)
+   {
+      if (to.getY() < from.getY())
+         return MazeModel.NORTH;
+      if (to.getY() > from.getY())
+         return MazeModel.SOUTH;
+      return to.getX() > from.getX() ? MazeModel.EAST : MazeModel.WEST;
+   }
+
+   @Override
+   public String toString()
+   {
+      return maxSpeed + " m/s, " + acceleration + " m/s^2, " + turnSeconds + " s per turn" +
+             (diagonals ? ", diagonals" : "");
+   }
+}
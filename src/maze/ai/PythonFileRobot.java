@@ -0,0 +1,177 @@
+package maze.ai;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A robot AI algorithm written in Python and loaded from a file, without the
+ * script editor. Scripts see the robot model as <code>maze</code> and the steps
+ * as <code>Forward</code>, <code>Back</code>, <code>Left</code> and
+ * <code>Right</code>, the same as in the editor. Copies made by
+ * {@link #newInstance()} share the compiled script, so the same script can run
+ * in many simulations at once.
+ */
+public final class PythonFileRobot extends RobotBase
+{
+   /**
+    * The scripts that come with the program in <code>maze/ai/python/</code>.
+    */
+   public static final String[] BUNDLED_SCRIPTS =
+   {
+      "GoStraight.py", "LeftWallFollower.py"
+   };
+
+   private final PythonScript script;
+   private PythonScript.Session session;
+
+   /**
+    * Create a robot from source code.
+    * @param name The name of the script.
+    * @param source The Python source code.
+    * @throws org.python.core.PyException If the script has a syntax error.
+    */
+   public PythonFileRobot(String name, String source)
+   {
+      this(new PythonScript(source, name));
+   }
+
+   private PythonFileRobot(PythonScript script)
+   {
+      this.script = script;
+   }
+
+   /**
+    * Get the compiled script shared by every instance made for a run.
+    */
+   PythonScript getScript()
+   {
+      return this.script;
+   }
+
+   /**
+    * Load a script file.
+    * @param file The .py file.
+    * @return A new robot.
+    * @throws IOException If the file can not be read or has a syntax error.
+    */
+   public static PythonFileRobot load(File file) throws IOException
+   {
+      return compile(file.getName(), new FileInputStream(file));
+   }
+
+   /**
+    * Load one of the {@link #BUNDLED_SCRIPTS}.
+    * @param name The file name of the script.
+    * @return A new robot.
+    * @throws IOException If there is no such script.
+    */
+   public static PythonFileRobot loadBundled(String name) throws IOException
+   {
+      final InputStream in = PythonFileRobot.class.getResourceAsStream("python/" + name);
+      if (in == null)
+         throw new IOException("No bundled script " + name);
+      return compile(name, in);
+   }
+
+   private static PythonFileRobot compile(String name, InputStream in) throws IOException
+   {
+      final StringBuilder source = new StringBuilder();
+      final Reader r = new InputStreamReader(in, "UTF-8");
+      try
+      {
+         final char[] buffer = new char[4096];
+         int read;
+         while ( (read = r.read(buffer)) > 0)
+            source.append(buffer, 0, read);
+      }
+      finally
+      {
+         r.close();
+      }
+      try
+      {
+         return new PythonFileRobot(name, source.toString());
+      }
+      catch (RuntimeException e)
+      {
+         throw new IOException("Error in the Python script " + name + ": " + e, e);
+      }
+   }
+
+   /**
+    * Creates a robot that runs the same compiled script.
+    */
+   @Override
+   protected RobotBase createInstance()
+   {
+      return new PythonFileRobot(this.script);
+   }
+
+   @Override
+   public String toString()
+   {
+      return this.script.toString();
+   }
+
+   /**
+    * A file with the same name may hold a different script the next time.
+    */
+   @Override
+   public boolean isRepeatable()
+   {
+      return false;
+   }
+
+   @Override
+   public void initialize()
+   {
+      super.initialize();
+      if (this.session != null)
+      {
+         this.session.close();
+         this.session = null;
+      }
+      this.session = this.script.open(super.robotLocation);
+   }
+
+   /**
+    * Returns the interpreter of the run to the pool of the script.
+    */
+   @Override
+   public void finish()
+   {
+      if (this.session != null)
+         this.session.close();
+   }
+
+   @Override
+   public RobotStep nextStep()
+   {
+      if (this.session == null)
+         throw new IllegalStateException("The robot was not initialized.");
+      return this.session.nextStep(this.getRunContext().getBudget());
+   }
+
+   @Override
+   public long getWorkerCpuNanos()
+   {
+      return this.session == null ? 0 : this.session.getCpuNanos();
+   }
+
+   /**
+    * Get the times taken by the steps of the script.
+    */
+   @Override
+   public Map<String, Number> getCounters()
+   {
+      if (this.session == null)
+         return Collections.emptyMap();
+      return this.session.getCounters();
+   }
+}
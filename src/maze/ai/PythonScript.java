@@ -0,0 +1,316 @@
+package maze.ai;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import maze.model.RobotModel;
+
+import org.python.core.Py;
+import org.python.core.PyCode;
+import org.python.core.PyObject;
+import org.python.util.PythonInterpreter;
+
+/**
+ * A Python robot AI script compiled once so it can be run many times. Each run
+ * opens a {@link Session} with its own interpreter. Interpreters are kept in a
+ * pool when a session is closed, so the imports and step names are only set
+ * up once per interpreter and a new run only runs the compiled module code
+ * again. The script must define a <code>nextStep()</code> function that
+ * returns one of the steps <code>Forward</code>, <code>Back</code>,
+ * <code>Left</code> or <code>Right</code>.<br />
+ * Steps run on the {@link ScriptExecutor} with a deadline, so a script that
+ * loops forever is cancelled instead of hanging the simulation. The processor
+ * time and the time taken by each step are measured.
+ */
+public final class PythonScript
+{
+   /**
+    * The name of the variable that holds the robot model in a script.
+    */
+   public static final String ROBOT_MODEL_VAR_NAME = "maze";
+   /**
+    * The time a step may take when the budget of the run does not limit it.
+    */
+   public static final long DEFAULT_STEP_MILLIS = 10000;
+   /**
+    * The most step times a session keeps for the percentiles.
+    */
+   private static final int LATENCY_SAMPLES = 1024;
+   private static final String NEXT_STEP_FUNCTION = "nextStep";
+   private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+   /**
+    * A run of the script with its own interpreter.
+    */
+   public final class Session
+   {
+      private final PythonInterpreter interpreter;
+      private final PyObject function;
+      private final ScriptExecutor executor = ScriptExecutor.getInstance();
+      private volatile long cpuNanos;
+      /**
+       * The times of a random sample of the steps in nanoseconds, so a long
+       * run does not keep the time of every step.
+       */
+      private final long[] latencies = new long[LATENCY_SAMPLES];
+      private final Random sampler = new Random();
+      private int steps;
+      private long maxLatency;
+      /**
+       * The time the last step ran on its worker.
+       */
+      private volatile long stepNanos;
+      /**
+       * Set when a step was cancelled, the interpreter may still be running it.
+       */
+      private boolean cancelled;
+      private boolean closed;
+      private final Callable<RobotStep> stepTask = new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            return callFunction();
+         }
+      };
+
+      private Session(PythonInterpreter interpreter, PyObject function)
+      {
+         this.interpreter = interpreter;
+         this.function = function;
+      }
+
+      /**
+       * Calls the <code>nextStep()</code> function of the script on a worker
+       * thread.
+       * @param budget The limits of the run, the step deadline is
+       *           {@link #DEFAULT_STEP_MILLIS} if it has none.
+       * @return The step it returned.
+       * @throws StepTimeoutException If the step took too long. The session
+       *            can not be used after that.
+       * @throws IllegalArgumentException If the function did not return a
+       *            step.
+       */
+      public RobotStep nextStep(RunBudget budget)
+      {
+         if (this.cancelled)
+            throw new IllegalStateException("A step of the script " + name + " was cancelled.");
+         if (this.closed)
+            throw new IllegalStateException("The session of the script " + name + " is closed.");
+         final long deadline = budget.getMaxStepMillis() != RunBudget.UNLIMITED ? budget.getMaxStepMillis()
+                                                                                 : DEFAULT_STEP_MILLIS;
+         final RobotStep step;
+         try
+         {
+            step = this.executor.call(this.stepTask, deadline);
+         }
+         catch (StepTimeoutException e)
+         {
+            this.cancelled = true;
+            throw e;
+         }
+         this.addLatency(this.stepNanos);
+         return step;
+      }
+
+      /**
+       * Adds the time of a step to the sample. Every step has the same chance
+       * of being in it.
+       */
+      private void addLatency(long nanos)
+      {
+         this.maxLatency = Math.max(this.maxLatency, nanos);
+         if (this.steps < this.latencies.length)
+            this.latencies[this.steps] = nanos;
+         else
+         {
+            final int slot = this.sampler.nextInt(this.steps + 1);
+            if (slot < this.latencies.length)
+               this.latencies[slot] = nanos;
+         }
+         this.steps++;
+      }
+
+      /**
+       * Runs one step on the worker thread.
+       */
+      private RobotStep callFunction()
+      {
+         final boolean measureCpu = THREADS.isCurrentThreadCpuTimeSupported();
+         final long cpuStart = measureCpu ? THREADS.getCurrentThreadCpuTime() : 0;
+         final long start = System.nanoTime();
+         try
+         {
+            final PyObject result = this.function.__call__();
+            final Object step = result.__tojava__(RobotStep.class);
+            if (step instanceof RobotStep)
+               return (RobotStep) step;
+            // Older scripts may return the name of the step.
+            return RobotStep.valueOf(result.toString());
+         }
+         finally
+         {
+            this.stepNanos = System.nanoTime() - start;
+            if (measureCpu)
+               this.cpuNanos += THREADS.getCurrentThreadCpuTime() - cpuStart;
+         }
+      }
+
+      /**
+       * Get the processor time the script has used in this session.
+       * @return Time in nanoseconds.
+       */
+      public long getCpuNanos()
+      {
+         return this.cpuNanos;
+      }
+
+      /**
+       * Get statistics about the time each step took on its worker, the same
+       * time the step deadline limits. Time spent waiting for a free worker is
+       * not included. Times are in microseconds. The percentiles of a run of
+       * more than {@value PythonScript#LATENCY_SAMPLES} steps are estimated
+       * from a sample of them.
+       * @return The counters by name, empty if no steps have been taken.
+       */
+      public Map<String, Number> getCounters()
+      {
+         if (this.steps == 0)
+            return Collections.emptyMap();
+         final long[] sorted = Arrays.copyOf(this.latencies, Math.min(this.steps, this.latencies.length));
+         Arrays.sort(sorted);
+         final Map<String, Number> counters = new LinkedHashMap<String, Number>();
+         counters.put("step p50 us", percentile(sorted, 50));
+         counters.put("step p90 us", percentile(sorted, 90));
+         counters.put("step p99 us", percentile(sorted, 99));
+         counters.put("step max us", this.maxLatency / 1000.0);
+         counters.put("script cpu ms", this.cpuNanos / 1e6);
+         if (this.executor.getHungCount() > 0)
+            counters.put("hung script workers", this.executor.getHungCount());
+         return counters;
+      }
+
+      /**
+       * Returns the interpreter to the pool. The session can not be used
+       * after it is closed, but its counters can still be read. The
+       * interpreter of a cancelled step is dropped since the step may still be
+       * running. Closing a session again does nothing.
+       */
+      public void close()
+      {
+         if (this.closed)
+            return;
+         this.closed = true;
+         if (!this.cancelled)
+            release(this.interpreter);
+      }
+   }
+
+   /**
+    * Gets a percentile by the nearest rank method.
+    * @param sorted The values in ascending order, in nanoseconds.
+    * @param percent The percentile from 1 to 100.
+    * @return The value in microseconds.
+    */
+   private static double percentile(long[] sorted, int percent)
+   {
+      final int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+      return sorted[Math.max(rank, 1) - 1] / 1000.0;
+   }
+
+   private final String name;
+   private final PyCode code;
+   private final ArrayDeque<PythonInterpreter> idle = new ArrayDeque<PythonInterpreter>();
+
+   /**
+    * Compile a script.
+    * @param source The Python source code.
+    * @param name The name of the script, used in error messages.
+    * @throws org.python.core.PyException If the script has a syntax error.
+    */
+   public PythonScript(String source, String name)
+   {
+      this.name = name;
+      final PythonInterpreter interp = createInterpreter();
+      this.code = interp.compile(source, name);
+      this.idle.push(interp);
+   }
+
+   /**
+    * Creates a new Python interpreter with the imports and step names scripts
+    * use.
+    * @return A new interpreter.
+    */
+   public static PythonInterpreter createInterpreter()
+   {
+      final PythonInterpreter interp = new PythonInterpreter();
+      interp.exec("from maze.ai import RobotStep");
+      interp.exec("from maze.model import Direction, MazeCell");
+      interp.set("Forward", RobotStep.MoveForward);
+      interp.set("Back", RobotStep.MoveBackward);
+      interp.set("Left", RobotStep.RotateLeft);
+      interp.set("Right", RobotStep.RotateRight);
+      return interp;
+   }
+
+   /**
+    * Starts a run of the script. The module code of the script is run again
+    * so its variables start over.
+    * @param model The robot model the script reads as <code>maze</code>.
+    * @return A new session that must be closed when the run is over.
+    * @throws org.python.core.PyException If the module code fails.
+    * @throws IllegalStateException If there is no <code>nextStep()</code>
+    *            function.
+    */
+   public Session open(RobotModel model)
+   {
+      final PythonInterpreter interp = acquire();
+      try
+      {
+         interp.set(ROBOT_MODEL_VAR_NAME, model);
+         interp.exec(this.code);
+         final PyObject function = interp.get(NEXT_STEP_FUNCTION);
+         if (function == null || function == Py.None || !function.isCallable())
+            throw new IllegalStateException("The script " + this.name + " has no " +
+                                            NEXT_STEP_FUNCTION + "() function.");
+         return new Session(interp, function);
+      }
+      catch (RuntimeException e)
+      {
+         release(interp);
+         throw e;
+      }
+   }
+
+   private synchronized PythonInterpreter acquire()
+   {
+      final PythonInterpreter interp = this.idle.poll();
+      return interp != null ? interp : createInterpreter();
+   }
+
+   private synchronized void release(PythonInterpreter interp)
+   {
+      this.idle.push(interp);
+   }
+
+   /**
+    * Get the number of interpreters waiting in the pool for a session.
+    */
+   synchronized int getIdleCount()
+   {
+      return this.idle.size();
+   }
+
+   @Override
+   public String toString()
+   {
+      return this.name;
+   }
+}
@@ -1,34 +1,112 @@
 package maze.ai;
 
+import java.util.Collections;
+import java.util.Map;
+
 import maze.gui.ScriptEditor;
 
 public final class PythonScriptRobot extends RobotBase
 {
    private final ScriptEditor codeEditor;
+   private PythonScript.Session session;
 
    public PythonScriptRobot(ScriptEditor codeEditor)
    {
       this.codeEditor = codeEditor;
    }
 
+   /**
+    * Creates a robot that runs the same editor's script.
+    */
+   @Override
+   protected RobotBase createInstance()
+   {
+      return new PythonScriptRobot(this.codeEditor);
+   }
+
    @Override
    public String toString()
    {
       return this.codeEditor.toString();
    }
 
+   /**
+    * The script can be edited between runs.
+    */
+   @Override
+   public boolean isRepeatable()
+   {
+      return false;
+   }
+
    @Override
    public void initialize()
    {
       super.initialize();
-      this.codeEditor.evalScript(true);
-      this.codeEditor.setRobotModel(super.robotLocation);
+      if (this.session != null)
+      {
+         this.session.close();
+         this.session = null;
+      }
+      final PythonScript script = this.codeEditor.getCompiledScript(true);
+      if (script != null)
+      {
+         try
+         {
+            this.session = script.open(super.robotLocation);
+         }
+         catch (Exception e)
+         {
+            e.printStackTrace();
+         }
+      }
+   }
+
+   /**
+    * Returns the interpreter of the run to the pool of the script.
+    */
+   @Override
+   public void finish()
+   {
+      if (this.session != null)
+         this.session.close();
    }
 
    @Override
    public RobotStep nextStep()
    {
-      return this.codeEditor.getNextStep();
+      if (this.session == null)
+         throw new IllegalStateException("There is an error in the Python AI script.");
+      try
+      {
+         return this.session.nextStep(this.getRunContext().getBudget());
+      }
+      catch (StepTimeoutException ex)
+      {
+         throw ex;
+      }
+      catch (Exception ex)
+      {
+         ex.printStackTrace();
+         return RobotStep.MoveForward;
+      }
+   }
+
+   @Override
+   public long getWorkerCpuNanos()
+   {
+      return this.session == null ? 0 : this.session.getCpuNanos();
+   }
+
+   /**
+    * Get the times taken by the steps of the script.
+    */
+   @Override
+   public Map<String, Number> getCounters()
+   {
+      if (this.session == null)
+         return Collections.emptyMap();
+      return this.session.getCounters();
    }
 
-}
\ No newline at end of file
+}
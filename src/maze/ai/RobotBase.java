@@ -1,5 +1,8 @@
 package maze.ai;
 
+import java.util.Collections;
+import java.util.Map;
+
 import javax.swing.DefaultComboBoxModel;
 import javax.swing.MutableComboBoxModel;
 
@@ -7,29 +10,44 @@ import maze.model.RobotModel;
 import maze.model.Direction;
 
 /**
- * This is the interface for the robot AI that is used by the GUI.
+ * This is the interface for the robot AI that is used by the GUI. An instance
+ * keeps the state of one run and is only used by one thread at a time. Every
+ * run, and every thread, gets its own instance from {@link #newInstance()} so
+ * the same algorithm can run many simulations at once.
  */
 public abstract class RobotBase
 {
    protected RobotModel robotLocation;
    protected boolean speedRun = false;
+   private RunContext runContext;
 
    private static MutableComboBoxModel robotListModel;
 
+   /**
+    * Creates new instances of all the built in AI algorithms. This does not
+    * use any GUI classes so it can be used for headless simulations.
+    * @return A new array of robot AI instances.
+    */
+   public static RobotBase[] createDefaultRobots()
+   {
+      return new RobotBase[]
+      {
+         new LeftWallFollower(), new RightWallFollower(), new Tremaux(), new Floodfill(),
+         new IncrementalFloodfill(), new AStar(), new BidirectionalAStar()//, new ModifiedFloodfill()
+      };
+   }
+
    /**
     * Gets a singleton instance of a robot list model. This contains a global
     * list of all the AI algorithms available to the system.
+    * @see SolverRegistry
     */
    public static MutableComboBoxModel getRobotListModel()
    {
       // Initialize if necessary.
       if (robotListModel == null)
       {
-         robotListModel = new DefaultComboBoxModel(new RobotBase[]
-         {
-            new LeftWallFollower(), new RightWallFollower(), new Tremaux(),
-            new Floodfill()//, new ModifiedFloodfill()
-         });
+         robotListModel = new DefaultComboBoxModel(SolverRegistry.getInstance().createAll());
       }
       return robotListModel;
    }
@@ -42,6 +60,69 @@ public abstract class RobotBase
       this.robotLocation = model;
    }
 
+   /**
+    * Sets the robot and limits of a run. This is set by the controller before
+    * the robot is initialized and calls {@link #setRobotLocation(RobotModel)}.
+    */
+   public void setRunContext(RunContext context)
+   {
+      this.runContext = context;
+      this.setRobotLocation(context.getRobot());
+   }
+
+   /**
+    * Get the robot and limits of the current run.
+    * @return The context or null if no run has been set up.
+    */
+   public RunContext getRunContext()
+   {
+      return this.runContext;
+   }
+
+   /**
+    * Get the processor time the algorithm has used in this run on threads
+    * other than the one asking for its steps, which the controller can not
+    * measure.
+    * @return Time in nanoseconds, 0 by default.
+    */
+   public long getWorkerCpuNanos()
+   {
+      return 0;
+   }
+
+   /**
+    * Creates a new instance of the algorithm for another run, set up for a
+    * speed run if this one is.
+    * @return A new instance that does not share any state with this one.
+    * @throws IllegalStateException If the instance can not be created.
+    * @see #createInstance()
+    */
+   public final RobotBase newInstance()
+   {
+      final RobotBase instance = this.createInstance();
+      instance.setSpeedRun(this.speedRun);
+      return instance;
+   }
+
+   /**
+    * Creates the new instance for {@link #newInstance()}. By default the
+    * class is created with its constructor that takes no arguments.
+    * @return A new instance that does not share any state with this one.
+    * @throws IllegalStateException If the instance can not be created.
+    */
+   protected RobotBase createInstance()
+   {
+      try
+      {
+         return this.getClass().getDeclaredConstructor().newInstance();
+      }
+      catch (Exception e)
+      {
+         throw new IllegalStateException("Cannot create a new instance of " +
+                                         this.getClass().getName(), e);
+      }
+   }
+
    /**
     * Called to before any steps are requested of the robot. This can be
     * overridden to do any initialization of the AI.
@@ -60,6 +141,27 @@ public abstract class RobotBase
     */
    public abstract RobotStep nextStep();
 
+   /**
+    * Called once the run is over, whether the robot finished, crashed or was
+    * stopped. This can be overridden to give back anything the AI holds for
+    * the run. The counters of the run can still be read afterwards.
+    */
+   public void finish()
+   {
+   }
+
+   /**
+    * This is called by the controller to get the next move, which can be a
+    * run of several cells forward. Algorithms that know the cells ahead can
+    * override this to move down a corridor in one call, the run should end
+    * in the first cell that needs a decision, like a cell that has not been
+    * explored or a goal cell. The default is a single {@link #nextStep()}.
+    */
+   public RobotMove nextMove()
+   {
+      return RobotMove.valueOf(nextStep());
+   }
+
    /**
     * When the robot is in TURBO mode the controller/GUI has the option of
     * speeding up the animation.
@@ -73,14 +175,46 @@ public abstract class RobotBase
    {
       speedRun = choice;
    }
+
+   public boolean isSpeedRun()
+   {
+      return speedRun;
+   }
+
+   /**
+    * Tells if the algorithm always takes the same steps through the same maze,
+    * so the results of simulating it can be reused.
+    * @return true by default.
+    */
+   public boolean isRepeatable()
+   {
+      return true;
+   }
    
    public Direction[][] getUnderstandingDir(){
 	   //This returns the cell view taken by the algorithm if it is Direction-based
 	   return null;
    }
    
+   /**
+    * The value {@link #getUnderstandingInt()} gives a cell that can not reach
+    * the goal as far as the algorithm knows.
+    */
+   public static final int UNREACHABLE = -1;
+
    public int[][] getUnderstandingInt(){
 	   //This returns the cell view taken by the algorithm if it is int-based
 	   return null;
    }
+
+   /**
+    * Get statistics the algorithm keeps about its own work during a run, like
+    * the number of cells it has searched. These are shown with the simulation
+    * results so different algorithms can be compared.
+    * @return Counter values by name in display order, empty by default.
+    */
+   public Map<String, Number> getCounters()
+   {
+      return Collections.emptyMap();
+   }
 }
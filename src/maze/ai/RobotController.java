@@ -1,20 +1,27 @@
 package maze.ai;
 
-import javax.swing.JOptionPane;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 
 import maze.model.Direction;
 import maze.model.MazeCell;
 import maze.model.MazeModel;
 import maze.model.RobotModel;
 import maze.model.RobotModelMaster;
+import maze.model.RobotModelMaster.RobotCrashedException;
+import maze.model.RobotPathModel;
 
 /**
- * Controls the AI and models to move the robot through the maze.
+ * Controls the AI and models to move the robot through the maze. This class
+ * has no GUI dependencies so it can be used for headless simulations. A crash
+ * into a wall is recorded and can be retrieved with
+ * {@link #getCrashException()}, it is up to the caller to report it. A run ends
+ * when the robot crashes or uses up its {@link RunBudget}.
  * @author Luke Last
  */
 public final class RobotController
 {
-   private static final int MAX_STEP_COUNT = 2000;
+   private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
    private final MazeModel mazeModel;
    private final RobotModelMaster robotModelMaster;
    private final RobotModel robotModelClient;
@@ -23,6 +30,10 @@ public final class RobotController
     * A flag that is set true if the robot crashes into a wall.
     */
    private boolean robotCrashed = false;
+   /**
+    * The reason the robot crashed or null if it has not crashed.
+    */
+   private RobotCrashedException crashException;
    /**
     * Stores the total number of moves taken from one cell to the next not
     * counting turns.
@@ -32,6 +43,23 @@ public final class RobotController
     * Stores the total number of turns taken.
     */
    private int robotTurnCount = 0;
+   /**
+    * Records the steps taken, null if they are not being recorded.
+    */
+   private StepTrace trace;
+   private final RunBudget budget;
+   /**
+    * When the run started, from <code>System.nanoTime()</code>.
+    */
+   private long startNanos;
+   /**
+    * Processor time used by the AI algorithm so far.
+    */
+   private long cpuNanos;
+   /**
+    * Describes the time limit that ended the run, null if none has.
+    */
+   private String budgetExceeded;
 
    /**
     * Constructor.
@@ -40,6 +68,22 @@ public final class RobotController
     */
    public RobotController(MazeModel model, RobotBase robotAI)
    {
+      this(model, robotAI, RunBudget.DEFAULT);
+   }
+
+   /**
+    * Create a controller for a run with limits. The time limits are checked
+    * after each step, only an AI algorithm that runs its steps on another
+    * thread, like a script, can be stopped in the middle of a step.
+    * @param model The maze model to use.
+    * @param robotAI The robot AI algorithm to use.
+    * @param budget The limits of each run, counted from when it starts.
+    */
+   public RobotController(MazeModel model, RobotBase robotAI, RunBudget budget)
+   {
+      if (budget == null)
+         throw new IllegalArgumentException("The budget cannot be null.");
+      this.budget = budget;
       this.mazeModel = model;
       this.ai = robotAI;
       final MazeCell start = MazeCell.valueOf(1, this.mazeModel.getSize().height);
@@ -56,36 +100,177 @@ public final class RobotController
    {
       this.robotModelMaster.setCurrentLocation(MazeCell.valueOf(1, this.mazeModel.getSize().height));
       this.robotModelMaster.setDirection(Direction.North);
-      this.ai.setRobotLocation(this.robotModelClient);
+      this.ai.setRunContext(new RunContext(this.robotModelClient, this.budget));
       this.ai.initialize();
       this.robotCrashed = false;
+      this.crashException = null;
       this.robotMoveCount = 0;
       this.robotTurnCount = 0;
+      this.trace = null;
+      this.startNanos = System.nanoTime();
+      this.cpuNanos = 0;
+      this.budgetExceeded = null;
+   }
+
+   public RunBudget getBudget()
+   {
+      return this.budget;
+   }
+
+   /**
+    * Tells the AI algorithm the run is over so it can give back what it holds
+    * for the run. No more steps should be asked for after this.
+    * @see RobotBase#finish()
+    */
+   public void finish()
+   {
+      this.ai.finish();
    }
 
    /**
     * Get the next step the robot has taken.
+    * @return The step or null if the AI algorithm ran out of time deciding it.
+    *         The step may have been taken several times, see
+    *         {@link #nextMove()}.
     */
    public RobotStep nextStep()
    {
-      final RobotStep nextStep = this.ai.nextStep();
-      //System.out.println(nextStep);
+      final RobotMove move = this.nextMove();
+      return move == null ? null : move.getStep();
+   }
+
+   /**
+    * Get the next move of the robot and take it. A run of moves counts a step
+    * for each cell and never goes past the step limit. The run is checked
+    * against the walls before the robot moves: if a wall is in the way the
+    * robot moves up to it and then crashes into it, just like it would taking
+    * the same steps one at a time.
+    * @return The move as it was taken, including the step that crashed, or
+    *         null if the AI algorithm ran out of time deciding it.
+    */
+   public RobotMove nextMove()
+   {
+      final boolean measureCpu = this.budget.getMaxCpuMillis() != RunBudget.UNLIMITED &&
+                                 THREADS.isCurrentThreadCpuTimeSupported();
+      final long cpuStart = measureCpu ? THREADS.getCurrentThreadCpuTime() : 0;
+      final RobotMove move;
       try
       {
-         this.robotModelMaster.takeNextStep(nextStep);
+         move = this.ai.nextMove();
+      }
+      catch (StepTimeoutException e)
+      {
+         this.budgetExceeded = e.getMessage() + " after " + this.getStepCount() + " steps";
+         return null;
       }
-      catch (maze.model.RobotModelMaster.RobotCrashedException e)
+      finally
       {
-         this.robotCrashed = true;
-         e.printStackTrace();
-         JOptionPane.showMessageDialog(maze.Main.getPrimaryFrameInstance(), e.getMessage());
+         if (measureCpu)
+            this.cpuNanos += THREADS.getCurrentThreadCpuTime() - cpuStart;
+      }
+      final RobotStep nextStep = move.getStep();
+      final int count = Math.max(1, Math.min(move.getCount(), this.budget.getMaxSteps() + 1 - this.getStepCount()));
+      final int open = nextStep.isTurn() ? count : this.robotModelMaster.getOpenMoves(nextStep, count);
+      // Stop at the first wall, with one more step for the crash into it.
+      final int taken = open < count ? open + 1 : count;
+      // The cells of a run are shown as one change of the path.
+      final RobotPathModel path = open > 1 ? this.robotModelMaster.getRobotPathModel() : null;
+      if (path != null)
+      {
+         path.beginBatch();
+      }
+      try
+      {
+         for (int i = 0; i < taken; i++)
+         {
+            try
+            {
+               this.robotModelMaster.takeNextStep(nextStep);
+            }
+            catch (RobotCrashedException e)
+            {
+               this.robotCrashed = true;
+               this.crashException = e;
+            }
+            if (this.trace != null)
+            {
+               if (this.robotCrashed)
+                  this.trace.addCrash(nextStep);
+               else
+                  this.trace.add(nextStep);
+            }
+         }
+      }
+      finally
+      {
+         if (path != null)
+         {
+            path.endBatch();
+         }
       }
       if (nextStep.isTurn())
-         this.robotTurnCount++;
+         this.robotTurnCount += taken;
       else
-         this.robotMoveCount++;
+         this.robotMoveCount += taken;
+      this.checkTimeLimits();
+
+      return taken == move.getCount() ? move : RobotMove.valueOf(nextStep, taken);
+   }
 
-      return nextStep;
+   /**
+    * Runs the rest of the simulation without stopping and records every step,
+    * so it can be replayed later at any speed. This is normally called before
+    * any steps are taken.
+    * @return The trace being recorded or, if steps were not being recorded, the
+    *         steps taken from where the robot is now.
+    */
+   public StepTrace runToEnd()
+   {
+      final StepTrace recording = this.trace != null ? this.trace : this.startTrace();
+      while (!this.isRobotDone())
+      {
+         this.nextMove();
+      }
+      return recording;
+   }
+
+   /**
+    * Start recording every step taken from now on.
+    * @return The trace the steps are added to.
+    */
+   public StepTrace startTrace()
+   {
+      this.trace = new StepTrace(this.robotModelMaster.getCurrentLocation(),
+                                 this.robotModelMaster.getDirection());
+      this.trace.setMazeHash(this.mazeModel.getWallHash());
+      this.trace.setDescription(this.ai.toString());
+      return this.trace;
+   }
+
+   /**
+    * Get the trace being recorded.
+    * @return The trace or null if steps are not being recorded.
+    */
+   public StepTrace getTrace()
+   {
+      return this.trace;
+   }
+
+   /**
+    * Records whether a time limit of the budget has been used up.
+    */
+   private void checkTimeLimits()
+   {
+      if (this.budgetExceeded != null || !this.budget.hasTimeLimit())
+         return;
+      final long wallMillis = (System.nanoTime() - this.startNanos) / 1000000;
+      final long cpuMillis = this.getCpuNanos() / 1000000;
+      if (this.budget.getMaxWallMillis() != RunBudget.UNLIMITED &&
+          wallMillis >= this.budget.getMaxWallMillis())
+         this.budgetExceeded = "Ran for " + wallMillis + " ms after " + this.getStepCount() + " steps";
+      else if (this.budget.getMaxCpuMillis() != RunBudget.UNLIMITED &&
+               cpuMillis >= this.budget.getMaxCpuMillis())
+         this.budgetExceeded = "Used " + cpuMillis + " ms of CPU time after " + this.getStepCount() + " steps";
    }
 
    /**
@@ -93,7 +278,62 @@ public final class RobotController
     */
    public boolean isRobotDone()
    {
-      return this.getStepCount() > MAX_STEP_COUNT || this.robotCrashed;
+      return this.isStepLimitReached() || this.robotCrashed || this.budgetExceeded != null;
+   }
+
+   /**
+    * Has the run used up the wall clock or processor time of its budget.
+    */
+   public boolean isTimeLimitReached()
+   {
+      return this.budgetExceeded != null;
+   }
+
+   /**
+    * Get a description of the time limit that ended the run.
+    * @return The description or null if no time limit has been reached.
+    */
+   public String getTimeLimitMessage()
+   {
+      return this.budgetExceeded;
+   }
+
+   /**
+    * Get the processor time the AI algorithm has used deciding its steps. Time
+    * on this thread is only measured when the budget has a processor time
+    * limit.
+    * @return Time in nanoseconds.
+    * @see RobotBase#getWorkerCpuNanos()
+    */
+   public long getCpuNanos()
+   {
+      return this.cpuNanos + this.ai.getWorkerCpuNanos();
+   }
+
+   /**
+    * Did the robot crash into a wall.
+    * @return true if the last run ended with a crash.
+    */
+   public boolean isRobotCrashed()
+   {
+      return this.robotCrashed;
+   }
+
+   /**
+    * Has the robot taken more steps than a single run is allowed.
+    */
+   public boolean isStepLimitReached()
+   {
+      return this.getStepCount() > this.budget.getMaxSteps();
+   }
+
+   /**
+    * Get the exception describing the crash.
+    * @return The crash exception or null if the robot has not crashed.
+    */
+   public RobotCrashedException getCrashException()
+   {
+      return this.crashException;
    }
 
    /**
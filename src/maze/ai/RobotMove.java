@@ -0,0 +1,84 @@
+package maze.ai;
+
+/**
+ * One step, or a run of the same move repeated, decided by a robot AI
+ * algorithm at once. A run of moves down a corridor the algorithm already
+ * knows is taken by the controller in one call instead of asking the
+ * algorithm for every cell. Each move of a run counts as a step. Instances
+ * are immutable.
+ * @see RobotBase#nextMove()
+ */
+public final class RobotMove
+{
+   private static final RobotStep[] STEPS = RobotStep.values();
+   private static final RobotMove[] SINGLE = new RobotMove[STEPS.length];
+   static
+   {
+      for (RobotStep step : STEPS)
+         SINGLE[step.ordinal()] = new RobotMove(step, 1);
+   }
+
+   private final RobotStep step;
+   private final int count;
+
+   private RobotMove(RobotStep step, int count)
+   {
+      this.step = step;
+      this.count = count;
+   }
+
+   /**
+    * Get a single step.
+    * @param step The step or null.
+    * @return The move or null if the step is null.
+    */
+   public static RobotMove valueOf(RobotStep step)
+   {
+      return step == null ? null : SINGLE[step.ordinal()];
+   }
+
+   /**
+    * Get a run of moves forward.
+    * @param cells The number of cells to move.
+    */
+   public static RobotMove forward(int cells)
+   {
+      return valueOf(RobotStep.MoveForward, cells);
+   }
+
+   /**
+    * Get a run of the same step. Only moves can be repeated, a turn is always
+    * taken once.
+    * @param step The move.
+    * @param count The number of times to take it.
+    */
+   public static RobotMove valueOf(RobotStep step, int count)
+   {
+      if (count < 1)
+         throw new IllegalArgumentException("A move must be taken at least once.");
+      if (count == 1)
+         return SINGLE[step.ordinal()];
+      if (step.isTurn())
+         throw new IllegalArgumentException("Turns can not be repeated.");
+      return new RobotMove(step, count);
+   }
+
+   public RobotStep getStep()
+   {
+      return step;
+   }
+
+   /**
+    * Get the number of times the step is taken.
+    */
+   public int getCount()
+   {
+      return count;
+   }
+
+   @Override
+   public String toString()
+   {
+      return count == 1 ? step.toString() : step + "(" + count + ")";
+   }
+}
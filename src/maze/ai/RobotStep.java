@@ -1,7 +1,9 @@
 package maze.ai;
 
 /**
- * This represents one step taken by a robot.
+ * This represents one step taken by a robot. The 45 degree turns and the
+ * diagonal move are an extended step set for robots that cut through
+ * zig-zags, other algorithms never need them.
  * @author Luke Last
  */
 public enum RobotStep
@@ -21,7 +23,21 @@ public enum RobotStep
    /**
     * Rotates the robot to the right.
     */
-   RotateRight, ;
+   RotateRight,
+   /**
+    * Rotates the robot 45 degrees to the left, onto or off of a diagonal.
+    */
+   RotateLeft45,
+   /**
+    * Rotates the robot 45 degrees to the right, onto or off of a diagonal.
+    */
+   RotateRight45,
+   /**
+    * Moves a robot that is on a diagonal through the next wall of the
+    * zig-zag, which alternates between the two directions on either side of
+    * the diagonal.
+    */
+   MoveDiagonal, ;
 
    /**
     * Tells us if this robot step represents a left or right turn/rotation.
@@ -32,6 +48,8 @@ public enum RobotStep
       {
          case RotateLeft :
          case RotateRight :
+         case RotateLeft45 :
+         case RotateRight45 :
             return true;
          default :
             return false;
@@ -0,0 +1,139 @@
+package maze.ai;
+
+/**
+ * Limits how long a robot may run through a maze. A run can be limited by the
+ * number of steps, the wall clock time since the run started, the processor
+ * time spent in the AI algorithm deciding its steps and the time it may take
+ * to decide one step. Instances are immutable.
+ * @see RobotController#RobotController(maze.model.MazeModel, RobotBase, RunBudget)
+ */
+public final class RunBudget
+{
+   /**
+    * The number of steps a run is allowed by default.
+    */
+   public static final int DEFAULT_MAX_STEPS = 2000;
+   /**
+    * Used for a time limit that is not set.
+    */
+   public static final long UNLIMITED = 0;
+   /**
+    * The default budget, {@link #DEFAULT_MAX_STEPS} steps and no time limits.
+    */
+   public static final RunBudget DEFAULT = new RunBudget(DEFAULT_MAX_STEPS,
+                                                         UNLIMITED,
+                                                         UNLIMITED,
+                                                         UNLIMITED);
+
+   private final int maxSteps;
+   private final long maxWallMillis;
+   private final long maxCpuMillis;
+   private final long maxStepMillis;
+
+   /**
+    * Create a budget.
+    * @param maxSteps The most steps, moves and turns, the robot may take.
+    * @param maxWallMillis The most milliseconds the run may take or
+    *           {@link #UNLIMITED}.
+    * @param maxCpuMillis The most milliseconds of processor time the AI
+    *           algorithm may use or {@link #UNLIMITED}.
+    * @param maxStepMillis The most milliseconds the AI algorithm may take to
+    *           decide one step or {@link #UNLIMITED}.
+    */
+   public RunBudget(int maxSteps, long maxWallMillis, long maxCpuMillis, long maxStepMillis)
+   {
+      if (maxSteps < 1)
+         throw new IllegalArgumentException("The step limit must be positive.");
+      if (maxWallMillis < 0 || maxCpuMillis < 0 || maxStepMillis < 0)
+         throw new IllegalArgumentException("Time limits can not be negative.");
+      this.maxSteps = maxSteps;
+      this.maxWallMillis = maxWallMillis;
+      this.maxCpuMillis = maxCpuMillis;
+      this.maxStepMillis = maxStepMillis;
+   }
+
+   public int getMaxSteps()
+   {
+      return maxSteps;
+   }
+
+   /**
+    * Get the wall clock time limit.
+    * @return Milliseconds or {@link #UNLIMITED}.
+    */
+   public long getMaxWallMillis()
+   {
+      return maxWallMillis;
+   }
+
+   /**
+    * Get the limit on processor time used by the AI algorithm.
+    * @return Milliseconds or {@link #UNLIMITED}.
+    */
+   public long getMaxCpuMillis()
+   {
+      return maxCpuMillis;
+   }
+
+   /**
+    * Get the limit on the time to decide one step. Only algorithms that run
+    * their steps on another thread, like scripts, can be stopped in the middle
+    * of a step.
+    * @return Milliseconds or {@link #UNLIMITED}.
+    * @see StepTimeoutException
+    */
+   public long getMaxStepMillis()
+   {
+      return maxStepMillis;
+   }
+
+   /**
+    * Tells if the budget has a time limit. Runs with a time limit may end
+    * differently each time.
+    */
+   public boolean hasTimeLimit()
+   {
+      return maxWallMillis != UNLIMITED || maxCpuMillis != UNLIMITED || maxStepMillis != UNLIMITED;
+   }
+
+   /**
+    * Creates a copy with a different step limit.
+    */
+   public RunBudget withMaxSteps(int steps)
+   {
+      return new RunBudget(steps, maxWallMillis, maxCpuMillis, maxStepMillis);
+   }
+
+   /**
+    * Creates a copy with a different wall clock time limit.
+    */
+   public RunBudget withMaxWallMillis(long millis)
+   {
+      return new RunBudget(maxSteps, millis, maxCpuMillis, maxStepMillis);
+   }
+
+   /**
+    * Creates a copy with a different processor time limit.
+    */
+   public RunBudget withMaxCpuMillis(long millis)
+   {
+      return new RunBudget(maxSteps, maxWallMillis, millis, maxStepMillis);
+   }
+
+   /**
+    * Creates a copy with a different limit on the time of one step.
+    */
+   public RunBudget withMaxStepMillis(long millis)
+   {
+      return new RunBudget(maxSteps, maxWallMillis, maxCpuMillis, millis);
+   }
+
+   @Override
+   public String toString()
+   {
+      return maxSteps + " steps" +
+             (maxWallMillis == UNLIMITED ? "" : ", " + maxWallMillis + " ms") +
+             (maxCpuMillis == UNLIMITED ? "" : ", " + maxCpuMillis + " ms CPU") +
+             (maxStepMillis == UNLIMITED ? "" : ", " + maxStepMillis + " ms per step");
+   }
+}
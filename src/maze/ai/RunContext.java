@@ -0,0 +1,39 @@
+package maze.ai;
+
+import maze.model.RobotModel;
+
+/**
+ * What an AI algorithm is given for one run: the robot it controls and the
+ * limits of the run. A new context is made for every run and it never
+ * changes, so an algorithm that keeps all of its state for a run in its own
+ * instance can run on many threads at the same time.
+ * @see RobotBase#setRunContext(RunContext)
+ */
+public final class RunContext
+{
+   private final RobotModel robot;
+   private final RunBudget budget;
+
+   /**
+    * Create a context.
+    * @param robot The view of the robot the algorithm is allowed to see.
+    * @param budget The limits of the run.
+    */
+   public RunContext(RobotModel robot, RunBudget budget)
+   {
+      if (robot == null || budget == null)
+         throw new IllegalArgumentException("The robot and budget cannot be null.");
+      this.robot = robot;
+      this.budget = budget;
+   }
+
+   public RobotModel getRobot()
+   {
+      return robot;
+   }
+
+   public RunBudget getBudget()
+   {
+      return budget;
+   }
+}
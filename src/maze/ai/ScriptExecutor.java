@@ -0,0 +1,250 @@
+package maze.ai;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the steps of script robots on a fixed number of worker threads, so each
+ * step can be given a deadline and a script that hangs does not hang the
+ * thread that asked for the step. The deadline starts when a worker starts
+ * the step, so steps waiting behind a slow one do not miss theirs.<br />
+ * A step that misses its deadline is cancelled by interrupting its worker. If
+ * the script ignores the interrupt its worker is left to finish on its own at
+ * the lowest priority and the pool grows by one thread until it does, so the
+ * other scripts keep running. The pool grows by at most as many threads as it
+ * started with. Once every worker is hung new steps fail at once instead of
+ * waiting for a worker that may never come back.<br />
+ * This is not a sandbox. A script has the same access to Java and the file
+ * system as the simulator itself, the executor only limits its time.
+ */
+public final class ScriptExecutor
+{
+   private static ScriptExecutor instance;
+
+   private final int threads;
+   private final ThreadPoolExecutor executor;
+   /**
+    * The number of cancelled steps that are still running.
+    */
+   private int hung;
+   /**
+    * The number of steps that ever ignored being cancelled.
+    */
+   private int abandoned;
+
+   /**
+    * Gets the executor shared by all script robots, with one worker per
+    * processor.
+    */
+   public static synchronized ScriptExecutor getInstance()
+   {
+      if (instance == null)
+         instance = new ScriptExecutor(Runtime.getRuntime().availableProcessors());
+      return instance;
+   }
+
+   /**
+    * Create an executor.
+    * @param threads The number of steps that can run at the same time.
+    */
+   public ScriptExecutor(int threads)
+   {
+      if (threads < 1)
+         throw new IllegalArgumentException("There must be at least one thread.");
+      this.threads = threads;
+      this.executor = new ThreadPoolExecutor(threads,
+                                             threads,
+                                             30,
+                                             TimeUnit.SECONDS,
+                                             new LinkedBlockingQueue<Runnable>(),
+                                             new ThreadFactory()
+                                             {
+                                                private final AtomicInteger count = new AtomicInteger();
+
+                                                @Override
+                                                public Thread newThread(Runnable r)
+                                                {
+                                                   final Thread thread = new Thread(r, "Script worker " +
+                                                                                       count.incrementAndGet());
+                                                   thread.setDaemon(true);
+                                                   return thread;
+                                                }
+                                             });
+      this.executor.allowCoreThreadTimeOut(true);
+   }
+
+   /**
+    * A task that knows the thread running it.
+    */
+   private final class Job<T> implements Callable<T>
+   {
+      private final Callable<T> task;
+      private final CountDownLatch started = new CountDownLatch(1);
+      private volatile long startNanos;
+      private Thread thread;
+      private boolean abandoned;
+
+      Job(Callable<T> task)
+      {
+         this.task = task;
+      }
+
+      @Override
+      public T call() throws Exception
+      {
+         synchronized (ScriptExecutor.this)
+         {
+            this.thread = Thread.currentThread();
+         }
+         this.startNanos = System.nanoTime();
+         this.started.countDown();
+         try
+         {
+            return this.task.call();
+         }
+         finally
+         {
+            synchronized (ScriptExecutor.this)
+            {
+               this.thread.setPriority(Thread.NORM_PRIORITY);
+               this.thread = null;
+               if (this.abandoned)
+                  setHung(hung - 1);
+            }
+         }
+      }
+
+      /**
+       * Gives up on the task after it has been cancelled.
+       */
+      void abandon()
+      {
+         synchronized (ScriptExecutor.this)
+         {
+            if (this.thread != null && !this.abandoned)
+            {
+               this.abandoned = true;
+               this.thread.setPriority(Thread.MIN_PRIORITY);
+               ScriptExecutor.this.abandoned++;
+               setHung(hung + 1);
+               System.out.println("Script step on " + this.thread.getName() + " did not stop when cancelled, " +
+                                  hung + " of " + getWorkerCount() + " workers are hung.");
+            }
+         }
+      }
+   }
+
+   /**
+    * Adds a worker for every hung step, up to twice the number of threads the
+    * executor was created with.
+    */
+   private void setHung(int count)
+   {
+      final int workers = this.threads + Math.min(count, this.threads);
+      if (workers > this.executor.getMaximumPoolSize())
+      {
+         this.executor.setMaximumPoolSize(workers);
+         this.executor.setCorePoolSize(workers);
+      }
+      else
+      {
+         this.executor.setCorePoolSize(workers);
+         this.executor.setMaximumPoolSize(workers);
+      }
+      this.hung = count;
+   }
+
+   /**
+    * Get the number of workers the pool may have now, hung ones included.
+    */
+   private int getWorkerCount()
+   {
+      return this.threads + Math.min(this.hung, this.threads);
+   }
+
+   /**
+    * Checks if every worker is running a cancelled step.
+    */
+   private synchronized boolean isExhausted()
+   {
+      return this.hung >= getWorkerCount();
+   }
+
+   /**
+    * Runs a task on a worker and waits for it to finish.
+    * @param task The task, like one step of a script.
+    * @param timeoutMillis The most milliseconds the task may run once a worker
+    *           has started it. The time waiting for a free worker does not
+    *           count.
+    * @return What the task returned.
+    * @throws StepTimeoutException If the task did not finish in time, every
+    *            worker is hung or the calling thread was interrupted. The task
+    *            is cancelled.
+    */
+   public <T> T call(Callable<T> task, long timeoutMillis)
+   {
+      if (isExhausted())
+         throw new StepTimeoutException("All " + getHungCount() + " script workers are hung");
+      final Job<T> job = new Job<T>(task);
+      final FutureTask<T> future = new FutureTask<T>(job);
+      this.executor.execute(future);
+      try
+      {
+         while (!job.started.await(Math.max(1, timeoutMillis), TimeUnit.MILLISECONDS))
+         {
+            if (isExhausted() && future.cancel(false))
+               throw new StepTimeoutException("All " + getHungCount() + " script workers are hung");
+         }
+         final long elapsed = System.nanoTime() - job.startNanos;
+         return future.get(Math.max(0, TimeUnit.MILLISECONDS.toNanos(timeoutMillis) - elapsed),
+                           TimeUnit.NANOSECONDS);
+      }
+      catch (TimeoutException e)
+      {
+         future.cancel(true);
+         job.abandon();
+         throw new StepTimeoutException("The step took longer than " + timeoutMillis + " ms");
+      }
+      catch (InterruptedException e)
+      {
+         future.cancel(true);
+         job.abandon();
+         Thread.currentThread().interrupt();
+         throw new StepTimeoutException("The step was interrupted");
+      }
+      catch (ExecutionException e)
+      {
+         final Throwable cause = e.getCause();
+         if (cause instanceof RuntimeException)
+            throw (RuntimeException) cause;
+         if (cause instanceof Error)
+            throw (Error) cause;
+         throw new RuntimeException(cause);
+      }
+   }
+
+   /**
+    * Get the number of cancelled tasks that have not finished yet.
+    */
+   public synchronized int getHungCount()
+   {
+      return this.hung;
+   }
+
+   /**
+    * Get the number of tasks that kept running after they were cancelled,
+    * including the ones that have finished since.
+    */
+   public synchronized int getAbandonedCount()
+   {
+      return this.abandoned;
+   }
+}
@@ -0,0 +1,20 @@
+package maze.ai;
+
+import java.util.List;
+
+/**
+ * Supplies robot AI algorithms to the {@link SolverRegistry}. Algorithms in
+ * another jar are added by implementing this interface and listing the class
+ * in the jar's <code>META-INF/services/maze.ai.SolverProvider</code> file.
+ * The class needs a public constructor that takes no arguments.
+ */
+public interface SolverProvider
+{
+   /**
+    * Creates one instance of each algorithm. The instances are used as
+    * prototypes, each run gets its own copy from
+    * {@link RobotBase#newInstance()}.
+    * @return The algorithms in the order they should be listed.
+    */
+   List<RobotBase> createSolvers();
+}
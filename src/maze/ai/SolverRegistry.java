@@ -0,0 +1,133 @@
+package maze.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * The robot AI algorithms that are available, found without any GUI classes.
+ * The built in algorithms are always available, more are discovered from
+ * every {@link SolverProvider} on the class path. The registry keeps one
+ * prototype of each algorithm and hands out new instances, so simulations
+ * running at the same time never share an algorithm.
+ */
+public final class SolverRegistry
+{
+   private static SolverRegistry instance;
+
+   /**
+    * The prototypes by name in the order they were found.
+    */
+   private final Map<String, RobotBase> prototypes = new LinkedHashMap<String, RobotBase>();
+
+   /**
+    * Gets the registry of the algorithms on the class path of this class.
+    */
+   public static synchronized SolverRegistry getInstance()
+   {
+      if (instance == null)
+         instance = new SolverRegistry(SolverRegistry.class.getClassLoader());
+      return instance;
+   }
+
+   /**
+    * Create a registry of the built in algorithms and the ones provided
+    * through a class loader. A provider that can not be loaded and solvers
+    * that can not make new instances are skipped.
+    * @param loader The class loader to find providers with.
+    */
+   public SolverRegistry(ClassLoader loader)
+   {
+      this.addAll(Arrays.asList(RobotBase.createDefaultRobots()));
+      final Iterator<SolverProvider> providers = ServiceLoader.load(SolverProvider.class, loader)
+                                                              .iterator();
+      while (true)
+      {
+         try
+         {
+            if (!providers.hasNext())
+               break;
+            this.addAll(providers.next().createSolvers());
+         }
+         catch (ServiceConfigurationError e)
+         {
+            System.out.println("Error loading a solver provider");
+            e.printStackTrace();
+         }
+         catch (RuntimeException e)
+         {
+            System.out.println("Error creating the solvers of a provider");
+            e.printStackTrace();
+         }
+      }
+   }
+
+   /**
+    * Adds algorithms, ones with the name of an algorithm that is already
+    * registered are ignored. An algorithm is only added if a new instance of
+    * it can be created, so one broken solver can not break
+    * {@link #createAll()}.
+    */
+   private void addAll(List<RobotBase> solvers)
+   {
+      for (RobotBase solver : solvers)
+      {
+         final String name = solver.toString();
+         if (this.prototypes.containsKey(name))
+            continue;
+         try
+         {
+            solver.newInstance();
+         }
+         catch (RuntimeException e)
+         {
+            System.out.println("Error creating the solver " + name);
+            e.printStackTrace();
+            continue;
+         }
+         this.prototypes.put(name, solver);
+      }
+   }
+
+   /**
+    * Get the names of all the algorithms.
+    * @return The names in the order the algorithms were found.
+    */
+   public List<String> getNames()
+   {
+      return Collections.unmodifiableList(new ArrayList<String>(this.prototypes.keySet()));
+   }
+
+   /**
+    * Creates a new instance of an algorithm.
+    * @param name The name of the algorithm from {@link #getNames()}.
+    * @return A new instance for one run.
+    * @throws IllegalArgumentException If there is no algorithm with the name.
+    */
+   public RobotBase create(String name)
+   {
+      final RobotBase prototype = this.prototypes.get(name);
+      if (prototype == null)
+         throw new IllegalArgumentException("There is no algorithm named " + name);
+      return prototype.newInstance();
+   }
+
+   /**
+    * Creates a new instance of every algorithm.
+    * @return The new instances in the order of {@link #getNames()}.
+    */
+   public RobotBase[] createAll()
+   {
+      final RobotBase[] solvers = new RobotBase[this.prototypes.size()];
+      int i = 0;
+      for (RobotBase prototype : this.prototypes.values())
+         solvers[i++] = prototype.newInstance();
+      return solvers;
+   }
+}
@@ -0,0 +1,375 @@
+package maze.ai;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import maze.model.CellIndexTable;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+import maze.model.RobotPathModel;
+
+/**
+ * Finds the fastest run from the start to the center for a robot that moves
+ * as described by a {@link MotionProfile}. Unlike the shortest path, the
+ * fastest run prefers long straights over many turns and, if the profile
+ * allows it, cuts through zig-zags on a diagonal.
+ * <p>
+ * The search is Dijkstra's over the ways the robot can be about to leave a
+ * cell: heading straight in one of the four directions, or on a diagonal that
+ * steps in one direction and then alternates with a neighboring one. The robot
+ * is at the turn speed at the start of every leg, so the time of a whole
+ * straight or diagonal including the turn at its end is the cost of one edge.
+ * </p>
+ * A route can be driven with the steps from {@link Route#getSteps()}, which
+ * use the 45 degree turns and diagonal moves of {@link RobotStep} when the
+ * profile runs diagonals.
+ */
+public final class SpeedRunPlanner
+{
+   /**
+    * The fastest run found by a planner.
+    */
+   public static final class Route
+   {
+      private final double seconds;
+      private final List<MazeCell> cells;
+      private final List<RobotStep> steps;
+
+      Route(double seconds, List<MazeCell> cells, List<RobotStep> steps)
+      {
+         this.seconds = seconds;
+         this.cells = Collections.unmodifiableList(cells);
+         this.steps = Collections.unmodifiableList(steps);
+      }
+
+      /**
+       * Get the estimated time of the run.
+       */
+      public double getSeconds()
+      {
+         return seconds;
+      }
+
+      /**
+       * Get the cells the run goes through in order, from the start to the
+       * first cell of the center.
+       */
+      public List<MazeCell> getCells()
+      {
+         return cells;
+      }
+
+      /**
+       * Get the steps that drive the run for a robot in the start cell facing
+       * north. The robot ends off of any diagonal.
+       */
+      public List<RobotStep> getSteps()
+      {
+         return steps;
+      }
+   }
+
+   private static final int NORTH = MazeModel.NORTH;
+   private static final double SQRT_HALF = Math.sqrt(0.5);
+
+   private final MotionProfile profile;
+   private MazeModel maze;
+   private CellIndexTable cells;
+   private boolean[] allowed;
+   private boolean[] goal;
+   private double[] cost;
+   private int[] from;
+   private boolean[] closed;
+   private CellHeap open;
+   private double finishCost;
+   private int finishFrom;
+   private int finishCell;
+
+   /**
+    * Constructor.
+    * @param profile How the robot moves.
+    */
+   public SpeedRunPlanner(MotionProfile profile)
+   {
+      if (profile == null)
+         throw new IllegalArgumentException("The motion profile cannot be null.");
+      this.profile = profile;
+   }
+
+   public MotionProfile getProfile()
+   {
+      return profile;
+   }
+
+   /**
+    * Plans a run through any cell of the maze.
+    * @param maze The walls.
+    * @return The fastest run or null if the center can not be reached.
+    */
+   public Route plan(MazeModel maze)
+   {
+      return plan(maze, (boolean[]) null);
+   }
+
+   /**
+    * Plans a run through the cells a robot has visited, which are the cells
+    * whose walls it knows.
+    * @param maze The walls.
+    * @param path The cells the robot visited.
+    * @return The fastest run or null if the center can not be reached through
+    *         visited cells.
+    */
+   public Route plan(MazeModel maze, RobotPathModel path)
+   {
+      final CellIndexTable table = maze.getCellIndexTable();
+      final boolean[] visited = new boolean[table.getCellCount()];
+      for (int i = 0; i < visited.length; i++)
+         visited[i] = path.hasCellBeenVisited(table.getCell(i));
+      return plan(maze, visited);
+   }
+
+   /**
+    * Plans a run.
+    * @param maze The walls.
+    * @param allowed The cells the run may go through by cell index, or null
+    *           for all of them.
+    * @return The fastest run or null if the center can not be reached.
+    */
+   public Route plan(MazeModel maze, boolean[] allowed)
+   {
+      this.maze = maze;
+      this.cells = maze.getCellIndexTable();
+      this.allowed = allowed;
+      final int count = cells.getCellCount();
+      goal = new boolean[count];
+      for (MazeCell cell : maze.getWinningCells())
+         goal[cells.indexOf(cell)] = true;
+      final int start = cells.indexOf(maze.getStartingCell());
+      if (goal[start])
+         return new Route(0,
+                          new ArrayList<MazeCell>(Collections.singletonList(maze.getStartingCell())),
+                          new ArrayList<RobotStep>());
+
+      // Four straight states and eight diagonal states for each cell.
+      final int states = count * 12;
+      cost = new double[states];
+      Arrays.fill(cost, Double.POSITIVE_INFINITY);
+      from = new int[states];
+      closed = new boolean[states];
+      open = new CellHeap(count);
+      finishCost = Double.POSITIVE_INFINITY;
+      finishFrom = CellIndexTable.NONE;
+
+      final int startState = straightState(start, NORTH);
+      relax(startState, CellIndexTable.NONE, 0);
+      while (open.isEmpty() == false)
+      {
+         final int state = open.remove();
+         if (closed[state])
+            continue;
+         closed[state] = true;
+         if (cost[state] >= finishCost)
+            break;
+         final double speed = state == startState ? 0 : profile.getTurnSpeed();
+         if (state < count * 4)
+            expandStraight(state, speed);
+         else
+            expandDiagonal(state);
+      }
+      if (finishFrom == CellIndexTable.NONE)
+         return null;
+      return buildRoute();
+   }
+
+   private static int straightState(int cell, int direction)
+   {
+      return cell * 4 + direction;
+   }
+
+   /**
+    * Get a diagonal state.
+    * @param first The direction of the first step.
+    * @param second The direction of the second step, left or right of the
+    *           first.
+    */
+   private int diagonalState(int cell, int first, int second)
+   {
+      return cells.getCellCount() * 4 + cell * 8 + first * 2 + (second == left(first) ? 0 : 1);
+   }
+
+   /**
+    * Get the direction on the left side of a diagonal state, which is what a
+    * robot on the diagonal takes as its direction.
+    * @see maze.model.RobotModelMaster#isDiagonal()
+    */
+   private int leftSide(int state)
+   {
+      final int straightStates = cells.getCellCount() * 4;
+      final int first = (state - straightStates) % 8 / 2;
+      return (state - straightStates) % 2 == 0 ? left(first) : first;
+   }
+
+   private static int left(int direction)
+   {
+      return (direction + 3) % 4;
+   }
+
+   private static int right(int direction)
+   {
+      return (direction + 1) % 4;
+   }
+
+   /**
+    * Get the cell of a state.
+    */
+   private int cellOf(int state)
+   {
+      final int straightStates = cells.getCellCount() * 4;
+      return state < straightStates ? state / 4 : (state - straightStates) / 8;
+   }
+
+   /**
+    * Get the direction of the step taken after <code>steps</code> steps from
+    * a state.
+    */
+   private int stepDirection(int state, int steps)
+   {
+      final int straightStates = cells.getCellCount() * 4;
+      if (state < straightStates)
+         return state % 4;
+      final int first = (state - straightStates) % 8 / 2;
+      if (steps % 2 == 0)
+         return first;
+      return (state - straightStates) % 2 == 0 ? left(first) : right(first);
+   }
+
+   /**
+    * Get the next cell in a direction if the robot can go there.
+    * @return The cell or NONE.
+    */
+   private int step(int cell, int direction)
+   {
+      if (maze.isWall(cell, direction))
+         return CellIndexTable.NONE;
+      final int next = cells.neighbor(cell, direction);
+      if (next == CellIndexTable.NONE || (allowed != null && allowed[next] == false))
+         return CellIndexTable.NONE;
+      return next;
+   }
+
+   /**
+    * Tries every length of straight from a state followed by every turn.
+    */
+   private void expandStraight(int state, double speed)
+   {
+      final int direction = state % 4;
+      final double meters = profile.getCellMeters();
+      final double turnSpeed = profile.getTurnSpeed();
+      int cell = state / 4;
+      for (int length = 1; (cell = step(cell, direction)) != CellIndexTable.NONE; length++)
+      {
+         if (goal[cell])
+         {
+            finish(state, cell, profile.getStraightSeconds(length * meters, speed, 0));
+            return;
+         }
+         final double straight = cost[state] + profile.getStraightSeconds(length * meters, speed, turnSpeed);
+         relax(straightState(cell, left(direction)), state, straight + profile.getTurnSeconds(2));
+         relax(straightState(cell, right(direction)), state, straight + profile.getTurnSeconds(2));
+         if (profile.isDiagonals())
+         {
+            relax(diagonalState(cell, left(direction), direction), state, straight + profile.getTurnSeconds(1));
+            relax(diagonalState(cell, right(direction), direction), state, straight + profile.getTurnSeconds(1));
+         }
+      }
+   }
+
+   /**
+    * Tries every length of diagonal from a state followed by the turn back to
+    * a straight. A diagonal takes at least two steps, a single step is a
+    * plain turn.
+    */
+   private void expandDiagonal(int state)
+   {
+      final double meters = profile.getCellMeters() * SQRT_HALF;
+      final double turnSpeed = profile.getTurnSpeed();
+      int cell = cellOf(state);
+      for (int steps = 1; (cell = step(cell, stepDirection(state, steps - 1))) != CellIndexTable.NONE; steps++)
+      {
+         if (steps < 2)
+            continue;
+         if (goal[cell])
+         {
+            finish(state, cell, profile.getStraightSeconds(steps * meters, turnSpeed, 0));
+            return;
+         }
+         relax(straightState(cell, stepDirection(state, steps - 1)),
+               state,
+               cost[state] + profile.getStraightSeconds(steps * meters, turnSpeed, turnSpeed) +
+                     profile.getTurnSeconds(1));
+      }
+   }
+
+   private void relax(int state, int previous, double newCost)
+   {
+      if (newCost < cost[state] && closed[state] == false)
+      {
+         cost[state] = newCost;
+         from[state] = previous;
+         open.add(state, (int) Math.min(Integer.MAX_VALUE, newCost * 1e6));
+      }
+   }
+
+   private void finish(int state, int cell, double seconds)
+   {
+      if (cost[state] + seconds < finishCost)
+      {
+         finishCost = cost[state] + seconds;
+         finishFrom = state;
+         finishCell = cell;
+      }
+   }
+
+   /**
+    * Lists the cells and steps of the fastest run by following each leg from
+    * its state to the state that came after it.
+    */
+   private Route buildRoute()
+   {
+      final List<Integer> states = new ArrayList<Integer>();
+      for (int state = finishFrom; state != CellIndexTable.NONE; state = from[state])
+         states.add(state);
+      Collections.reverse(states);
+      final int straightStates = cells.getCellCount() * 4;
+      final List<MazeCell> path = new ArrayList<MazeCell>();
+      final List<RobotStep> steps = new ArrayList<RobotStep>();
+      path.add(cells.getCell(cellOf(states.get(0))));
+      for (int i = 0; i < states.size(); i++)
+      {
+         final int state = states.get(i);
+         final boolean diagonal = state >= straightStates;
+         final int end = i + 1 < states.size() ? cellOf(states.get(i + 1)) : finishCell;
+         int cell = cellOf(state);
+         for (int count = 0; cell != end; count++)
+         {
+            cell = cells.neighbor(cell, stepDirection(state, count));
+            path.add(cells.getCell(cell));
+            steps.add(diagonal ? RobotStep.MoveDiagonal : RobotStep.MoveForward);
+         }
+         if (i + 1 == states.size())
+         {
+            if (diagonal)
+               steps.add(RobotStep.RotateLeft45);
+         }
+         else if (diagonal)
+            steps.add(states.get(i + 1) % 4 == leftSide(state) ? RobotStep.RotateLeft45 : RobotStep.RotateRight45);
+         else if (states.get(i + 1) >= straightStates)
+            steps.add(leftSide(states.get(i + 1)) == left(state % 4) ? RobotStep.RotateLeft45 : RobotStep.RotateRight45);
+         else
+            steps.add(states.get(i + 1) % 4 == left(state % 4) ? RobotStep.RotateLeft : RobotStep.RotateRight);
+      }
+      return new Route(finishCost, path, steps);
+   }
+}
@@ -0,0 +1,17 @@
+package maze.ai;
+
+/**
+ * Thrown by an AI algorithm when it could not decide a step in the time it was
+ * given. The robot controller ends the run as if a time limit of its budget
+ * had been reached.
+ * @see RunBudget#getMaxStepMillis()
+ */
+public final class StepTimeoutException extends RuntimeException
+{
+   private static final long serialVersionUID = -3170562237468451904L;
+
+   public StepTimeoutException(String message)
+   {
+      super(message);
+   }
+}
@@ -0,0 +1,422 @@
+package maze.ai;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import maze.model.Direction;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+import maze.model.RobotModelMaster;
+import maze.model.RobotModelMaster.RobotCrashedException;
+
+/**
+ * A record of every step a robot took through a maze. Since the maze and the
+ * steps decide where the robot is after each step, the robot and its path can
+ * be recreated at any step without running the AI algorithm again. Record one
+ * with {@link RobotController#startTrace()} or
+ * {@link RobotController#runToEnd()}.<br />
+ * Each step takes 4 bits. Every {@link #KEYFRAME_INTERVAL} steps the location
+ * and direction of the robot are kept as a keyframe, so finding where the robot
+ * was at any step only replays the steps since the last keyframe. Traces can
+ * be written to a file and read back. A trace starts with the robot off of any
+ * diagonal.
+ */
+public final class StepTrace
+{
+   /**
+    * Number of steps between keyframes.
+    */
+   public static final int KEYFRAME_INTERVAL = 256;
+   /**
+    * "MTR" followed by a zero byte.
+    */
+   private static final int MAGIC = 0x4D545200;
+   private static final int VERSION = 2;
+   private static final RobotStep[] STEPS = RobotStep.values();
+   private static final Direction[] DIRECTIONS = Direction.values();
+   private static final int BITS_PER_STEP = 4;
+   private static final int STEP_MASK = (1 << BITS_PER_STEP) - 1;
+   private static final int STEPS_PER_WORD = 64 / BITS_PER_STEP;
+   /**
+    * Pose bit set when the robot is on a diagonal.
+    */
+   private static final long DIAGONAL = 4;
+   /**
+    * Pose bit set when the next diagonal step is to the right of the
+    * direction.
+    */
+   private static final long DIAGONAL_RIGHT = 8;
+
+   private final MazeCell start;
+   private final Direction startDirection;
+   /**
+    * Steps packed {@link #BITS_PER_STEP} bits each, least significant bits
+    * first.
+    */
+   private long[] steps = new long[8];
+   private int size;
+   /**
+    * The pose before every {@link #KEYFRAME_INTERVAL}th step, packed by
+    * {@link #pack(MazeCell, Direction, long)}.
+    */
+   private long[] keyframes = new long[4];
+   /**
+    * The pose after the last step.
+    */
+   private long pose;
+   private boolean crashed;
+   private String description = "";
+   private String mazeHash = "";
+
+   /**
+    * Create an empty trace.
+    * @param start The cell the robot starts in.
+    * @param startDirection The direction the robot starts facing.
+    */
+   public StepTrace(MazeCell start, Direction startDirection)
+   {
+      this.start = start;
+      this.startDirection = startDirection;
+      this.pose = pack(start, startDirection, 0);
+   }
+
+   /**
+    * Add a step to the end of the trace.
+    */
+   public void add(RobotStep step)
+   {
+      append(step);
+      pose = advance(pose, step);
+   }
+
+   /**
+    * Add a step that ran the robot into a wall, which left it where it was. No
+    * more steps can be added.
+    */
+   void addCrash(RobotStep step)
+   {
+      append(step);
+      crashed = true;
+   }
+
+   private void append(RobotStep step)
+   {
+      if (crashed)
+         throw new IllegalStateException("The robot has crashed.");
+      if (size % KEYFRAME_INTERVAL == 0)
+      {
+         final int keyframe = size / KEYFRAME_INTERVAL;
+         if (keyframe == keyframes.length)
+            keyframes = Arrays.copyOf(keyframes, keyframe * 2);
+         keyframes[keyframe] = pose;
+      }
+      final int word = size / STEPS_PER_WORD;
+      if (word == steps.length)
+         steps = Arrays.copyOf(steps, word * 2);
+      steps[word] |= (long) step.ordinal() << (size % STEPS_PER_WORD * BITS_PER_STEP);
+      size++;
+   }
+
+   /**
+    * Get the pose a step leaves the robot in, the same way as
+    * {@link RobotModelMaster#takeNextStep(RobotStep)}.
+    */
+   private static long advance(long pose, RobotStep step)
+   {
+      MazeCell cell = unpackCell(pose);
+      Direction direction = DIRECTIONS[(int) pose & 3];
+      long diagonal = pose & (DIAGONAL | DIAGONAL_RIGHT);
+      switch (step)
+      {
+         case MoveForward :
+            cell = cell.neighbor(direction);
+            break;
+         case MoveBackward :
+            cell = cell.neighbor(direction.getOpposite());
+            break;
+         case RotateLeft :
+            direction = direction.getLeft();
+            break;
+         case RotateRight :
+            direction = direction.getRight();
+            break;
+         case RotateLeft45 :
+            if (diagonal == 0)
+            {
+               direction = direction.getLeft();
+               diagonal = DIAGONAL;
+            }
+            else
+               diagonal = 0;
+            break;
+         case RotateRight45 :
+            if (diagonal == 0)
+               diagonal = DIAGONAL | DIAGONAL_RIGHT;
+            else
+            {
+               direction = direction.getRight();
+               diagonal = 0;
+            }
+            break;
+         case MoveDiagonal :
+            cell = cell.neighbor( (diagonal & DIAGONAL_RIGHT) != 0 ? direction.getRight() : direction);
+            diagonal ^= DIAGONAL_RIGHT;
+            break;
+      }
+      return pack(cell, direction, diagonal);
+   }
+
+   /**
+    * Get the number of steps in the trace.
+    */
+   public int size()
+   {
+      return size;
+   }
+
+   /**
+    * Get one step.
+    * @param index The step number starting at 0.
+    */
+   public RobotStep getStep(int index)
+   {
+      if (index < 0 || index >= size)
+         throw new IndexOutOfBoundsException("Step " + index + " of " + size);
+      return STEPS[(int) (steps[index / STEPS_PER_WORD] >>> (index % STEPS_PER_WORD * BITS_PER_STEP)) & STEP_MASK];
+   }
+
+   /**
+    * Tells if the last step ran the robot into a wall.
+    */
+   public boolean isCrashed()
+   {
+      return crashed;
+   }
+
+   public MazeCell getStartingCell()
+   {
+      return start;
+   }
+
+   public Direction getStartingDirection()
+   {
+      return startDirection;
+   }
+
+   /**
+    * Get a description of what was run, like the names of the algorithm and
+    * maze.
+    */
+   public String getDescription()
+   {
+      return description;
+   }
+
+   public void setDescription(String description)
+   {
+      this.description = description == null ? "" : description;
+   }
+
+   /**
+    * Get the hash of the walls of the maze the trace was recorded in.
+    * @return The hash from {@link MazeModel#getWallHash()} or an empty string
+    *         if it is not known.
+    */
+   public String getMazeHash()
+   {
+      return mazeHash;
+   }
+
+   public void setMazeHash(String mazeHash)
+   {
+      this.mazeHash = mazeHash == null ? "" : mazeHash;
+   }
+
+   /**
+    * Get where the robot was after a number of steps. This only replays the
+    * steps since the last keyframe.
+    * @param step The number of steps taken, from 0 to {@link #size()}.
+    * @return The cell the robot was in.
+    */
+   public MazeCell getLocation(int step)
+   {
+      return unpackCell(seek(step));
+   }
+
+   /**
+    * Get the direction the robot was facing after a number of steps. This only
+    * replays the steps since the last keyframe.
+    * @param step The number of steps taken, from 0 to {@link #size()}.
+    * @return The direction the robot was facing.
+    */
+   public Direction getDirection(int step)
+   {
+      return DIRECTIONS[(int) seek(step) & 3];
+   }
+
+   /**
+    * Tells if the robot was on a diagonal after a number of steps. This only
+    * replays the steps since the last keyframe.
+    * @param step The number of steps taken, from 0 to {@link #size()}.
+    * @see RobotModelMaster#isDiagonal()
+    */
+   public boolean isDiagonal(int step)
+   {
+      return (seek(step) & DIAGONAL) != 0;
+   }
+
+   /**
+    * Finds the pose of the robot after a number of steps.
+    * @return The packed location, direction and diagonal.
+    */
+   private long seek(int step)
+   {
+      if (step == size)
+         return pose;
+      if (step < 0 || step > size)
+         throw new IndexOutOfBoundsException("Step " + step + " of " + size);
+      final int keyframe = step / KEYFRAME_INTERVAL;
+      long replayed = keyframes[keyframe];
+      // A crash can only be the last step, which is never replayed here.
+      for (int i = keyframe * KEYFRAME_INTERVAL; i < step; i++)
+         replayed = advance(replayed, getStep(i));
+      return replayed;
+   }
+
+   /**
+    * Packs a pose into one value. The direction takes the lowest 2 bits
+    * followed by the {@link #DIAGONAL} bits, the row takes bits 4 to 35 and
+    * the column the bits above that.
+    */
+   private static long pack(MazeCell cell, Direction direction, long diagonal)
+   {
+      return ((long) cell.getX() << 36) | ((long) cell.getY() << 4) | diagonal | direction.ordinal();
+   }
+
+   private static MazeCell unpackCell(long pose)
+   {
+      return MazeCell.valueOf((int) (pose >>> 36), (int) (pose >>> 4));
+   }
+
+   /**
+    * Creates a robot at the start of the maze.
+    * @param maze The maze the trace was recorded in.
+    * @return A new robot model that has not taken any steps.
+    */
+   public RobotModelMaster createModel(MazeModel maze)
+   {
+      return new RobotModelMaster(maze, start, startDirection);
+   }
+
+   /**
+    * Moves a robot through part of the trace. A step that crashes into a wall
+    * leaves the robot where it was.
+    * @param model A robot model that has taken the steps before
+    *           <code>from</code>.
+    * @param from The first step to take.
+    * @param to One past the last step to take.
+    */
+   public void replay(RobotModelMaster model, int from, int to)
+   {
+      for (int i = from; i < to; i++)
+      {
+         try
+         {
+            model.takeNextStep(getStep(i));
+         }
+         catch (RobotCrashedException e)
+         {
+            // The robot stays in place, as it did when it was recorded.
+         }
+      }
+   }
+
+   /**
+    * Write the trace to a file.
+    * @param file The file to create or replace.
+    */
+   public void write(File file) throws IOException
+   {
+      final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+      try
+      {
+         out.writeInt(MAGIC);
+         out.writeInt(VERSION);
+         out.writeUTF(description);
+         out.writeUTF(mazeHash);
+         out.writeInt(start.getX());
+         out.writeInt(start.getY());
+         out.writeByte(startDirection.ordinal());
+         out.writeInt(size);
+         out.writeBoolean(crashed);
+         // Keyframes are rebuilt when the trace is read.
+         for (int i = 0; i < (size + STEPS_PER_WORD - 1) / STEPS_PER_WORD; i++)
+            out.writeLong(steps[i]);
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   /**
+    * Read a trace written by {@link #write(File)}.
+    * @param file The trace file.
+    * @return The trace.
+    * @throws IOException If the file can not be read or is not a trace.
+    */
+   public static StepTrace read(File file) throws IOException
+   {
+      final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+      try
+      {
+         if (in.readInt() != MAGIC)
+            throw new IOException("Not a step trace");
+         final int version = in.readInt();
+         if (version != VERSION && version != 1)
+            throw new IOException("Unsupported step trace version " + version);
+         // Version 1 packed the four basic steps 2 bits each.
+         final int bits = version == 1 ? 2 : BITS_PER_STEP;
+         final int perWord = 64 / bits;
+         final String description = in.readUTF();
+         final String mazeHash = in.readUTF();
+         final int x = in.readInt();
+         final int y = in.readInt();
+         final int dir = in.readUnsignedByte();
+         final int size = in.readInt();
+         final boolean crashed = in.readBoolean();
+         if (x < 1 || y < 1 || dir >= DIRECTIONS.length || size < 0)
+            throw new IOException("Invalid step trace");
+
+         final StepTrace trace = new StepTrace(MazeCell.valueOf(x, y), DIRECTIONS[dir]);
+         trace.description = description;
+         trace.mazeHash = mazeHash;
+         long word = 0;
+         for (int i = 0; i < size; i++)
+         {
+            if (i % perWord == 0)
+               word = in.readLong();
+            final int ordinal = (int) (word >>> (i % perWord * bits)) & ( (1 << bits) - 1);
+            if (ordinal >= STEPS.length)
+               throw new IOException("Invalid step trace");
+            final RobotStep step = STEPS[ordinal];
+            if (crashed && i == size - 1)
+               trace.addCrash(step);
+            else
+               trace.add(step);
+         }
+         return trace;
+      }
+      finally
+      {
+         in.close();
+      }
+   }
+}
@@ -10,6 +10,7 @@ import java.awt.RenderingHints;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.awt.image.BufferedImage;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Iterator;
 import java.util.List;
@@ -18,12 +19,13 @@ import java.util.TreeSet;
 
 import javax.swing.JComponent;
 
+import maze.ai.RobotBase;
 import maze.model.CellSizeModel;
 import maze.model.Direction;
 import maze.model.MazeCell;
 import maze.model.MazeModel;
 import maze.model.RobotPathModel;
-import maze.util.Listener;
+import maze.util.BatchListener;
 
 /**
  * This swing component displays a graphical view of a maze. It also has the
@@ -33,7 +35,7 @@ import maze.util.Listener;
  * different themes to be used.
  * @author Luke Last
  */
-public class MazeView extends JComponent implements Listener<MazeCell>
+public class MazeView extends JComponent implements BatchListener<MazeCell>
 {
    private static final boolean PRINT_DEBUG = false;
    private static final long serialVersionUID = 3249468255178771818L;
@@ -202,7 +204,8 @@ public class MazeView extends JComponent implements Listener<MazeCell>
          System.out.println(System.currentTimeMillis() + " Drawing Cell: " + cell);
       this.painter.drawCellBackground(g, this.getCellAreaInner(cell));
 
-      if (this.model.getWall(cell, Direction.East).isSet())
+      final int walls = this.model.getWallMask(cell);
+      if ( (walls & MazeModel.EAST_MASK) != 0)
       {
          this.painter.drawWallSet(g, this.getWallArea(cell, Direction.East));
       }
@@ -210,7 +213,7 @@ public class MazeView extends JComponent implements Listener<MazeCell>
       {
          this.painter.drawWallEmpty(g, this.getWallArea(cell, Direction.East));
       }
-      if (this.model.getWall(cell, Direction.South).isSet())
+      if ( (walls & MazeModel.SOUTH_MASK) != 0)
       {
          this.painter.drawWallSet(g, this.getWallArea(cell, Direction.South));
       }
@@ -478,10 +481,12 @@ public class MazeView extends JComponent implements Listener<MazeCell>
          {
             for (int j = 1; j <= model.getSize().height; j++)
             {
+               local = understandingInt[i - 1][j - 1];
+               if (local == RobotBase.UNREACHABLE)
+                  continue;
                here = MazeCell.valueOf(i, j);
                g.setColor(Color.BLACK);
                final Point center = this.getCellCenterInner(here);
-               local = understandingInt[i - 1][j - 1];
                g.drawString(String.valueOf(local), center.x - 6, center.y + 2);
             }
          }
@@ -515,6 +520,26 @@ public class MazeView extends JComponent implements Listener<MazeCell>
       this.invalidateCell(cell);
    }
 
+   /**
+    * This event is triggered by a batch of changes to invalidate all the cells
+    * that changed with a single repaint.
+    */
+   @Override
+   public void eventsFired(final Collection<MazeCell> cells)
+   {
+      if (this.model == null)
+         return;
+      synchronized (this.invalidatedCells)
+      {
+         for (MazeCell cell : cells)
+         {
+            if (cell != null && cell.isInRange(this.model.getSize()))
+               this.invalidatedCells.add(cell);
+         }
+      }
+      super.repaint();
+   }
+
    /**
     * Gets all the cells that are adjacent to the given one.
     * @param cell The cell in question.
@@ -22,6 +22,8 @@ import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSlider;
+import javax.swing.JSpinner;
+import javax.swing.SpinnerNumberModel;
 import javax.swing.ListSelectionModel;
 import javax.swing.border.TitledBorder;
 import javax.swing.event.ChangeEvent;
@@ -30,6 +32,7 @@ import javax.swing.event.ChangeListener;
 import maze.Main;
 import maze.ai.RobotBase;
 import maze.gui.RobotAnimator.AnimationStates;
+import maze.util.Listener;
 
 /**
  * This is the main panel that displays the read only maze that is viewed when
@@ -45,6 +48,12 @@ public final class MazeViewerPage extends JPanel
    private final JList aiList = new JList();
    private final RobotAnimator animator = new RobotAnimator();
    private final BoundedRangeModel speedSliderModel;
+   private final JSlider replaySlider = new JSlider(0, 0, 0);
+   /**
+    * Set while the replay slider is being moved to follow the animation so it
+    * is not taken as a request to jump.
+    */
+   private boolean updatingReplaySlider = false;
 
    private final ImageIcon iconPlay = Main.getImageResource("gui/images/play.png");
    private final ImageIcon iconPlayOn = Main.getImageResource("gui/images/play-on.png");
@@ -123,6 +132,61 @@ public final class MazeViewerPage extends JPanel
          }
       });
 
+      //Number of steps to take for each frame drawn.
+      final SpinnerNumberModel stepsPerFrameModel = new SpinnerNumberModel(1, 1, 1000, 1);
+      final JPanel stepsPanel = new JPanel();
+      sidePanel.add(stepsPanel);
+      stepsPanel.setLayout(new BoxLayout(stepsPanel, BoxLayout.X_AXIS));
+      stepsPanel.setBorder(new TitledBorder("Steps Per Frame"));
+      stepsPanel.setToolTipText("<html>Draw only every Nth step of the robot.<br>"
+                                + "The robot jumps instead of moving smoothly.</html>");
+      stepsPanel.add(new JSpinner(stepsPerFrameModel));
+      stepsPerFrameModel.addChangeListener(new ChangeListener()
+      {
+         @Override
+         public void stateChanged(ChangeEvent e)
+         {
+            animator.setStepsPerFrame(stepsPerFrameModel.getNumber().intValue());
+         }
+      });
+
+      //Build the replay controls.
+      final JPanel replayPanel = new JPanel();
+      sidePanel.add(replayPanel);
+      replayPanel.setLayout(new BoxLayout(replayPanel, BoxLayout.Y_AXIS));
+      replayPanel.setBorder(new TitledBorder("Replay"));
+      replayPanel.add(new JCheckBox(this.computeAheadAction));
+      final Box scrubBox = Box.createHorizontalBox();
+      replayPanel.add(scrubBox);
+      scrubBox.add(this.replaySlider);
+      scrubBox.add(new JButton(this.jumpToEndAction));
+      this.replaySlider.setToolTipText("Drag to show the robot at any step.");
+      this.replaySlider.setEnabled(false);
+      this.replaySlider.addChangeListener(new ChangeListener()
+      {
+         @Override
+         public void stateChanged(ChangeEvent e)
+         {
+            if (!updatingReplaySlider)
+               animator.seek(replaySlider.getValue());
+         }
+      });
+      this.animator.addPositionListener(new Listener<Integer>()
+      {
+         @Override
+         public void eventFired(Integer event)
+         {
+            updatingReplaySlider = true;
+            replaySlider.setMaximum(animator.getTraceLength());
+            if (!replaySlider.getValueIsAdjusting())
+               replaySlider.setValue(animator.getPosition());
+            updatingReplaySlider = false;
+            replaySlider.setEnabled(animator.getTraceLength() > 0);
+            jumpToEndAction.setEnabled(animator.getTraceLength() > 0);
+            setAnimationButtonStates();
+         }
+      });
+
       //Build the simulation/animation control buttons.
       final JPanel controlPanel = new JPanel();
       sidePanel.add(controlPanel);
@@ -308,9 +372,53 @@ public final class MazeViewerPage extends JPanel
       Main.getPrimaryFrameInstance().setSimulation(false);
       this.myMazeView.setRobotPosition(null, 0);
       this.myMazeView.invalidateAllCells();
+      this.updatingReplaySlider = true;
+      this.replaySlider.setValue(0);
+      this.replaySlider.setMaximum(0);
+      this.updatingReplaySlider = false;
+      this.replaySlider.setEnabled(false);
+      this.jumpToEndAction.setEnabled(false);
       this.setAnimationButtonStates();
    }
 
+   /**
+    * Choose whether simulations are run ahead and then replayed.
+    */
+   private final Action computeAheadAction = new AbstractAction()
+   {
+      {
+         this.putValue(Action.NAME, "Compute Ahead");
+         this.putValue(Action.SHORT_DESCRIPTION,
+                       "<html>Run the whole simulation first and then replay it.<br />"
+                             + "The replay can be jumped to the end or to any step.</html>");
+         this.putValue(Action.SELECTED_KEY, false);
+      }
+
+      @Override
+      public void actionPerformed(ActionEvent e)
+      {
+         animator.setComputeAhead(this.getValue(Action.SELECTED_KEY) == Boolean.TRUE);
+      }
+   };
+
+   /**
+    * Jump to the end of a replay.
+    */
+   private final Action jumpToEndAction = new AbstractAction()
+   {
+      {
+         this.putValue(Action.NAME, "End");
+         this.putValue(Action.SHORT_DESCRIPTION, "Show the robot after its last step.");
+         this.setEnabled(false);
+      }
+
+      @Override
+      public void actionPerformed(ActionEvent e)
+      {
+         animator.seekToEnd();
+      }
+   };
+
    /**
     * Control whether fog of war is drawn.
     */
@@ -86,8 +86,8 @@ public final class PrimaryFrame extends JFrame
    /**
     * Bring up the open file dialog and based on the file type selected hand it
     * off to the appropriate panel. The 2 groups of files are AI scripts and
-    * maze files. AI scripts are python .py files and maze maps can be .maz or
-    * .mz2.
+    * maze files. AI scripts are python .py files and maze maps can be .maz,
+    * .mz2 or .mz3.
     */
    private void doOpenFile()
    {
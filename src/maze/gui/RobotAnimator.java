@@ -7,11 +7,16 @@ import javax.swing.JOptionPane;
 import maze.Main;
 import maze.ai.RobotBase;
 import maze.ai.RobotController;
-import maze.model.Direction;
+import maze.ai.RobotMove;
+import maze.ai.StepTrace;
 import maze.model.RobotModelMaster;
+import maze.util.Listener;
+import maze.util.ListenerSubject;
 
 /**
- * Animates a MicroMouse robot against a maze view.
+ * Animates a MicroMouse robot against a maze view. In compute ahead mode the
+ * whole simulation is run first and the recorded steps are replayed, which
+ * allows jumping to the end or to any step.
  * @author Luke Last
  */
 public final class RobotAnimator implements Runnable
@@ -63,6 +68,31 @@ public final class RobotAnimator implements Runnable
     * Number of frames of animation to display between steps.
     */
    private int movesPerStep = 10;
+   /**
+    * Number of steps to take between rendered frames.
+    */
+   private volatile int stepsPerFrame = 1;
+   /**
+    * Run the whole simulation first and then replay it.
+    */
+   private volatile boolean computeAhead = false;
+   /**
+    * The recorded simulation being replayed, or null if the animation is not a
+    * replay.
+    */
+   private volatile StepTrace trace;
+   /**
+    * The number of steps the robot has taken in the animation.
+    */
+   private volatile int position;
+   /**
+    * A step of the replay to jump to or -1.
+    */
+   private volatile int seekTarget = -1;
+   /**
+    * Fired after the robot moves.
+    */
+   private final ListenerSubject<Integer> positionEvents = new ListenerSubject<Integer>();
 
    /**
     * The thread running our animation loop.
@@ -111,16 +141,113 @@ public final class RobotAnimator implements Runnable
       return this.currentState;
    }
 
+   /**
+    * Get the number of steps taken at a time between rendered frames.
+    */
+   public int getStepsPerFrame()
+   {
+      return this.stepsPerFrame;
+   }
+
+   /**
+    * Tells if the next animation runs the whole simulation first and then
+    * replays it.
+    */
+   public boolean isComputeAhead()
+   {
+      return this.computeAhead;
+   }
+
+   /**
+    * Get the number of steps in the recorded simulation.
+    * @return The number of steps or 0 if the animation is not a replay.
+    */
+   public int getTraceLength()
+   {
+      final StepTrace copy = this.trace;
+      return copy == null ? 0 : copy.size();
+   }
+
+   /**
+    * Get the number of steps the robot has taken in the animation.
+    */
+   public int getPosition()
+   {
+      return this.position;
+   }
+
+   /**
+    * Registers a listener that is called on the event dispatch thread after
+    * the robot has moved or the animation has paused itself. The event is the
+    * position at the time of the first change that has not been delivered
+    * yet, use {@link #getPosition()} for the latest.
+    */
+   public void addPositionListener(Listener<Integer> listener)
+   {
+      this.positionEvents.addDelayedListener(listener);
+   }
+
+   /**
+    * Jump to a step of a replay. This does nothing if the animation is not a
+    * replay.
+    * @param step The number of steps the robot should have taken.
+    */
+   public void seek(int step)
+   {
+      final StepTrace copy = this.trace;
+      if (copy != null)
+         this.seekTarget = Math.max(0, Math.min(step, copy.size()));
+   }
+
+   /**
+    * Jump to the end of a replay.
+    */
+   public void seekToEnd()
+   {
+      this.seek(Integer.MAX_VALUE);
+   }
+
    /**
     * This runs in a background thread and handles the animation loop.
     */
    @Override
    public void run()
+   {
+      this.position = 0;
+      try
+      {
+         if (this.computeAhead)
+            this.runTrace();
+         else
+            this.runLive();
+      }
+      finally
+      {
+         this.robot.finish();
+      }
+      if (this.robot.isRobotCrashed() && this.trace == null)
+      {
+         JOptionPane.showMessageDialog(Main.getPrimaryFrameInstance(),
+                                       this.robot.getCrashException().getMessage());
+      }
+      this.trace = null;
+      this.view.setRobotPathModel(null);
+      this.view.loadUnderstanding(null);
+      this.view.loadUnderstandingDir(null);
+      if (this.finishedCallback != null)
+      {
+         this.finishedCallback.run();
+      }
+      this.processingThread = null;
+   }
+
+   /**
+    * Animates the robot while the AI algorithm decides each step.
+    */
+   private void runLive()
    {
       final RobotModelMaster model = this.robot.getRobotModelMaster();
-      this.view.setRobotPosition(this.view.getCellCenterInner(model.getCurrentLocation()),
-                                 model.getDirection().getRadians());
-      this.view.invalidateAllCells();
+      this.showRobot(model);
       this.view.setRobotPathModel(model.getRobotPathModel());
       this.setViewAttributes();
       while (this.currentState != AnimationStates.Stopped && this.robot.isRobotDone() == false)
@@ -129,37 +256,23 @@ public final class RobotAnimator implements Runnable
          {
             //Get the robots current position.
             final Point srcLocation = this.view.getCellCenterInner(model.getCurrentLocation());
-            final Direction srcDirection = model.getDirection();
-            final double srcRotation = srcDirection.getRadians();
-
-            robot.nextStep(); //Move robot.
-
-            //Get the robots new position.
-            final Point destLocation = this.view.getCellCenterInner(model.getCurrentLocation());
-            final Direction destDirection = model.getDirection();
-            //Set our new rotation based on which way we turned.
-            final double destRotation;
-            if (srcDirection.getLeft() == destDirection)
-               destRotation = srcRotation - Math.PI / 2;
-            else if (srcDirection.getRight() == destDirection)
-               destRotation = srcRotation + Math.PI / 2;
-            else
-               destRotation = srcRotation; //Didn't rotate.
+            final double srcRotation = model.getRadians();
 
-            //Increment is fraction at a time to the destination position.
-            for (int inc = 1; inc <= this.movesPerStep; inc++)
+            int count = 0;
+            int moves = 0;
+            do
             {
-               final double percentage = (double) inc / this.movesPerStep;
-               int x = (int) (srcLocation.x + (destLocation.x - srcLocation.x) * percentage);
-               int y = (int) (srcLocation.y + (destLocation.y - srcLocation.y) * percentage);
-               double rot = srcRotation +
-                            (destRotation - srcRotation) *
-                            accelerationTransform(percentage);
-               this.view.setRobotPosition(new Point(x, y), rot);
-               Thread.sleep(this.sleepTime);
+               final RobotMove move = robot.nextMove(); //Move robot.
+               // A step that ran out of time does not move the robot.
+               count += move == null ? 0 : move.getCount();
+               moves++;
             }
+            while (count < this.stepsPerFrame && this.robot.isRobotDone() == false);
+            this.position = this.robot.getStepCount();
 
+            this.animateMove(model, srcLocation, srcRotation, moves, count);
             this.setViewAttributes();
+            this.positionEvents.notifyListeners(this.position);
 
             while (this.currentState == AnimationStates.Paused)
             {
@@ -172,23 +285,161 @@ public final class RobotAnimator implements Runnable
          }
          catch (Exception e)
          {
-            e.printStackTrace();
-            JOptionPane.showMessageDialog(Main.getPrimaryFrameInstance(),
-                                          e.getMessage(),
-                                          "Error",
-                                          JOptionPane.ERROR_MESSAGE,
-                                          null);
-            this.currentState = AnimationStates.Stopped;
+            this.showError(e);
          }
       }
-      this.view.setRobotPathModel(null);
-      this.view.loadUnderstanding(null);
-      this.view.loadUnderstandingDir(null);
-      if (this.finishedCallback != null)
+   }
+
+   /**
+    * Runs the whole simulation without any animation and then replays the
+    * recorded steps. The replay pauses at the end so it can be scrubbed until
+    * the animation is stopped.
+    */
+   private void runTrace()
+   {
+      this.trace = this.robot.runToEnd();
+      final StepTrace replay = this.trace;
+      RobotModelMaster model = replay.createModel(this.view.getModel());
+      this.showRobot(model);
+      this.view.setRobotPathModel(model.getRobotPathModel());
+      this.setTraceViewAttributes();
+      this.positionEvents.notifyListeners(this.position);
+      boolean endReported = false;
+      while (this.currentState != AnimationStates.Stopped)
       {
-         this.finishedCallback.run();
+         try
+         {
+            final int target = this.seekTarget;
+            if (target >= 0)
+            {
+               this.seekTarget = -1;
+               if (target < this.position)
+               {
+                  // Paths can not be undone so start over.
+                  model = replay.createModel(this.view.getModel());
+                  this.view.setRobotPathModel(model.getRobotPathModel());
+                  this.position = 0;
+               }
+               replay.replay(model, this.position, target);
+               this.position = target;
+               this.showRobot(model);
+               this.setTraceViewAttributes();
+               this.positionEvents.notifyListeners(this.position);
+            }
+            else if (this.position >= replay.size())
+            {
+               if (this.currentState == AnimationStates.Running)
+               {
+                  this.currentState = AnimationStates.Paused;
+                  this.positionEvents.notifyListeners(this.position);
+               }
+               if (!endReported && replay.isCrashed())
+               {
+                  JOptionPane.showMessageDialog(Main.getPrimaryFrameInstance(),
+                                                this.robot.getCrashException().getMessage());
+               }
+               endReported = true;
+               Thread.sleep(100);
+            }
+            else if (this.currentState == AnimationStates.Paused)
+            {
+               Thread.sleep(100);
+            }
+            else
+            {
+               final Point srcLocation = this.view.getCellCenterInner(model.getCurrentLocation());
+               final double srcRotation = model.getRadians();
+               final int count = Math.min(this.stepsPerFrame, replay.size() - this.position);
+               replay.replay(model, this.position, this.position + count);
+               this.position += count;
+               this.animateMove(model, srcLocation, srcRotation, count, count);
+               this.setTraceViewAttributes();
+               this.positionEvents.notifyListeners(this.position);
+            }
+         }
+         catch (InterruptedException e)
+         {
+            // Means the thread is being shutdown.
+         }
+         catch (Exception e)
+         {
+            this.showError(e);
+         }
       }
-      this.processingThread = null;
+   }
+
+   /**
+    * Moves the robot in the view from where it was to where the model is now.
+    * A single move is shown with intermediate frames, a run down a straight
+    * gliding across all of its cells. Several moves at once are shown as a
+    * single frame.
+    * @param model The robot after it has moved.
+    * @param srcLocation Where the robot was in view coordinates.
+    * @param srcRotation The angle the robot was facing.
+    * @param moves The number of moves taken.
+    * @param steps The number of steps taken, more than the moves if a move
+    *           was a run of several cells.
+    */
+   private void animateMove(RobotModelMaster model,
+                            Point srcLocation,
+                            double srcRotation,
+                            int moves,
+                            int steps) throws InterruptedException
+   {
+      if (moves > 1)
+      {
+         this.showRobot(model);
+         Thread.sleep(this.sleepTime);
+         return;
+      }
+
+      //Get the robots new position.
+      final Point destLocation = this.view.getCellCenterInner(model.getCurrentLocation());
+      //Turn the short way around, 90 or 45 degrees either way.
+      double turn = model.getRadians() - srcRotation;
+      if (turn > Math.PI)
+         turn -= 2 * Math.PI;
+      else if (turn < -Math.PI)
+         turn += 2 * Math.PI;
+      final double destRotation = srcRotation + turn;
+
+      //Increment is fraction at a time to the destination position.
+      final int frames = this.movesPerStep * steps;
+      for (int inc = 1; inc <= frames; inc++)
+      {
+         final double percentage = (double) inc / frames;
+         int x = (int) (srcLocation.x + (destLocation.x - srcLocation.x) * percentage);
+         int y = (int) (srcLocation.y + (destLocation.y - srcLocation.y) * percentage);
+         double rot = srcRotation +
+                      (destRotation - srcRotation) *
+                      accelerationTransform(percentage);
+         this.view.setRobotPosition(new Point(x, y), rot);
+         Thread.sleep(this.sleepTime);
+      }
+   }
+
+   /**
+    * Puts the robot in the view where the model is without any animation.
+    */
+   private void showRobot(RobotModelMaster model)
+   {
+      this.view.setRobotPosition(this.view.getCellCenterInner(model.getCurrentLocation()),
+                                 model.getRadians());
+      this.view.invalidateAllCells();
+   }
+
+   /**
+    * Reports an unexpected error and stops the animation.
+    */
+   private void showError(Exception e)
+   {
+      e.printStackTrace();
+      JOptionPane.showMessageDialog(Main.getPrimaryFrameInstance(),
+                                    e.getMessage(),
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE,
+                                    null);
+      this.currentState = AnimationStates.Stopped;
    }
 
    /**
@@ -199,6 +450,24 @@ public final class RobotAnimator implements Runnable
       this.sleepTime = 1000 / framesPerSecond;
    }
 
+   /**
+    * Take this many steps between rendered frames. When more than one step is
+    * taken the robot jumps instead of moving smoothly.
+    */
+   public void setStepsPerFrame(int stepsPerFrame)
+   {
+      this.stepsPerFrame = Math.max(1, stepsPerFrame);
+   }
+
+   /**
+    * Choose whether the next animation runs the whole simulation first so it
+    * can be replayed at any speed, jumped to the end or scrubbed to any step.
+    */
+   public void setComputeAhead(boolean computeAhead)
+   {
+      this.computeAhead = computeAhead;
+   }
+
    public void setMovesPerStep(int movesPerStep)
    {
       if (movesPerStep < 1)
@@ -225,6 +494,21 @@ public final class RobotAnimator implements Runnable
       }
    }
 
+   /**
+    * Loads information for drawing during a replay. The AI algorithm has
+    * already finished so its information only matches the last step.
+    */
+   private void setTraceViewAttributes()
+   {
+      if (this.position >= this.trace.size())
+         this.setViewAttributes();
+      else
+      {
+         this.view.loadUnderstanding(null);
+         this.view.loadUnderstandingDir(null);
+      }
+   }
+
    /**
     * Loads information from the AI algorithm in the controller to the view for
     * drawing.
@@ -238,7 +522,8 @@ public final class RobotAnimator implements Runnable
    /**
     * Start and initialize this.
     * @param mazeView The view to be controlled by this animator.
-    * @param robotAlgorithm The AI algorithm to use for the animation.
+    * @param robotAlgorithm The AI algorithm to use for the animation. A new
+    *           instance of it is run so the one given is not changed.
     * @param finishedCallback This is called after the animation is stopped.
     */
    public void start(MazeView mazeView, RobotBase robotAlgorithm, Runnable finishedCallback)
@@ -258,7 +543,9 @@ public final class RobotAnimator implements Runnable
       }
       this.view = mazeView;
       this.finishedCallback = finishedCallback;
-      this.robot = new RobotController(this.view.getModel(), robotAlgorithm);
+      this.robot = new RobotController(this.view.getModel(), robotAlgorithm.newInstance());
+      this.trace = null;
+      this.seekTarget = -1;
       this.processingThread = new Thread(this, "Robot Animator");
       this.processingThread.setDaemon(true);
       this.currentState = AnimationStates.Running;
@@ -20,9 +20,9 @@ import javax.swing.event.DocumentEvent;
 import javax.swing.event.DocumentListener;
 import javax.swing.text.BadLocationException;
 
+import maze.ai.PythonScript;
 import maze.ai.PythonScriptRobot;
 import maze.ai.RobotBase;
-import maze.ai.RobotStep;
 import maze.model.Direction;
 import maze.model.MazeCell;
 import maze.model.MazeModel;
@@ -50,10 +50,14 @@ public final class ScriptEditor extends RTextScrollPane implements ActionListene
    };
    public static final String NEW_SCRIPT_NAME = "New Python Script";
    private static final String PYTHON_FILE_EXTENSION = ".py";
-   private static final String ROBOT_MODEL_VAR_NAME = "maze";
    private final javax.swing.Timer codeEvalTimer = new javax.swing.Timer(1000, this);
    private transient RobotBase connectedRobot;
    private PythonInterpreter currentInterpreter;
+   /**
+    * The script compiled from {@link #compiledText}.
+    */
+   private PythonScript compiledScript;
+   private String compiledText;
    private boolean isDirty = false;
 
    /**
@@ -214,6 +218,39 @@ public final class ScriptEditor extends RTextScrollPane implements ActionListene
       return currentInterpreter;
    }
 
+   /**
+    * Gets the code from the editor compiled so it can be run by a robot. It is
+    * only compiled again when the code has changed.
+    * @param displayError Show a message if the script can not be compiled.
+    * @return The compiled script or null if it has an error.
+    */
+   public synchronized PythonScript getCompiledScript(boolean displayError)
+   {
+      final String text = this.textArea.getText();
+      if (this.compiledScript == null || !text.equals(this.compiledText))
+      {
+         this.compiledScript = null;
+         try
+         {
+            this.compiledScript = new PythonScript(text, this.toString());
+            this.compiledText = text;
+         }
+         catch (Exception e)
+         {
+            e.printStackTrace();
+            if (displayError)
+            {
+               JOptionPane.showMessageDialog(this,
+                                             "There is an error in the Python AI script.\n" +
+                                                   e.toString(),
+                                             "Script Error",
+                                             JOptionPane.ERROR_MESSAGE);
+            }
+         }
+      }
+      return this.compiledScript;
+   }
+
    /**
     * Creates a new Python interpreter and sets some initial values like imports
     * and the maze model variable.
@@ -221,41 +258,14 @@ public final class ScriptEditor extends RTextScrollPane implements ActionListene
     */
    private PythonInterpreter getInitializedInterpreter()
    {
-      final PythonInterpreter interp = new PythonInterpreter();
-      interp.exec("from maze.ai import RobotStep");
-      interp.exec("from maze.model import Direction, MazeCell");
-      interp.set("Forward", RobotStep.MoveForward);
-      interp.set("Back", RobotStep.MoveBackward);
-      interp.set("Left", RobotStep.RotateLeft);
-      interp.set("Right", RobotStep.RotateRight);
+      final PythonInterpreter interp = PythonScript.createInterpreter();
       //We create and set a dummy maze variable so the user can analyze its methods.
-      interp.set(ROBOT_MODEL_VAR_NAME, new RobotModel(new RobotModelMaster(new MazeModel(),
+      interp.set(PythonScript.ROBOT_MODEL_VAR_NAME, new RobotModel(new RobotModelMaster(new MazeModel(),
                                                                            MazeCell.valueOf(1, 16),
                                                                            Direction.North)));
       return interp;
    }
 
-   /**
-    * Used to adapt this script into robot script.
-    * @see PythonScriptRobot
-    * @return Next step.
-    */
-   public RobotStep getNextStep()
-   {
-      try
-      {
-         final PyObject function = this.currentInterpreter.get("nextStep");
-         Object result = function.__call__();
-         return RobotStep.valueOf(result.toString());
-      }
-      catch (Exception ex)
-      {
-         ex.printStackTrace();
-         //throw new RuntimeException(ex);
-         return RobotStep.MoveForward;
-      }
-   }
-
    /**
     * Get the string token that is currently selected or that the cursor is on.
     * @return The selected text or an empty string on error or if nothing is
@@ -435,18 +445,6 @@ public final class ScriptEditor extends RTextScrollPane implements ActionListene
       this.isDirty = isDirty;
    }
 
-   public void setRobotModel(RobotModel model)
-   {
-      try
-      {
-         this.currentInterpreter.set(ROBOT_MODEL_VAR_NAME, model);
-      }
-      catch (Exception ex)
-      {
-         ex.printStackTrace();
-      }
-   }
-
    @Override
    public String toString()
    {
@@ -5,10 +5,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
+import java.util.List;
 
 import javax.swing.Box;
 import javax.swing.BoxLayout;
+import javax.swing.JButton;
 import javax.swing.JComboBox;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JSplitPane;
@@ -18,20 +21,25 @@ import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 import javax.swing.table.DefaultTableModel;
 
+import maze.Main;
 import maze.ai.RobotBase;
 import maze.model.MazeInfo;
 import maze.model.MazeModel;
+import maze.sim.ResultCache;
+import maze.sim.Simulation;
+import maze.sim.SimulationResult;
+import maze.sim.Tournament;
 
 /**
  * Creates a panel that allows selection of a maze and algorithm and then
  * displays statistics about them.
- * @see StatTracker
+ * @see Simulation
  * @author Vincent Frey
  * @author Luke Last
  */
 public class StatViewPage extends JPanel
 {
-   private StatTracker tracker;
+   private SimulationResult result;
    private MazeModel maze;
    private RobotBase algorithm;
    private final DefaultTableModel statTableModel;
@@ -97,6 +105,18 @@ public class StatViewPage extends JPanel
 
       selectionBox.add(algorithmCombo);
 
+      final JButton tournamentButton = new JButton("Compare All Mazes and Algorithms");
+      tournamentButton.setToolTipText("<html>Runs every algorithm on every maze using all processor cores<br>"
+                                      + "and displays a table of the results.</html>");
+      tournamentButton.addActionListener(new ActionListener()
+      {
+         public void actionPerformed(ActionEvent action)
+         {
+            runTournament(tournamentButton);
+         }
+      });
+      selectionBox.add(tournamentButton);
+
       JPanel rightPanel = new JPanel();
       JScrollPane leftSide = new JScrollPane(mazeView);
       final JSplitPane statSplitPane = new JSplitPane(JSplitPane.HORIZONTAL_SPLIT,
@@ -119,7 +139,9 @@ public class StatViewPage extends JPanel
       String bestTurns = "Number of Turns Taken: ";
       String bestTotal = "Total Number of Cells Traversed to Complete Best Run: ";
       String bestTotalTurns = "Number of Turns Taken: ";
-      String[] rowHeadings = new String[7];
+      String bestSeconds = "Estimated Time of Best Run (s): ";
+      String speedSeconds = "Estimated Time of Fastest Run Through Explored Cells (s): ";
+      String[] rowHeadings = new String[9];
       rowHeadings[0] = uniqueString;
       rowHeadings[1] = firstSquares;
       rowHeadings[2] = firstTurns;
@@ -127,6 +149,8 @@ public class StatViewPage extends JPanel
       rowHeadings[4] = bestTurns;
       rowHeadings[5] = bestTotal;
       rowHeadings[6] = bestTotalTurns;
+      rowHeadings[7] = bestSeconds;
+      rowHeadings[8] = speedSeconds;
 
       statTableModel.addColumn("Statistics of Interest", rowHeadings);
       statTableModel.addColumn("Values");
@@ -183,27 +207,30 @@ public class StatViewPage extends JPanel
 
       if (this.algorithm != null && this.maze != null)
       {
-         if (this.tracker == null)
-         {
-            this.tracker = new StatTracker(algorithm, maze);
-         }
-         else
-         {
-            this.tracker.reload(this.algorithm, this.maze);
-         }
-         //Set the table stat values from the tracker.
-         if (this.tracker != null)
+         final MazeInfo mi = (MazeInfo) mazeList.getList().getSelectedValue();
+         this.result = ResultCache.getInstance().run(mi == null ? null : mi.getName(),
+                                                     this.maze,
+                                                     this.algorithm.newInstance());
+         //Set the table stat values from the simulation result.
+         if (this.result != null)
          {
+            if (this.result.getOutcome() == SimulationResult.Outcome.Crashed ||
+                this.result.getOutcome() == SimulationResult.Outcome.Error)
+            {
+               JOptionPane.showMessageDialog(this, this.result.getMessage());
+            }
             //First lets display the table
-            statTableModel.setValueAt(String.valueOf(tracker.getTotalTraversed()), 0, 1);
-            if (tracker.wasCenterFound())
+            statTableModel.setValueAt(String.valueOf(result.getTotalTraversed()), 0, 1);
+            if (result.wasCenterFound())
             {
-               statTableModel.setValueAt(String.valueOf(tracker.getFirstRunCells()), 1, 1);
-               statTableModel.setValueAt(String.valueOf(tracker.getFirstRunTurns()), 2, 1);
-               statTableModel.setValueAt(String.valueOf(tracker.getBestRunCells()), 3, 1);
-               statTableModel.setValueAt(String.valueOf(tracker.getBestRunTurns()), 4, 1);
-               statTableModel.setValueAt(String.valueOf(tracker.getThroughBestRunCells()), 5, 1);
-               statTableModel.setValueAt(String.valueOf(tracker.getThroughBestRunTurns()), 6, 1);
+               statTableModel.setValueAt(String.valueOf(result.getFirstRunCells()), 1, 1);
+               statTableModel.setValueAt(String.valueOf(result.getFirstRunTurns()), 2, 1);
+               statTableModel.setValueAt(String.valueOf(result.getBestRunCells()), 3, 1);
+               statTableModel.setValueAt(String.valueOf(result.getBestRunTurns()), 4, 1);
+               statTableModel.setValueAt(String.valueOf(result.getThroughBestRunCells()), 5, 1);
+               statTableModel.setValueAt(String.valueOf(result.getThroughBestRunTurns()), 6, 1);
+               statTableModel.setValueAt(formatSeconds(result.getBestRunSeconds()), 7, 1);
+               statTableModel.setValueAt(formatSeconds(result.getSpeedRunSeconds()), 8, 1);
             }
             else
             {
@@ -213,10 +240,12 @@ public class StatViewPage extends JPanel
                statTableModel.setValueAt("N/A", 4, 1);
                statTableModel.setValueAt("N/A", 5, 1);
                statTableModel.setValueAt("N/A", 6, 1);
+               statTableModel.setValueAt("N/A", 7, 1);
+               statTableModel.setValueAt("N/A", 8, 1);
             }
 
             //Now lets display the mazeView
-            this.mazeView.setRobotPathModel(this.tracker.getRobotPathModel());
+            this.mazeView.setRobotPathModel(this.result.getRobotPathModel());
             this.mazeView.setModel(maze);
             // Tell the maze view what to draw.
             this.mazeView.setDrawFog(true);
@@ -228,4 +257,75 @@ public class StatViewPage extends JPanel
       }
    }
 
-}
\ No newline at end of file
+   /**
+    * Formats an estimated run time for the tables.
+    */
+   private static String formatSeconds(double seconds)
+   {
+      return Double.isNaN(seconds) ? "N/A" : String.format("%.2f", seconds);
+   }
+
+   /**
+    * Runs every algorithm against every maze in a background thread and then
+    * displays the results in a dialog.
+    * @param button This button is disabled while the tournament is running.
+    */
+   private void runTournament(final JButton button)
+   {
+      final Tournament tournament = new Tournament();
+      tournament.addMazes(Main.getPrimaryFrameInstance().getMazeInfoModel());
+      tournament.addAlgorithms(RobotBase.getRobotListModel());
+      tournament.setResultCache(ResultCache.getInstance());
+      button.setEnabled(false);
+      final Thread thread = new Thread("Tournament")
+      {
+         @Override
+         public void run()
+         {
+            final List<SimulationResult> results = tournament.run();
+            SwingUtilities.invokeLater(new Runnable()
+            {
+               @Override
+               public void run()
+               {
+                  button.setEnabled(true);
+                  displayTournamentResults(results);
+               }
+            });
+         }
+      };
+      thread.setDaemon(true);
+      thread.start();
+   }
+
+   /**
+    * Shows a table of tournament results in a dialog.
+    */
+   private void displayTournamentResults(List<SimulationResult> results)
+   {
+      final DefaultTableModel model = new DefaultTableModel(new String[]
+      {
+         "Maze", "Algorithm", "Outcome", "Steps", "First Run", "Best Run", "Best Run (s)",
+         "Fastest Run (s)", "Time (ms)"
+      }, 0);
+      for (SimulationResult result : results)
+      {
+         model.addRow(new Object[]
+         {
+            result.getMazeName(), result.getAlgorithmName(), result.getOutcome(),
+            result.getTotalSteps(),
+            result.wasCenterFound() ? String.valueOf(result.getFirstRunCells()) : "N/A",
+            result.wasCenterFound() ? String.valueOf(result.getBestRunCells()) : "N/A",
+            formatSeconds(result.getBestRunSeconds()), formatSeconds(result.getSpeedRunSeconds()),
+            result.isCached() ? "cached" : String.format("%.1f", result.getElapsedNanos() / 1e6)
+         });
+      }
+      final JTable table = new JTable(model);
+      table.setEnabled(false);
+      JOptionPane.showMessageDialog(this,
+                                    new JScrollPane(table),
+                                    "Tournament Results",
+                                    JOptionPane.PLAIN_MESSAGE);
+   }
+
+}
@@ -239,10 +239,19 @@ public final class EditableMazeView extends MazeView
          }
       }
 
-      // Set or clear the walls we determined to be under the template.
-      for (MazeWall ms : walls)
+      // Set or clear the walls we determined to be under the template, the
+      // view repaints once for the whole template.
+      model.beginBatch();
+      try
+      {
+         for (MazeWall ms : walls)
+         {
+            ms.set(setWall);
+         }
+      }
+      finally
       {
-         ms.set(setWall);
+         model.endBatch();
       }
    }
 
@@ -400,7 +400,7 @@ public class MazeEditorPage extends JPanel implements MenuControlled
    @Override
    public String getFileTypeDescription()
    {
-      return "Maze files (.maz, .mz2)";
+      return "Maze files (.maz, .mz2, .mz3)";
    }
 
    /**
@@ -411,7 +411,7 @@ public class MazeEditorPage extends JPanel implements MenuControlled
    public boolean isMyFileType(File file)
    {
       String lower = file.getName().toLowerCase();
-      if (lower.endsWith(".maz") || lower.endsWith(".mz2"))
+      if (lower.endsWith(".maz") || lower.endsWith(".mz2") || lower.endsWith(".mz3"))
          return true;
       else
          return false;
@@ -0,0 +1,137 @@
+package maze.model;
+
+/**
+ * Numbers the cells of a maze of a given size so they can be kept in flat
+ * arrays of primitives instead of being passed around as {@link MazeCell}
+ * objects. A cell index is <code>(x - 1) + (y - 1) * width</code>, the same as
+ * {@link MazeModel#getCellIndex(int, int)}. The index of the neighbor in every
+ * direction is computed once when the table is created. Instances are
+ * immutable, get one for a maze with {@link MazeModel#getCellIndexTable()}.
+ */
+public final class CellIndexTable
+{
+   /**
+    * Returned for a neighbor that would be outside of the maze.
+    */
+   public static final int NONE = -1;
+
+   private final int width;
+   private final int height;
+   /**
+    * Neighbor indexes, 4 per cell in direction index order.
+    */
+   private final int[] neighbors;
+
+   /**
+    * Build the table for a maze size.
+    * @param width Number of columns.
+    * @param height Number of rows.
+    */
+   public CellIndexTable(int width, int height)
+   {
+      this.width = width;
+      this.height = height;
+      this.neighbors = new int[width * height * 4];
+      for (int y = 0; y < height; y++)
+      {
+         for (int x = 0; x < width; x++)
+         {
+            final int index = x + y * width;
+            final int offset = index * 4;
+            neighbors[offset + MazeModel.NORTH] = y > 0 ? index - width : NONE;
+            neighbors[offset + MazeModel.EAST] = x < width - 1 ? index + 1 : NONE;
+            neighbors[offset + MazeModel.SOUTH] = y < height - 1 ? index + width : NONE;
+            neighbors[offset + MazeModel.WEST] = x > 0 ? index - 1 : NONE;
+         }
+      }
+   }
+
+   /**
+    * Get the number of cells, one more than the largest index.
+    */
+   public int getCellCount()
+   {
+      return width * height;
+   }
+
+   public int getWidth()
+   {
+      return width;
+   }
+
+   public int getHeight()
+   {
+      return height;
+   }
+
+   /**
+    * Get the index of a cell.
+    * @param x Column starting at 1.
+    * @param y Row starting at 1.
+    * @return The cell index.
+    */
+   public int indexOf(int x, int y)
+   {
+      return (x - 1) + (y - 1) * width;
+   }
+
+   /**
+    * Get the index of a cell.
+    * @param cell A cell in the maze.
+    * @return The cell index.
+    */
+   public int indexOf(MazeCell cell)
+   {
+      return indexOf(cell.getX(), cell.getY());
+   }
+
+   /**
+    * Get the column of an index.
+    * @return The X coordinate starting at 1.
+    */
+   public int getX(int index)
+   {
+      return index % width + 1;
+   }
+
+   /**
+    * Get the row of an index.
+    * @return The Y coordinate starting at 1.
+    */
+   public int getY(int index)
+   {
+      return index / width + 1;
+   }
+
+   /**
+    * Get the cell of an index.
+    * @param index The cell index.
+    * @return The cell.
+    */
+   public MazeCell getCell(int index)
+   {
+      return MazeCell.valueOf(getX(index), getY(index));
+   }
+
+   /**
+    * Get the index of a neighboring cell.
+    * @param index The cell index.
+    * @param dir Direction index of the neighbor.
+    * @return The neighbor index or {@link #NONE} if it is outside of the maze.
+    */
+   public int neighbor(int index, int dir)
+   {
+      return neighbors[index * 4 + dir];
+   }
+
+   /**
+    * Get the index of a neighboring cell.
+    * @param index The cell index.
+    * @param direction Direction of the neighbor.
+    * @return The neighbor index or {@link #NONE} if it is outside of the maze.
+    */
+   public int neighbor(int index, Direction direction)
+   {
+      return neighbors[index * 4 + direction.getIndex()];
+   }
+}
@@ -13,21 +13,53 @@ public final class MazeCell implements Comparable<MazeCell>, Serializable
 {
    /**
     * Cache for commonly used objects. First index is the X coordinate, second
-    * index is the Y coordinate.
+    * index is the Y coordinate. It starts with the default 16 x 16 maze and is
+    * replaced by a larger copy when a bigger maze is created, so cells keep
+    * their identity as the cache grows.
     */
-   private static transient final MazeCell[][] cache = new MazeCell[16][16];
+   private static volatile MazeCell[][] cache = new MazeCell[0][0];
+   /**
+    * Mazes larger than this in either dimension are only cached up to this
+    * size. Cells beyond it are created on each request.
+    */
+   static final int MAX_CACHED_SIZE = 512;
    private static final long serialVersionUID = -3456709665929349825L;
 
    static
    {
-      // Initialize the cache.
-      for (int x = 1; x < cache.length; x++)
+      ensureCached(16, 16);
+   }
+
+   /**
+    * Make sure every cell of a maze of the given size is cached. This is called
+    * by {@link MazeModel} whenever a maze is created or resized.
+    * @param width Number of columns.
+    * @param height Number of rows.
+    */
+   static synchronized void ensureCached(int width, int height)
+   {
+      final MazeCell[][] old = cache;
+      width = Math.min(width, MAX_CACHED_SIZE);
+      height = Math.min(height, MAX_CACHED_SIZE);
+      final int oldWidth = Math.max(old.length - 1, 0);
+      final int oldHeight = old.length == 0 ? 0 : old[0].length - 1;
+      if (width <= oldWidth && height <= oldHeight)
+         return;
+      width = Math.max(width, oldWidth);
+      height = Math.max(height, oldHeight);
+
+      final MazeCell[][] grown = new MazeCell[width + 1][height + 1];
+      for (int x = 1; x <= width; x++)
       {
-         for (int y = 1; y < cache[0].length; y++)
+         for (int y = 1; y <= height; y++)
          {
-            cache[x][y] = new MazeCell(x, y);
+            if (x <= oldWidth && y <= oldHeight)
+               grown[x][y] = old[x][y];
+            else
+               grown[x][y] = new MazeCell(x, y);
          }
       }
+      cache = grown;
    }
 
    /**
@@ -47,9 +79,10 @@ public final class MazeCell implements Comparable<MazeCell>, Serializable
       if (yCoordinate <= 0)
          throw new IllegalArgumentException("Y coordinate must be greater than 0.");
 
-      if (xCoordinate < cache.length && yCoordinate < cache[0].length)
+      final MazeCell[][] cells = cache;
+      if (xCoordinate < cells.length && yCoordinate < cells[0].length)
       {
-         return cache[xCoordinate][yCoordinate];
+         return cells[xCoordinate][yCoordinate];
       }
       else
       {
@@ -216,6 +249,14 @@ public final class MazeCell implements Comparable<MazeCell>, Serializable
       return MazeCell.valueOf(this.x, this.y + y);
    }
 
+   /**
+    * Keep deserialized cells interned.
+    */
+   private Object readResolve()
+   {
+      return valueOf(this.x, this.y);
+   }
+
    @Override
    public String toString()
    {
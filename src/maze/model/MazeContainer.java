@@ -0,0 +1,399 @@
+package maze.model;
+
+import java.awt.Dimension;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a .mz3 file, which holds any number of mazes. Each maze can be loaded
+ * on its own without reading the rest of the file. The layout is:
+ * <ul>
+ * <li>A header with the magic number, the version, the number of mazes and the
+ * offset of the index.</li>
+ * <li>One entry per maze with its name, size, starting cell, winning cells, a
+ * CRC-32 of the wall data and the wall data itself. The wall data is laid out
+ * as in a .mz2 file and may be compressed with <code>Deflater</code>.</li>
+ * <li>The index, the offset of each entry.</li>
+ * </ul>
+ * Write one with {@link Writer}.
+ */
+public final class MazeContainer
+{
+   /**
+    * "MZ3" followed by a zero byte.
+    */
+   private static final int MAGIC = 0x4D5A3300;
+   private static final int VERSION = 1;
+   /**
+    * Bytes before the first entry.
+    */
+   private static final int HEADER_LENGTH = 20;
+   /**
+    * Entry flag set when the wall data is compressed.
+    */
+   private static final int COMPRESSED = 1;
+
+   /**
+    * The information stored about a maze in a container, available without
+    * reading its walls.
+    */
+   public static final class Entry
+   {
+      private final String name;
+      private final Dimension size;
+      private final MazeCell start;
+      private final MazeCell[] goals;
+      private final long checksum;
+      private final boolean compressed;
+      private final int storedLength;
+      /**
+       * Offset of the wall data in the file.
+       */
+      private final long dataOffset;
+
+      private Entry(DataInputStream in, long offset) throws IOException
+      {
+         final long before = in.available();
+         name = in.readUTF();
+         final int width = in.readInt();
+         final int height = in.readInt();
+         if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE / 4)
+            throw new IOException("Invalid maze size: " + width + " x " + height);
+         size = new Dimension(width, height);
+         start = readCell(in);
+         goals = new MazeCell[in.readUnsignedByte()];
+         for (int i = 0; i < goals.length; i++)
+            goals[i] = readCell(in);
+         compressed = (in.readUnsignedByte() & COMPRESSED) != 0;
+         checksum = in.readInt() & 0xFFFFFFFFL;
+         storedLength = in.readInt();
+         if (storedLength < 0)
+            throw new IOException("Invalid wall data length");
+         dataOffset = offset + before - in.available();
+      }
+
+      private static MazeCell readCell(DataInputStream in) throws IOException
+      {
+         final int x = in.readInt();
+         final int y = in.readInt();
+         return MazeCell.valueOf(x, y);
+      }
+
+      public String getName()
+      {
+         return name;
+      }
+
+      public Dimension getSize()
+      {
+         return new Dimension(size);
+      }
+
+      /**
+       * Get the cell the robot starts in.
+       */
+      public MazeCell getStartingCell()
+      {
+         return start;
+      }
+
+      /**
+       * Get the cells that make up the goal in the center of the maze.
+       */
+      public MazeCell[] getWinningCells()
+      {
+         return goals.clone();
+      }
+
+      /**
+       * Get the CRC-32 of the uncompressed wall data.
+       */
+      public long getChecksum()
+      {
+         return checksum;
+      }
+
+      public boolean isCompressed()
+      {
+         return compressed;
+      }
+   }
+
+   /**
+    * Writes mazes to a new .mz3 file. The index and header are written by
+    * {@link #close()}, a file that is not closed can not be read.
+    */
+   public static final class Writer
+   {
+      private final File file;
+      private final DataOutputStream out;
+      private final Deflater deflater;
+      private final ByteArrayOutputStream entry = new ByteArrayOutputStream();
+      private long[] offsets = new long[16];
+      private int count;
+      private long position = HEADER_LENGTH;
+
+      /**
+       * Create the file, replacing any existing file.
+       * @param file The file to write.
+       * @param compress Compress the walls of mazes where it makes them
+       *           smaller.
+       */
+      public Writer(File file, boolean compress) throws IOException
+      {
+         this.file = file;
+         this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+         this.deflater = compress ? new Deflater(Deflater.BEST_COMPRESSION) : null;
+         // The real header is written when the index offset is known.
+         out.write(new byte[HEADER_LENGTH]);
+      }
+
+      /**
+       * Add a maze to the end of the file.
+       * @param name Name of the maze, may be null.
+       * @param maze The maze.
+       */
+      public void add(String name, MazeModel maze) throws IOException
+      {
+         final byte[] walls = maze.getWallData();
+         final CRC32 crc = new CRC32();
+         crc.update(walls);
+         byte[] stored = walls;
+         int flags = 0;
+         if (deflater != null)
+         {
+            final byte[] compressed = deflate(walls);
+            if (compressed.length < walls.length)
+            {
+               stored = compressed;
+               flags |= COMPRESSED;
+            }
+         }
+
+         entry.reset();
+         final DataOutputStream dos = new DataOutputStream(entry);
+         dos.writeUTF(name == null ? "" : name);
+         final Dimension size = maze.getSize();
+         dos.writeInt(size.width);
+         dos.writeInt(size.height);
+         writeCell(dos, maze.getStartingCell());
+         final MazeCell[] goals = maze.getWinningCells();
+         dos.writeByte(goals.length);
+         for (MazeCell goal : goals)
+            writeCell(dos, goal);
+         dos.writeByte(flags);
+         dos.writeInt((int) crc.getValue());
+         dos.writeInt(stored.length);
+         dos.write(stored);
+         dos.flush();
+
+         if (count == offsets.length)
+         {
+            final long[] grown = new long[count * 2];
+            System.arraycopy(offsets, 0, grown, 0, count);
+            offsets = grown;
+         }
+         offsets[count++] = position;
+         entry.writeTo(out);
+         position += entry.size();
+      }
+
+      private static void writeCell(DataOutputStream dos, MazeCell cell) throws IOException
+      {
+         dos.writeInt(cell.getX());
+         dos.writeInt(cell.getY());
+      }
+
+      private byte[] deflate(byte[] data)
+      {
+         deflater.reset();
+         deflater.setInput(data);
+         deflater.finish();
+         final ByteArrayOutputStream compressed = new ByteArrayOutputStream(data.length / 4 + 16);
+         final byte[] buffer = new byte[4096];
+         while (!deflater.finished())
+         {
+            final int length = deflater.deflate(buffer);
+            compressed.write(buffer, 0, length);
+         }
+         return compressed.toByteArray();
+      }
+
+      /**
+       * Write the index and header and close the file.
+       */
+      public void close() throws IOException
+      {
+         for (int i = 0; i < count; i++)
+            out.writeLong(offsets[i]);
+         out.close();
+         if (deflater != null)
+            deflater.end();
+
+         final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+         try
+         {
+            raf.writeInt(MAGIC);
+            raf.writeInt(VERSION);
+            raf.writeInt(count);
+            raf.writeLong(position);
+         }
+         finally
+         {
+            raf.close();
+         }
+      }
+   }
+
+   private final RandomAccessFile raf;
+   private final long[] offsets;
+   private final Entry[] entries;
+
+   /**
+    * Open a container and read its index.
+    * @param file The .mz3 file.
+    * @throws IOException If the file can not be read or is not a container.
+    */
+   public MazeContainer(File file) throws IOException
+   {
+      raf = new RandomAccessFile(file, "r");
+      try
+      {
+         if (raf.readInt() != MAGIC)
+            throw new IOException("Not a maze container");
+         final int version = raf.readInt();
+         if (version != VERSION)
+            throw new IOException("Unsupported maze container version " + version);
+         final int count = raf.readInt();
+         final long indexOffset = raf.readLong();
+         if (count < 0 || indexOffset < HEADER_LENGTH ||
+             indexOffset + count * 8L != raf.length())
+            throw new IOException("Invalid maze container index");
+
+         final byte[] index = new byte[count * 8];
+         raf.seek(indexOffset);
+         raf.readFully(index);
+         final DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+         offsets = new long[count];
+         for (int i = 0; i < count; i++)
+         {
+            offsets[i] = in.readLong();
+            if (offsets[i] < HEADER_LENGTH || offsets[i] >= indexOffset)
+               throw new IOException("Invalid maze container index");
+         }
+         entries = new Entry[count];
+      }
+      catch (IOException e)
+      {
+         raf.close();
+         throw e;
+      }
+   }
+
+   /**
+    * Get the number of mazes in the container.
+    */
+   public int getMazeCount()
+   {
+      return offsets.length;
+   }
+
+   /**
+    * Get the information about a maze without reading its walls.
+    * @param index Which maze, starting at 0.
+    * @return The entry for the maze.
+    */
+   public synchronized Entry getEntry(int index) throws IOException
+   {
+      if (entries[index] == null)
+      {
+         // The longest possible name plus the fixed fields and 255 goals.
+         final int maxLength = 2 + 65535 + 4 * 4 + 1 + 255 * 8 + 1 + 4 + 4;
+         final long next = index + 1 < offsets.length ? offsets[index + 1] : raf.length();
+         final byte[] header = new byte[(int) Math.min(maxLength, next - offsets[index])];
+         raf.seek(offsets[index]);
+         raf.readFully(header);
+         entries[index] = new Entry(new DataInputStream(new ByteArrayInputStream(header)),
+                                    offsets[index]);
+      }
+      return entries[index];
+   }
+
+   /**
+    * Read the walls of a maze.
+    * @param index Which maze, starting at 0.
+    * @return A new maze.
+    * @throws IOException If the maze can not be read or its checksum is wrong.
+    */
+   public synchronized MazeModel load(int index) throws IOException
+   {
+      final Entry entry = getEntry(index);
+      final byte[] stored = new byte[entry.storedLength];
+      raf.seek(entry.dataOffset);
+      raf.readFully(stored);
+
+      final Dimension size = entry.getSize();
+      final byte[] walls;
+      if (entry.compressed)
+         walls = inflate(stored, MazeModel.getFileWallBytes(size.width, size.height));
+      else
+         walls = stored;
+
+      final CRC32 crc = new CRC32();
+      crc.update(walls);
+      if (crc.getValue() != entry.checksum)
+         throw new IOException("Checksum mismatch in maze " + index);
+
+      final MazeModel maze = new MazeModel();
+      maze.setWallData(size, walls);
+      return maze;
+   }
+
+   private static byte[] inflate(byte[] data, int length) throws IOException
+   {
+      final Inflater inflater = new Inflater();
+      try
+      {
+         inflater.setInput(data);
+         final byte[] result = new byte[length];
+         int read = 0;
+         while (read < length && !inflater.finished())
+         {
+            final int n = inflater.inflate(result, read, length - read);
+            if (n == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+               break;
+            read += n;
+         }
+         if (read != length)
+            throw new IOException("Truncated wall data");
+         return result;
+      }
+      catch (DataFormatException e)
+      {
+         throw new IOException("Corrupt wall data", e);
+      }
+      finally
+      {
+         inflater.end();
+      }
+   }
+
+   /**
+    * Close the file.
+    */
+   public void close() throws IOException
+   {
+      raf.close();
+   }
+}
@@ -1,8 +1,16 @@
 package maze.model;
 
+import java.awt.Dimension;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeSet;
 
 import javax.swing.Box;
@@ -18,12 +26,31 @@ import maze.gui.PrimaryFrame;
 import maze.util.Listener;
 
 /**
- * Stores information about a Maze including its file name and model.
+ * Stores information about a Maze including its file name and model. Mazes
+ * found by scanning only read the header of the file, the name and size. The
+ * walls are loaded the first time the model is needed.
  * @author John Smith
  */
 public class MazeInfo implements Listener<MazeCell>
 {
+   /**
+    * Number of bytes in a .MAZ file.
+    */
+   private static final int MAZ_FILE_LENGTH = 256;
+
    private MazeModel mModel;
+   /**
+    * Resource to load the model from when it is needed, null if it comes from
+    * the path.
+    */
+   private String mResource;
+   /**
+    * Container to load the model from when it is needed, null if the maze is
+    * not in a container.
+    */
+   private File mContainer;
+   private int mContainerIndex;
+   private Dimension mSize;
    private String mPath;
    private String mName;
    private boolean isDirty = false;
@@ -56,6 +83,179 @@ public class MazeInfo implements Listener<MazeCell>
       return returned;
    }
 
+   /**
+    * Creates an entry for a bundled maze resource by reading only its header.
+    * @param resource Resource name relative to this class.
+    * @param name The file name of the maze.
+    * @return The maze information or null if it could not be read.
+    */
+   public static MazeInfo loadHeader(String resource, String name)
+   {
+      final URL url = MazeInfo.class.getResource(resource);
+      if (url == null)
+         return null;
+      final MazeInfo mi = new MazeInfo();
+      mi.mResource = resource;
+      mi.mPath = name;
+      mi.mName = name;
+      mi.isMutable = false;
+      InputStream in = null;
+      try
+      {
+         final URLConnection connection = url.openConnection();
+         in = connection.getInputStream();
+         if (!mi.readHeader(in, isExtendedFile(name), connection.getContentLengthLong()))
+            return null;
+         // Resources are always listed by file name.
+         mi.mName = name;
+         return mi;
+      }
+      catch (IOException e)
+      {
+         return null;
+      }
+      finally
+      {
+         close(in);
+      }
+   }
+
+   /**
+    * Creates an entry for a maze file by reading only its header.
+    * @param file The .maz or .mz2 file.
+    * @return The maze information or null if the file is not a valid maze.
+    */
+   public static MazeInfo loadHeader(File file)
+   {
+      if (file == null || !file.isFile())
+         return null;
+      InputStream in = null;
+      try
+      {
+         final MazeInfo mi = new MazeInfo();
+         mi.mPath = file.getCanonicalPath();
+         mi.mName = file.getName();
+         in = new FileInputStream(file);
+         if (!mi.readHeader(in, isExtendedFile(file.getName()), file.length()))
+            return null;
+         return mi;
+      }
+      catch (IOException e)
+      {
+         return null;
+      }
+      finally
+      {
+         close(in);
+      }
+   }
+
+   /**
+    * Creates entries for every maze in a .mz3 container by reading only their
+    * headers. The mazes can not be changed in place, saving one saves a copy.
+    * @param file The container file.
+    * @return The maze information, empty if the file is not a valid container.
+    */
+   public static List<MazeInfo> loadContainer(File file)
+   {
+      final List<MazeInfo> result = new ArrayList<MazeInfo>();
+      if (file == null || !file.isFile())
+         return result;
+      try
+      {
+         final String path = file.getCanonicalPath();
+         final MazeContainer container = new MazeContainer(file);
+         try
+         {
+            for (int i = 0; i < container.getMazeCount(); i++)
+            {
+               final MazeContainer.Entry entry = container.getEntry(i);
+               final MazeInfo mi = new MazeInfo();
+               mi.mContainer = new File(path);
+               mi.mContainerIndex = i;
+               mi.mPath = path + "#" + i;
+               mi.mName = entry.getName().isEmpty() ? file.getName() + "#" + i : entry.getName();
+               mi.mSize = entry.getSize();
+               mi.isMutable = false;
+               mi.isExtended = true;
+               result.add(mi);
+            }
+         }
+         finally
+         {
+            container.close();
+         }
+      }
+      catch (IOException e)
+      {
+         System.out.println("Error reading maze container " + file);
+         e.printStackTrace();
+      }
+      return result;
+   }
+
+   /**
+    * Tells if a maze file name is in the extended .mz2 format.
+    */
+   private static boolean isExtendedFile(String name)
+   {
+      return name.toLowerCase().endsWith(".mz2");
+   }
+
+   private static void close(InputStream in)
+   {
+      try
+      {
+         if (in != null)
+            in.close();
+      }
+      catch (IOException e)
+      {}
+   }
+
+   /**
+    * Reads the name and size of a maze and checks that the rest of the file
+    * has the right length for the walls. Only the header is read, the length
+    * comes from the file.
+    * @param length The length of the whole file in bytes, or -1 if it is not
+    *           known, then the file is not checked.
+    * @return false if the file is not a valid maze.
+    */
+   private boolean readHeader(InputStream in, boolean extended, long length) throws IOException
+   {
+      final DataInputStream dis = new DataInputStream(in);
+      final int expected;
+      final long header;
+      if (extended)
+      {
+         // Read the name bytes as they are to know how long the header is.
+         final int nameLength = dis.readUnsignedShort();
+         final byte[] utf = new byte[2 + nameLength];
+         utf[0] = (byte) (nameLength >>> 8);
+         utf[1] = (byte) nameLength;
+         dis.readFully(utf, 2, nameLength);
+         mName = new DataInputStream(new ByteArrayInputStream(utf)).readUTF();
+         header = utf.length + 8;
+         final int width = dis.readInt();
+         final int height = dis.readInt();
+         if (width < 1 || height < 1 || (long) width * height > Integer.MAX_VALUE / 4)
+            return false;
+         mSize = new Dimension(width + width % 2, height + height % 2);
+         expected = MazeModel.getFileWallBytes(width, height);
+         isExtended = true;
+      }
+      else
+      {
+         mSize = new Dimension(16, 16);
+         expected = MAZ_FILE_LENGTH;
+         header = 0;
+      }
+
+      if (length < 0)
+         return true;
+      return extended ? length - header >= expected : length == expected;
+   }
+
    public static MazeInfo load(File file)
    {
       if (file == null || !file.isFile())
@@ -103,9 +303,9 @@ public class MazeInfo implements Listener<MazeCell>
       try
       {
          if (isExtended)
-            mModel.saveMaze(mPath, mName);
+            getModel().saveMaze(mPath, mName);
          else
-            mModel.saveMaze(mPath, null);
+            getModel().saveMaze(mPath, null);
          isDirty = false;
       }
       catch (IOException e)
@@ -127,11 +327,79 @@ public class MazeInfo implements Listener<MazeCell>
       return mPath;
    }
 
-   public MazeModel getModel()
+   /**
+    * Get the walls of the maze, loading them the first time.
+    * @return The maze model.
+    */
+   public synchronized MazeModel getModel()
    {
+      if (mModel == null)
+      {
+         MazeModel maze = new MazeModel();
+         try
+         {
+            if (mContainer != null)
+            {
+               final MazeContainer container = new MazeContainer(mContainer);
+               try
+               {
+                  maze = container.load(mContainerIndex);
+               }
+               finally
+               {
+                  container.close();
+               }
+            }
+            else if (mResource != null)
+            {
+               final InputStream in = MazeInfo.class.getResourceAsStream(mResource);
+               if (in == null)
+                  throw new IOException("Missing resource " + mResource);
+               try
+               {
+                  maze.loadMaze(in, isExtendedFile(mPath));
+               }
+               finally
+               {
+                  close(in);
+               }
+            }
+            else
+               maze.loadMaze(mPath);
+         }
+         catch (IOException e)
+         {
+            System.out.println("Error loading maze " + mPath);
+            e.printStackTrace();
+            if (mSize != null)
+               maze.setSize(mSize);
+            maze.clearMaze();
+         }
+         mModel = maze;
+         mModel.addDelayedListener(this);
+      }
       return mModel;
    }
 
+   /**
+    * Tells if the walls have been loaded.
+    */
+   public synchronized boolean isLoaded()
+   {
+      return mModel != null;
+   }
+
+   /**
+    * Get the size of the maze without loading it.
+    * @return The number of columns and rows.
+    */
+   public synchronized Dimension getSize()
+   {
+      if (mModel != null)
+         return mModel.getSize();
+      return new Dimension(mSize);
+   }
+
    public boolean isDirty()
    {
       return isDirty;
@@ -186,7 +454,7 @@ public class MazeInfo implements Listener<MazeCell>
       theClone.isDirty = isDirty;
       theClone.isExtended = isExtended;
       theClone.isMutable = true;
-      theClone.mModel = (MazeModel) mModel.clone();
+      theClone.mModel = (MazeModel) getModel().clone();
       theClone.mModel.addListener(theClone);
       theClone.mName = mName;
       theClone.mPath = mPath;
@@ -2,12 +2,19 @@ package maze.model;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import javax.swing.DefaultComboBoxModel;
+import javax.swing.SwingUtilities;
 
 /**
- * Manages the global collection of mazes.
+ * Manages the global collection of mazes. The bundled examples are listed
+ * right away and the working directory is searched for more mazes on a
+ * background thread. Only the header of each maze is read until its walls are
+ * needed.
  * @author Johnathan Smith
  */
 public class MazeInfoModel
@@ -19,23 +26,45 @@ public class MazeInfoModel
    };
    private static final String[] NAME_EXT =
    {
-      ".mz2", ".maz"
+      ".mz2", ".maz", ".mz3"
    };
+   /**
+    * How many directories deep the background scan looks for mazes.
+    */
+   private static final int MAX_SCAN_DEPTH = 8;
    final DefaultComboBoxModel mMazeInfoModel = new DefaultComboBoxModel();
 
    public MazeInfoModel()
    {
       fromJar();
-      try
-      {
-         File currentDir = new File(".");
-         scanDirectory(currentDir);
-      }
-      catch (Exception e)
+      final Thread scanner = new Thread("Maze directory scan")
       {
-         System.out.println("Error scanning directory for maze files.");
-         e.printStackTrace();
-      }
+         @Override
+         public void run()
+         {
+            try
+            {
+               scanDirectory(new File("."), MAX_SCAN_DEPTH, new HashSet<String>());
+            }
+            catch (Exception e)
+            {
+               System.out.println("Error scanning directory for maze files.");
+               e.printStackTrace();
+            }
+         }
+      };
+      scanner.setDaemon(true);
+      scanner.setPriority(Thread.MIN_PRIORITY);
+      scanner.start();
+   }
+
+   /**
+    * Get the file names of the example mazes bundled in the
+    * <code>mazeExamples</code> resource folder.
+    */
+   public static String[] getExampleMazeNames()
+   {
+      return NAMES.clone();
    }
 
    public DefaultComboBoxModel getMazeInfoComboBoxModel()
@@ -47,25 +76,49 @@ public class MazeInfoModel
    {
       for (String name : NAMES)
       {
-         InputStream in;
          MazeInfo mi;
-
-         in = MazeInfo.class.getResourceAsStream("mazeExamples/" + name);
-         if (in != null && (mi = MazeInfo.load(in, name)) != null)
+         if ( (mi = MazeInfo.loadHeader("mazeExamples/" + name, name)) != null)
             mMazeInfoModel.addElement(mi);
       } // for (String name : names)
 
    }
 
+   /**
+    * Adds the mazes in a directory, but not its subdirectories. This can be
+    * called from any thread, the mazes are added on the event dispatch thread.
+    */
    public void scanDirectory(File dir)
+   {
+      scanDirectory(dir, 0, new HashSet<String>());
+   }
+
+   /**
+    * Adds the mazes in a directory and its subdirectories.
+    * @param depth How many levels of subdirectories to search.
+    * @param visited Canonical paths of the directories already searched, so
+    *           links back up the tree are not followed.
+    */
+   private void scanDirectory(File dir, int depth, Set<String> visited)
    {
       if (dir == null || !dir.isDirectory())
       {
          System.out.println("null directory");
          return;
       }
+      try
+      {
+         if (!visited.add(dir.getCanonicalPath()))
+            return;
+      }
+      catch (IOException e)
+      {
+         return;
+      }
 
-      for (File entry : dir.listFiles())
+      final File[] entries = dir.listFiles();
+      if (entries == null)
+         return;
+      for (File entry : entries)
       {
          if (entry.isFile())
          {
@@ -73,18 +126,48 @@ public class MazeInfoModel
             {
                if (entry.getName().toLowerCase().endsWith(ext))
                {
-                  MazeInfo mi;
-                  if ( (mi = MazeInfo.load(entry)) != null)
-                     mMazeInfoModel.addElement(mi);
+                  final List<MazeInfo> found;
+                  if (ext.equals(".mz3"))
+                     found = MazeInfo.loadContainer(entry);
+                  else
+                     found = Collections.singletonList(MazeInfo.loadHeader(entry));
+                  SwingUtilities.invokeLater(new Runnable()
+                  {
+                     @Override
+                     public void run()
+                     {
+                        for (MazeInfo mi : found)
+                        {
+                           if (mi != null)
+                              addIfNew(mi);
+                        }
+                     }
+                  });
                   break;
                }
             }
          }
-         //else if (entry.isDirectory())
-         //   scanDirectory(entry);
+         else if (depth > 0 && entry.isDirectory() && !entry.isHidden() &&
+                  !entry.getName().startsWith("."))
+            scanDirectory(entry, depth - 1, visited);
       }
    }
 
+   /**
+    * Adds a maze unless one from the same file is already listed.
+    * @return false if the maze was already listed.
+    */
+   private boolean addIfNew(MazeInfo mi)
+   {
+      for (int i = 0; i < mMazeInfoModel.getSize(); i++)
+      {
+         if (mi.getPath().equals( ((MazeInfo) mMazeInfoModel.getElementAt(i)).getPath()))
+            return false;
+      }
+      mMazeInfoModel.addElement(mi);
+      return true;
+   }
+
    public MazeInfo createNew(String name, boolean extended)
    {
       MazeInfo mi = MazeInfo.createEmptyMaze(name, extended);
@@ -94,6 +177,13 @@ public class MazeInfoModel
 
    public boolean addMaze(File file)
    {
+      if (file.getName().toLowerCase().endsWith(".mz3"))
+      {
+         boolean added = false;
+         for (MazeInfo mi : MazeInfo.loadContainer(file))
+            added |= addIfNew(mi);
+         return added;
+      }
       MazeInfo mi;
       for (int i = 0; i < mMazeInfoModel.getSize(); i++)
       {
@@ -1,6 +1,7 @@
 package maze.model;
 
 import java.awt.Dimension;
+import java.io.BufferedOutputStream;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.File;
@@ -10,6 +11,9 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -49,6 +53,19 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
    public static final int NORTH = 0;
    public static final int SOUTH = 2;
    public static final int WEST = 3;
+   /**
+    * Bits of the wall masks returned by {@link #getWallMask(int, int)}. Each
+    * bit is <code>1 &lt;&lt;</code> the direction index, which is the same
+    * layout as a cell in a .MAZ file.
+    */
+   public static final int NORTH_MASK = 1 << NORTH;
+   public static final int EAST_MASK = 1 << EAST;
+   public static final int SOUTH_MASK = 1 << SOUTH;
+   public static final int WEST_MASK = 1 << WEST;
+   /**
+    * A wall mask with every wall set.
+    */
+   public static final int ALL_WALLS_MASK = NORTH_MASK | EAST_MASK | SOUTH_MASK | WEST_MASK;
    /**
     * Column walls.
     */
@@ -65,6 +82,10 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
     * Number of columns or width of this maze.
     */
    private int width;
+   /**
+    * Cell numbering for the current size, created when first asked for.
+    */
+   private transient CellIndexTable cellIndexTable;
 
    /**
     * Create a maze with the default size.
@@ -85,6 +106,7 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
       this.height = height + height % 2;
       rwalls = new BitSet(width * (height - 1));
       cwalls = new BitSet( (width - 1) * height);
+      MazeCell.ensureCached(this.width, this.height);
       setWall(1, height, EAST);
    }
 
@@ -156,6 +178,31 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
       }
    }
 
+   /**
+    * Get a hash of the size and walls of this maze. Two mazes with the same
+    * walls have the same hash no matter what they are named or where they were
+    * loaded from.
+    * @return The SHA-1 digest as 40 hex digits.
+    */
+   public String getWallHash()
+   {
+      try
+      {
+         final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+         digest.update(ByteBuffer.allocate(8).putInt(width).putInt(height).array());
+         final byte[] hash = digest.digest(getWallData());
+         final StringBuilder text = new StringBuilder(hash.length * 2);
+         for (byte b : hash)
+            text.append(String.format("%02x", b & 0xFF));
+         return text.toString();
+      }
+      catch (NoSuchAlgorithmException e)
+      {
+         // Every Java platform is required to support SHA-1.
+         throw new RuntimeException(e);
+      }
+   }
+
    /**
     * Make a deep copy of this maze model.
     */
@@ -176,36 +223,44 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
    }
 
    /**
-    * Randomizes all the walls of this maze.
+    * Randomizes all the walls of this maze. Listeners are notified once for
+    * each changed cell when the maze is done.
     */
    public void generateRandomMaze()
    {
-      this.setAllWalls();
-
-      final Random rand = new Random();
-      for (int x = 1; x <= this.getSize().width; x++)
+      super.beginBatch();
+      try
       {
-         for (int y = 1; y <= this.getSize().height; y++)
+         this.setAllWalls();
+
+         final Random rand = new Random();
+         for (int x = 1; x <= this.getSize().width; x++)
          {
-            final MazeCell cell = MazeCell.valueOf(x, y);
-            this.getWall(cell, Direction.East).set(rand.nextBoolean());
-            this.getWall(cell, Direction.South).set(rand.nextBoolean());
+            for (int y = 1; y <= this.getSize().height; y++)
+            {
+               final MazeCell cell = MazeCell.valueOf(x, y);
+               this.getWall(cell, Direction.East).set(rand.nextBoolean());
+               this.getWall(cell, Direction.South).set(rand.nextBoolean());
+            }
          }
+         setWall(1, height, EAST); // Set mandatory wall.
+         clearWall(1, height, NORTH); // Must be clear.
+         clearWall(1, height - 1, NORTH); // Clear just to give it a better chance.
+         clearWall(1, height - 2, NORTH); // Clear just to give it a better chance.
+         clearWall(1, height - 1, EAST); // Clear just to give it a better chance.
+         clearWall(2, height - 1, EAST); // Clear just to give it a better chance.
+
+         this.clearCenterWalls();
+         // Open one wall into the center.
+         List<MazeWall> winningBorder = this.getWinningBorderWalls();
+         for (MazeWall wall : winningBorder)
+            wall.set(true);
+         winningBorder.get(rand.nextInt(winningBorder.size())).set(false);
+      }
+      finally
+      {
+         super.endBatch();
       }
-      setWall(1, height, EAST); // Set mandatory wall.
-      clearWall(1, height, NORTH); // Must be clear.
-      clearWall(1, height - 1, NORTH); // Clear just to give it a better chance.
-      clearWall(1, height - 2, NORTH); // Clear just to give it a better chance.
-      clearWall(1, height - 1, EAST); // Clear just to give it a better chance.
-      clearWall(2, height - 1, EAST); // Clear just to give it a better chance.
-
-      this.clearCenterWalls();
-      // Open one wall into the center.
-      List<MazeWall> winningBorder = this.getWinningBorderWalls();
-      for (MazeWall wall : winningBorder)
-         wall.set(true);
-      winningBorder.get(rand.nextInt(winningBorder.size())).set(false);
-
    }
 
    /**
@@ -259,6 +314,116 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
          return cwalls.get(x * height + y);
    }
 
+   /**
+    * Get the index of a cell in a row major array of every cell in this maze.
+    * @param x Column starting at 1.
+    * @param y Row starting at 1.
+    * @return Index from 0 to width * height - 1.
+    */
+   public int getCellIndex(int x, int y)
+   {
+      return (y - 1) * width + (x - 1);
+   }
+
+   /**
+    * Get the cell numbering and neighbor table for the current size of this
+    * maze. The same table is returned until the size changes.
+    * @return The table for this size.
+    */
+   public CellIndexTable getCellIndexTable()
+   {
+      CellIndexTable table = cellIndexTable;
+      if (table == null)
+      {
+         table = new CellIndexTable(width, height);
+         cellIndexTable = table;
+      }
+      return table;
+   }
+
+   /**
+    * Get all four walls of a cell at once. Unlike
+    * {@link #getWall(MazeCell, Direction)} this does not create any objects so
+    * it is the one to use in loops that run for every step of a robot.
+    * @param x Column starting at 1.
+    * @param y Row starting at 1.
+    * @return The set walls as a combination of {@link #NORTH_MASK},
+    *         {@link #EAST_MASK}, {@link #SOUTH_MASK} and {@link #WEST_MASK}.
+    *         Cells outside of the maze have every wall set.
+    */
+   public int getWallMask(int x, int y)
+   {
+      if (x > width || y > height || x < 1 || y < 1)
+         return ALL_WALLS_MASK;
+      x--;
+      y--;
+      int mask = 0;
+      if (y == 0 || rwalls.get( (y - 1) * width + x))
+         mask |= NORTH_MASK;
+      if (y == height - 1 || rwalls.get(y * width + x))
+         mask |= SOUTH_MASK;
+      if (x == 0 || cwalls.get( (x - 1) * height + y))
+         mask |= WEST_MASK;
+      if (x == width - 1 || cwalls.get(x * height + y))
+         mask |= EAST_MASK;
+      return mask;
+   }
+
+   /**
+    * Get all four walls of a cell at once.
+    * @param cell The cell in question.
+    * @return The set walls, see {@link #getWallMask(int, int)}.
+    */
+   public int getWallMask(MazeCell cell)
+   {
+      return getWallMask(cell.getX(), cell.getY());
+   }
+
+   /**
+    * Get all four walls of a cell at once.
+    * @param index Cell index from {@link #getCellIndex(int, int)}.
+    * @return The set walls, see {@link #getWallMask(int, int)}.
+    */
+   public int getWallMask(int index)
+   {
+      return getWallMask(index % width + 1, index / width + 1);
+   }
+
+   /**
+    * Get the directions a robot can move out of a cell.
+    * @param x Column starting at 1.
+    * @param y Row starting at 1.
+    * @return The open sides, the complement of
+    *         {@link #getWallMask(int, int)}.
+    */
+   public int getOpenMask(int x, int y)
+   {
+      return ~getWallMask(x, y) & ALL_WALLS_MASK;
+   }
+
+   /**
+    * Is the wall set/enabled. This is the same as
+    * <code>getWall(cell, direction).isSet()</code> without the extra object.
+    * @param cell The cell containing the wall.
+    * @param direction Direction of the wall from the cell center.
+    * @return true if the wall is set.
+    */
+   public boolean isWall(MazeCell cell, Direction direction)
+   {
+      return getWall(cell.getX(), cell.getY(), direction.getIndex());
+   }
+
+   /**
+    * Is the wall set/enabled.
+    * @param index Cell index from {@link #getCellIndex(int, int)}.
+    * @param dir Direction of the wall from the cell center.
+    * @return true if the wall is set.
+    */
+   public boolean isWall(int index, int dir)
+   {
+      return getWall(index % width + 1, index / width + 1, dir);
+   }
+
    /**
     * Get an object that can then be checked or changed.
     * @param cell The cell containing the wall you want.
@@ -504,27 +669,13 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
       {
          DataInputStream dis = new DataInputStream(in);
          String name = dis.readUTF();
-         setSize(new Dimension(dis.readInt(), dis.readInt()));
-
-         int rwallSize = rwalls.size(), cwallSize = cwalls.size();
-         for (int i = 0; i < rwallSize;)
-         {
-            byte bits = dis.readByte();
-            for (int j = 0; j < 8 && i < rwallSize; j++, i++)
-            {
-               rwalls.set(i, (bits & 1) == 1);
-               bits >>= 1;
-            }
-         }
-         for (int i = 0; i < cwallSize;)
-         {
-            byte bits = dis.readByte();
-            for (int j = 0; j < 8 && i < cwallSize; j++, i++)
-            {
-               cwalls.set(i, (bits & 1) == 1);
-               bits >>= 1;
-            }
-         }
+         final int newWidth = dis.readInt();
+         final int newHeight = dis.readInt();
+         if (newWidth < 1 || newHeight < 1 || (long) newWidth * newHeight > Integer.MAX_VALUE / 4)
+            throw new IOException("Invalid maze size: " + newWidth + " x " + newHeight);
+         final byte[] walls = new byte[getFileWallBytes(newWidth, newHeight)];
+         dis.readFully(walls);
+         setWallData(new Dimension(newWidth, newHeight), walls);
          return name;
       }
       else
@@ -540,32 +691,41 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
 
          in.read(fileContents);
 
-         for (int i = 1; i <= 16; i++)
+         // Notify once for each changed cell instead of for every wall.
+         super.beginBatch();
+         try
          {
-            for (int j = 16; j > 0; j--)
+            for (int i = 1; i <= 16; i++)
             {
-               byte cellWalls = fileContents[16 * (i - 1) + (16 - j)];
-               if ( (cellWalls & 1) == 1)
-                  this.setWall(i, j, NORTH);
-               else
-                  this.clearWall(i, j, NORTH);
-
-               if ( (cellWalls & 2) == 2)
-                  this.setWall(i, j, EAST);
-               else
-                  this.clearWall(i, j, EAST);
-
-               if ( (cellWalls & 4) == 4)
-                  this.setWall(i, j, SOUTH);
-               else
-                  this.clearWall(i, j, SOUTH);
-
-               if ( (cellWalls & 8) == 8)
-                  this.setWall(i, j, WEST);
-               else
-                  this.clearWall(i, j, WEST);
-            } // for(int j=16; j>0; j--)
-         } // for(int i=1; i<=16; i++)
+               for (int j = 16; j > 0; j--)
+               {
+                  byte cellWalls = fileContents[16 * (i - 1) + (16 - j)];
+                  if ( (cellWalls & 1) == 1)
+                     this.setWall(i, j, NORTH);
+                  else
+                     this.clearWall(i, j, NORTH);
+
+                  if ( (cellWalls & 2) == 2)
+                     this.setWall(i, j, EAST);
+                  else
+                     this.clearWall(i, j, EAST);
+
+                  if ( (cellWalls & 4) == 4)
+                     this.setWall(i, j, SOUTH);
+                  else
+                     this.clearWall(i, j, SOUTH);
+
+                  if ( (cellWalls & 8) == 8)
+                     this.setWall(i, j, WEST);
+                  else
+                     this.clearWall(i, j, WEST);
+               } // for(int j=16; j>0; j--)
+            } // for(int i=1; i<=16; i++)
+         }
+         finally
+         {
+            super.endBatch();
+         }
          return null;
       }
    }
@@ -574,6 +734,22 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
    {
       //Now for the actual file i/o
       File file = new File(filename);
+      if (filename.toLowerCase().endsWith(".mz3"))
+      {
+         // Containers open as their first maze.
+         final MazeContainer container = new MazeContainer(file);
+         try
+         {
+            if (container.getMazeCount() == 0)
+               throw new IOException("Empty maze container");
+            copy(container.load(0));
+            return container.getEntry(0).getName();
+         }
+         finally
+         {
+            container.close();
+         }
+      }
       String name;
       FileInputStream in = null;
       in = new FileInputStream(file);
@@ -598,26 +774,7 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
          {
             for (int j = 16; j > 0; j--)
             {
-               MazeCell cell = MazeCell.valueOf(i, j);
-               byte cellWalls = 0;
-               if (this.getWall(cell, Direction.North).isSet())
-               {
-                  cellWalls = 1;
-               }
-               if (this.getWall(cell, Direction.East).isSet())
-               {
-                  cellWalls += 2;
-               }
-               if (this.getWall(cell, Direction.South).isSet())
-               {
-                  cellWalls += 4;
-               }
-               if (this.getWall(cell, Direction.West).isSet())
-               {
-                  cellWalls += 8;
-               }
-
-               fileContents[16 * (i - 1) + (16 - j)] = cellWalls;
+               fileContents[16 * (i - 1) + (16 - j)] = (byte) getWallMask(i, j);
             }
          }
 
@@ -629,54 +786,144 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
          out.write(fileContents);
          out.close();
       } // if (name == null)
+      else if (filename.toLowerCase().endsWith(".mz3"))
+      {
+         final MazeContainer.Writer writer = new MazeContainer.Writer(new File(filename), true);
+         writer.add(name, this);
+         writer.close();
+      }
       else
       {
          if (filename.toLowerCase().endsWith(".mz2") == false)
             filename = filename + ".mz2";
 
-         FileOutputStream out = new FileOutputStream(filename);
-         DataOutputStream dis = new DataOutputStream(out);
+         DataOutputStream dis = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)));
          dis.writeUTF(name);
          dis.writeInt(width);
          dis.writeInt(height);
+         dis.write(getWallData());
+         dis.close();
+      }
 
-         int rwallSize = rwalls.size(), cwallSize = cwalls.size();
-         int rwallArraySize = rwalls.size() / 8;
-         if (rwalls.size() % 8 > 0)
-            rwallArraySize++;
-         int cwallArraySize = cwalls.size() / 8;
-         if (cwalls.size() % 8 > 0)
-            cwallArraySize++;
-         byte[] rwallArray = new byte[rwallArraySize];
-         byte[] cwallArray = new byte[cwallArraySize];
-         for (int i = 0; i < rwallArray.length; i++)
-            rwallArray[i] = 0;
-         for (int i = 0; i < cwallArray.length; i++)
-            cwallArray[i] = 0;
-
-         int index = 0;
-
-         for (int i = 0; i < rwallSize; i++)
-         {
-            rwallArray[index] |= ( (rwalls.get(i) ? 1 : 0) << (i % 8));
-            if ( (i + 1) % 8 == 0)
-               index++;
-         }
+   }
 
-         index = 0;
+   /**
+    * Replace the size and walls of this maze with those of another.
+    */
+   private void copy(MazeModel other)
+   {
+      setSize(other.getSize());
+      rwalls = (BitSet) other.rwalls.clone();
+      cwalls = (BitSet) other.cwalls.clone();
+   }
 
-         for (int i = 0; i < cwallSize; i++)
-         {
-            cwallArray[index] |= ( (cwalls.get(i) ? 1 : 0) << (i % 8));
-            if ( (i + 1) % 8 == 0)
-               index++;
-         }
+   /**
+    * Gets the walls in the layout of a .mz2 file, the row walls followed by
+    * the column walls.
+    * @return {@link #getFileWallBytes(int, int)} bytes of wall data.
+    */
+   byte[] getWallData()
+   {
+      final byte[] rows = writeWalls(rwalls, getRowWallCount());
+      final byte[] columns = writeWalls(cwalls, getColumnWallCount());
+      final byte[] data = new byte[rows.length + columns.length];
+      System.arraycopy(rows, 0, data, 0, rows.length);
+      System.arraycopy(columns, 0, data, rows.length, columns.length);
+      return data;
+   }
 
-         dis.write(rwallArray);
-         dis.write(cwallArray);
-         dis.close();
-      }
+   /**
+    * Sets the size and walls from data in the layout of a .mz2 file.
+    * @param size The size of the maze.
+    * @param data Wall data as returned by {@link #getWallData()}.
+    * @throws IOException If there is not enough data for the size.
+    */
+   void setWallData(Dimension size, byte[] data) throws IOException
+   {
+      if (data.length < getFileWallBytes(size.width, size.height))
+         throw new IOException("Missing wall data");
+      setSize(size);
+      final ByteBuffer buffer = ByteBuffer.wrap(data);
+      buffer.limit(getWallBytes(getRowWallCount()));
+      rwalls = readWalls(buffer, getRowWallCount());
+      buffer.limit(getFileWallBytes(width, height));
+      buffer.position(getWallBytes(getRowWallCount()));
+      cwalls = readWalls(buffer, getColumnWallCount());
+   }
+
+   /**
+    * Get the number of walls between cells in the same column. These are the
+    * north and south walls, not counting the ones on the outer edge.
+    */
+   private int getRowWallCount()
+   {
+      return width * (height - 1);
+   }
+
+   /**
+    * Get the number of walls between cells in the same row. These are the
+    * east and west walls, not counting the ones on the outer edge.
+    */
+   private int getColumnWallCount()
+   {
+      return (width - 1) * height;
+   }
+
+   /**
+    * Get the number of bytes of wall data in a .mz2 file, which follows the
+    * name and size.
+    * @param width Number of columns.
+    * @param height Number of rows.
+    * @return The number of bytes.
+    */
+   static int getFileWallBytes(int width, int height)
+   {
+      // Sizes are rounded up the same way as setSize.
+      width += width % 2;
+      height += height % 2;
+      return getWallBytes(width * (height - 1)) + getWallBytes( (width - 1) * height);
+   }
 
+   /**
+    * Get the number of bytes a set of walls takes up in a .mz2 file. Each set
+    * is stored in whole 64 bit words, which is how <code>BitSet.size()</code>
+    * rounded it when the format was created.
+    * @param walls The number of walls.
+    * @return The number of bytes.
+    */
+   private static int getWallBytes(int walls)
+   {
+      return (walls + 63) / 64 * 8;
+   }
+
+   /**
+    * Creates a set of walls from the bytes of a .mz2 file in one step. Any bits
+    * past the last wall are ignored.
+    * @param buffer Wall bits, least significant bit first.
+    * @param walls The number of walls.
+    * @return The walls.
+    */
+   private static BitSet readWalls(ByteBuffer buffer, int walls)
+   {
+      final BitSet bits = BitSet.valueOf(buffer);
+      if (bits.length() > walls)
+         bits.clear(walls, bits.length());
+      return bits;
+   }
+
+   /**
+    * Gets the bytes of a set of walls for a .mz2 file.
+    * @param bits The walls.
+    * @param walls The number of walls.
+    * @return Wall bits, least significant bit first, padded to whole 64 bit
+    *         words.
+    */
+   private static byte[] writeWalls(BitSet bits, int walls)
+   {
+      final byte[] bytes = new byte[getWallBytes(walls)];
+      final byte[] set = bits.get(0, walls).toByteArray();
+      System.arraycopy(set, 0, bytes, 0, set.length);
+      return bytes;
    }
 
    /**
@@ -684,8 +931,8 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
     */
    public void setAllWalls()
    {
-      this.rwalls.set(0, this.rwalls.size());
-      this.cwalls.set(0, this.cwalls.size());
+      this.rwalls.set(0, getRowWallCount());
+      this.cwalls.set(0, getColumnWallCount());
    }
 
    /**
@@ -700,6 +947,8 @@ public final class MazeModel extends ListenerSubject<MazeCell> implements Clonea
       height = size.height + size.height % 2;
       rwalls = new BitSet(width * (height - 1));
       cwalls = new BitSet( (width - 1) * height);
+      cellIndexTable = null;
+      MazeCell.ensureCached(width, height);
    }
 
    public void setWall(int x, int y, int dir)
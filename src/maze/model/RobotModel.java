@@ -49,4 +49,14 @@ public class RobotModel
    {
       return this.parent.getDirection();
    }
+
+   /**
+    * Tells if the robot is on a diagonal. The walls are then checked as if it
+    * was facing {@link #getDirection()}.
+    * @see RobotModelMaster#isDiagonal()
+    */
+   public boolean isDiagonal()
+   {
+      return this.parent.isDiagonal();
+   }
 }
\ No newline at end of file
@@ -27,6 +27,16 @@ public class RobotModelMaster
     * The direction the robot is currently facing.
     */
    private Direction direction = Direction.North;
+   /**
+    * True when the robot is on a diagonal, facing 45 degrees to the right of
+    * its direction.
+    */
+   private boolean diagonal;
+   /**
+    * On a diagonal, true if the next wall the robot passes through is to the
+    * right of its direction rather than in front of it.
+    */
+   private boolean diagonalRight;
    /**
     * Stores all the information about where the robot has been.
     */
@@ -66,7 +76,7 @@ public class RobotModelMaster
     */
    public boolean isWall(Direction direction)
    {
-      return this.mazeModel.getWall(this.currentLocation, direction).isSet();
+      return this.mazeModel.isWall(this.currentLocation, direction);
    }
 
    public Dimension getMazeSize()
@@ -89,9 +99,80 @@ public class RobotModelMaster
       return direction;
    }
 
+   /**
+    * Set the direction the robot is facing, which takes it off of any
+    * diagonal.
+    */
    public void setDirection(Direction direction)
    {
       this.direction = direction;
+      this.diagonal = false;
+   }
+
+   /**
+    * Tells if the robot is on a diagonal after a 45 degree turn. It then faces
+    * halfway between {@link #getDirection()} and the direction to the right of
+    * that.
+    */
+   public boolean isDiagonal()
+   {
+      return diagonal;
+   }
+
+   /**
+    * Get the direction the robot will pass through a wall with the next
+    * {@link RobotStep#MoveDiagonal} step.
+    * @return The direction or null if the robot is not on a diagonal.
+    */
+   public Direction getDiagonalStepDirection()
+   {
+      if (!diagonal)
+         return null;
+      return diagonalRight ? direction.getRight() : direction;
+   }
+
+   /**
+    * Counts how many times in a row a move can be taken from where the robot
+    * is before it would hit a wall. The robot does not move.
+    * @param step A move, not a turn.
+    * @param max The most moves to check.
+    * @return From 0 to max, 0 if the move can not be taken facing the way the
+    *         robot does.
+    */
+   public int getOpenMoves(final RobotStep step, final int max)
+   {
+      if ( (step == RobotStep.MoveDiagonal) != this.diagonal)
+         return 0;
+      MazeCell cell = this.currentLocation;
+      boolean right = this.diagonalRight;
+      for (int moves = 0; moves < max; moves++)
+      {
+         final Direction moveDirection;
+         if (step == RobotStep.MoveForward)
+            moveDirection = this.direction;
+         else if (step == RobotStep.MoveBackward)
+            moveDirection = this.direction.getOpposite();
+         else if (step == RobotStep.MoveDiagonal)
+         {
+            moveDirection = right ? this.direction.getRight() : this.direction;
+            right = !right;
+         }
+         else
+            throw new IllegalArgumentException("Not a move: " + step);
+         if (this.mazeModel.isWall(cell, moveDirection))
+            return moves;
+         cell = cell.neighbor(moveDirection);
+      }
+      return max;
+   }
+
+   /**
+    * Get the angle the robot is facing, including a diagonal.
+    * @return The angle in radians like {@link Direction#getRadians()}.
+    */
+   public double getRadians()
+   {
+      return direction.getRadians() + (diagonal ? Math.PI / 4 : 0);
    }
 
    public MazeModel getMazeModel()
@@ -100,8 +181,13 @@ public class RobotModelMaster
    }
 
    /**
-    * Attempts to move the robot with the given step.
+    * Attempts to move the robot with the given step. A 45 degree turn puts the
+    * robot on a diagonal or takes it off. On a diagonal the robot can turn or
+    * take a {@link RobotStep#MoveDiagonal} step, which it can take nowhere
+    * else.
     * @param nextStep The step/move to be taken.
+    * @throws IllegalStateException If the step can not be taken on or off of
+    *            a diagonal.
     */
    public void takeNextStep(final RobotStep nextStep) throws RobotCrashedException
    {
@@ -114,12 +200,37 @@ public class RobotModelMaster
          case RotateRight :
             this.direction = direction.getRight();
             break;
+         case RotateLeft45 :
+            if (!this.diagonal)
+            {
+               // Facing between the left and the old direction, the left wall is next.
+               this.direction = direction.getLeft();
+               this.diagonalRight = false;
+            }
+            this.diagonal = !this.diagonal;
+            break;
+         case RotateRight45 :
+            if (this.diagonal)
+               this.direction = direction.getRight();
+            else
+               this.diagonalRight = true;
+            this.diagonal = !this.diagonal;
+            break;
          case MoveForward :
+            if (this.diagonal)
+               throw new IllegalStateException("Can not move forward on a diagonal.");
             moveDirection = this.direction;
             break;
          case MoveBackward :
+            if (this.diagonal)
+               throw new IllegalStateException("Can not move backward on a diagonal.");
             moveDirection = this.direction.getOpposite();
             break;
+         case MoveDiagonal :
+            if (!this.diagonal)
+               throw new IllegalStateException("Can not move diagonally without a 45 degree turn.");
+            moveDirection = this.getDiagonalStepDirection();
+            break;
          default :
             throw new IllegalArgumentException("Invalid step: " + nextStep);
       }
@@ -134,6 +245,8 @@ public class RobotModelMaster
          {
             this.currentLocation = this.currentLocation.neighbor(moveDirection);
             this.robotPathModel.addLocation(this.currentLocation);
+            if (this.diagonal)
+               this.diagonalRight = !this.diagonalRight;
          }
       }
 
@@ -231,12 +344,33 @@ public class RobotModelMaster
 
    public static final class RobotCrashedException extends Exception
    {
+      private final MazeCell location;
+      private final Direction attemptedDirection;
+
       public RobotCrashedException(MazeCell currentLocation, Direction attemptedDirection)
       {
          super("The mouse crashed into a wall going " +
                attemptedDirection +
                " from cell " +
                currentLocation);
+         this.location = currentLocation;
+         this.attemptedDirection = attemptedDirection;
+      }
+
+      /**
+       * Get the cell the robot was in when it crashed.
+       */
+      public MazeCell getLocation()
+      {
+         return this.location;
+      }
+
+      /**
+       * Get the direction the robot was trying to move when it crashed.
+       */
+      public Direction getAttemptedDirection()
+      {
+         return this.attemptedDirection;
       }
    }
 }
@@ -44,16 +44,25 @@ public final class RobotPathModel extends ListenerSubject<MazeCell> implements S
    {
       this.visited.add(cell);
       this.pathCurrent.add(cell);
-      // Notify listeners that this cell has been changed.
-      super.notifyListeners(cell);
-      // Also signal that the north and west walls may need to be repainted.
-      if (cell.getX() > 1)
+      // Notify listeners that this cell has been changed, in a single batch
+      // with the cells whose walls may need to be repainted.
+      super.beginBatch();
+      try
       {
-         super.notifyListeners(cell.plusX(-1));
+         super.notifyListeners(cell);
+         // Also signal that the north and west walls may need to be repainted.
+         if (cell.getX() > 1)
+         {
+            super.notifyListeners(cell.plusX(-1));
+         }
+         if (cell.getY() > 1)
+         {
+            super.notifyListeners(cell.plusY(-1));
+         }
       }
-      if (cell.getY() > 1)
+      finally
       {
-         super.notifyListeners(cell.plusY(-1));
+         super.endBatch();
       }
    }
 
@@ -113,6 +122,21 @@ public final class RobotPathModel extends ListenerSubject<MazeCell> implements S
       return this.pathBest;
    }
 
+   /**
+    * Creates a copy with the visited cells and the first and best runs but
+    * without the entire path. This is all that is needed to show the result of
+    * a finished simulation.
+    * @return A new path model with no listeners.
+    */
+   public RobotPathModel getSummary()
+   {
+      final RobotPathModel summary = new RobotPathModel(this.startCell);
+      summary.visited.addAll(this.visited);
+      summary.pathFirst.addAll(this.pathFirst);
+      summary.pathBest.addAll(this.pathBest);
+      return summary;
+   }
+
    /**
     * Get the total number of cells that have been visited.
     * @return Number of cells.
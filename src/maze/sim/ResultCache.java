@@ -0,0 +1,305 @@
+package maze.sim;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import maze.ai.MotionProfile;
+import maze.ai.RobotBase;
+import maze.ai.RunBudget;
+import maze.model.MazeModel;
+
+/**
+ * Remembers the results of simulations so running the same algorithm on the
+ * same walls again is instant. Results are found by the hash of the walls,
+ * not the name of the maze, so an edited maze is simulated again and a copy
+ * of a maze under another name is not. The least recently used results are
+ * dropped when the cache is full. A cache can be saved to a file and loaded
+ * again later. All methods are thread safe.
+ */
+public final class ResultCache
+{
+   /**
+    * Bumped whenever a change to the simulation could change its results, so
+    * results saved by an older version are not used.
+    */
+   private static final int FILE_VERSION = 2;
+   private static final int DEFAULT_CAPACITY = 256;
+
+   private static ResultCache instance;
+
+   /**
+    * Identifies a simulation by what decides its result.
+    */
+   public static final class Key implements Serializable
+   {
+      private static final long serialVersionUID = 4120735516289837209L;
+      private final String wallHash;
+      private final String algorithmClass;
+      private final String algorithmName;
+      private final boolean speedRun;
+      private final int maxSteps;
+
+      /**
+       * Create a key for a run with the default step limit.
+       * @param wallHash The hash of the maze from
+       *           {@link MazeModel#getWallHash()}.
+       * @param algorithm The algorithm that is run.
+       */
+      public Key(String wallHash, RobotBase algorithm)
+      {
+         this(wallHash, algorithm, RunBudget.DEFAULT_MAX_STEPS);
+      }
+
+      /**
+       * Create a key.
+       * @param wallHash The hash of the maze from
+       *           {@link MazeModel#getWallHash()}.
+       * @param algorithm The algorithm that is run.
+       * @param maxSteps The step limit of the run.
+       */
+      public Key(String wallHash, RobotBase algorithm, int maxSteps)
+      {
+         this.wallHash = wallHash;
+         this.algorithmClass = algorithm.getClass().getName();
+         this.algorithmName = algorithm.toString();
+         this.speedRun = algorithm.isSpeedRun();
+         this.maxSteps = maxSteps;
+      }
+
+      @Override
+      public boolean equals(Object obj)
+      {
+         if (this == obj)
+            return true;
+         if (! (obj instanceof Key))
+            return false;
+         final Key other = (Key) obj;
+         return this.speedRun == other.speedRun && this.maxSteps == other.maxSteps &&
+                this.wallHash.equals(other.wallHash) &&
+                this.algorithmClass.equals(other.algorithmClass) &&
+                this.algorithmName.equals(other.algorithmName);
+      }
+
+      @Override
+      public int hashCode()
+      {
+         int hash = this.wallHash.hashCode();
+         hash = hash * 31 + this.algorithmClass.hashCode();
+         hash = hash * 31 + this.algorithmName.hashCode();
+         hash = hash * 31 + this.maxSteps;
+         return hash * 2 + (this.speedRun ? 1 : 0);
+      }
+   }
+
+   private final int capacity;
+   private final File file;
+   private final LinkedHashMap<Key, SimulationResult> results;
+   private int hits;
+   private int misses;
+
+   /**
+    * Gets the cache shared by the GUI. It is only kept in memory.
+    */
+   public static synchronized ResultCache getInstance()
+   {
+      if (instance == null)
+         instance = new ResultCache(DEFAULT_CAPACITY, null);
+      return instance;
+   }
+
+   /**
+    * Create a cache.
+    * @param capacity The most results to keep.
+    * @param file The file to load results from and {@link #save()} them to, or
+    *           null to only keep them in memory. A missing file is not an
+    *           error.
+    */
+   public ResultCache(int capacity, File file)
+   {
+      if (capacity < 1)
+         throw new IllegalArgumentException("The capacity must be positive.");
+      this.capacity = capacity;
+      this.file = file;
+      this.results = new LinkedHashMap<Key, SimulationResult>(16, 0.75f, true)
+      {
+         private static final long serialVersionUID = 1L;
+
+         @Override
+         protected boolean removeEldestEntry(Map.Entry<Key, SimulationResult> eldest)
+         {
+            return size() > ResultCache.this.capacity;
+         }
+      };
+      if (file != null && file.isFile())
+         load();
+   }
+
+   /**
+    * Reads the results saved in the file, any that can not be read are
+    * ignored.
+    */
+   @SuppressWarnings("unchecked")
+   private void load()
+   {
+      ObjectInputStream in = null;
+      try
+      {
+         in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+         if (in.readInt() == FILE_VERSION)
+            this.results.putAll((Map<Key, SimulationResult>) in.readObject());
+      }
+      catch (Exception e)
+      {
+         System.out.println("Error reading the result cache " + this.file);
+         e.printStackTrace();
+         this.results.clear();
+      }
+      finally
+      {
+         try
+         {
+            if (in != null)
+               in.close();
+         }
+         catch (IOException e)
+         {}
+      }
+   }
+
+   /**
+    * Writes the results to the file given to the constructor. Does nothing if
+    * there is no file.
+    */
+   public synchronized void save() throws IOException
+   {
+      if (this.file == null)
+         return;
+      final ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(this.file)));
+      try
+      {
+         out.writeInt(FILE_VERSION);
+         out.writeObject(new LinkedHashMap<Key, SimulationResult>(this.results));
+      }
+      finally
+      {
+         out.close();
+      }
+   }
+
+   /**
+    * Get a remembered result.
+    * @param key The simulation.
+    * @param mazeName The name to label the result with.
+    * @return A copy of the result marked as cached or null if it is not in
+    *         the cache.
+    * @see SimulationResult#isCached()
+    */
+   public synchronized SimulationResult get(Key key, String mazeName)
+   {
+      final SimulationResult result = this.results.get(key);
+      if (result == null)
+      {
+         this.misses++;
+         return null;
+      }
+      this.hits++;
+      final SimulationResult copy = result.copyFor(mazeName);
+      copy.cached = true;
+      return copy;
+   }
+
+   /**
+    * Remember a result. Results of simulations that ended in an error or ran
+    * out of time are not kept since that may not happen again.
+    * @param key The simulation.
+    * @param result The result of running it.
+    */
+   public synchronized void put(Key key, SimulationResult result)
+   {
+      if (result.getOutcome() != SimulationResult.Outcome.Error &&
+          result.getOutcome() != SimulationResult.Outcome.TimeLimitReached)
+         this.results.put(key, result.copyFor(result.getMazeName()));
+   }
+
+   /**
+    * Gets the result of a simulation from the cache or runs it if it is not
+    * there. Algorithms that are not repeatable are always run.
+    * @param mazeName The name to label the result with.
+    * @param maze The maze to run the robot through.
+    * @param algorithm The robot AI algorithm to test.
+    * @return The result.
+    * @see RobotBase#isRepeatable()
+    */
+   public SimulationResult run(String mazeName, MazeModel maze, RobotBase algorithm)
+   {
+      return run(mazeName, maze, maze.getWallHash(), algorithm, RunBudget.DEFAULT, MotionProfile.DEFAULT);
+   }
+
+   /**
+    * Same as {@link #run(String, MazeModel, RobotBase)} with the hash of the
+    * maze already known, a budget for the run and a motion profile for the
+    * estimated run times. The run times of a remembered result are estimated
+    * again, so results can be shared between profiles.
+    */
+   SimulationResult run(String mazeName,
+                        MazeModel maze,
+                        String wallHash,
+                        RobotBase algorithm,
+                        RunBudget budget,
+                        MotionProfile profile)
+   {
+      final Simulation simulation = new Simulation(mazeName, maze, algorithm);
+      simulation.setBudget(budget);
+      simulation.setMotionProfile(profile);
+      if (!algorithm.isRepeatable())
+         return simulation.run();
+      final long start = System.nanoTime();
+      final Key key = new Key(wallHash, algorithm, budget.getMaxSteps());
+      SimulationResult result = get(key, mazeName);
+      if (result == null)
+      {
+         result = simulation.run();
+         put(key, result);
+      }
+      else
+      {
+         result.estimateRunTimes(maze, profile);
+         // The time of the remembered run would be misleading.
+         result.elapsedNanos = System.nanoTime() - start;
+      }
+      return result;
+   }
+
+   /**
+    * Get the number of results that are remembered.
+    */
+   public synchronized int size()
+   {
+      return this.results.size();
+   }
+
+   /**
+    * Get the number of times a result was found in the cache.
+    */
+   public synchronized int getHits()
+   {
+      return this.hits;
+   }
+
+   /**
+    * Get the number of times a result was not found in the cache.
+    */
+   public synchronized int getMisses()
+   {
+      return this.misses;
+   }
+}
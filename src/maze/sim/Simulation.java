@@ -0,0 +1,229 @@
+package maze.sim;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+
+import maze.ai.MotionProfile;
+import maze.ai.RobotBase;
+import maze.ai.RobotController;
+import maze.ai.RobotMove;
+import maze.ai.RunBudget;
+import maze.model.MazeModel;
+
+/**
+ * Runs a robot AI algorithm through a maze as fast as possible without any
+ * animation and gathers statistics about its path. This class has no GUI
+ * dependencies so it can be used on a headless machine.
+ * @author Vincent Frey
+ * @author Luke Last
+ */
+public final class Simulation
+{
+   private final String mazeName;
+   private final MazeModel maze;
+   private final RobotBase algorithm;
+
+   private int previousRunTotalSquaresTraversed;
+   private int previousRunTotalTurnsTaken;
+   private int currentRunSquaresTraversed;
+   private int currentRunTurnsTaken;
+   private boolean recordTrace;
+   private RunBudget budget = RunBudget.DEFAULT;
+   private MotionProfile profile = MotionProfile.DEFAULT;
+
+   /**
+    * This robot controller is used to simulate the robots path through the
+    * maze.
+    */
+   private RobotController controller;
+
+   /**
+    * Constructor.
+    * @param mazeName The name of the maze used to label the results.
+    * @param maze The maze to run the robot through.
+    * @param algorithm The robot AI algorithm to test.
+    */
+   public Simulation(String mazeName, MazeModel maze, RobotBase algorithm)
+   {
+      if (maze == null || algorithm == null)
+         throw new IllegalArgumentException("The maze and algorithm cannot be null.");
+      this.mazeName = mazeName;
+      this.maze = maze;
+      this.algorithm = algorithm;
+   }
+
+   /**
+    * Set the limits on the run.
+    * @param budget The step and time limits.
+    */
+   public void setBudget(RunBudget budget)
+   {
+      if (budget == null)
+         throw new IllegalArgumentException("The budget cannot be null.");
+      this.budget = budget;
+   }
+
+   /**
+    * Set how the robot moves for the estimated run times.
+    * @see SimulationResult#getSpeedRunSeconds()
+    */
+   public void setMotionProfile(MotionProfile profile)
+   {
+      if (profile == null)
+         throw new IllegalArgumentException("The motion profile cannot be null.");
+      this.profile = profile;
+   }
+
+   /**
+    * Choose whether every step of the robot is recorded in the result.
+    * @see SimulationResult#getTrace()
+    */
+   public void setRecordTrace(boolean recordTrace)
+   {
+      this.recordTrace = recordTrace;
+   }
+
+   /**
+    * Simulates the robot from the starting cell until it stops improving on its
+    * best run, uses up its budget, or crashes. The algorithm is told the run
+    * is over before this returns.
+    * @return The statistics of the simulation.
+    */
+   public SimulationResult run()
+   {
+      final SimulationResult result = new SimulationResult();
+      result.mazeName = this.mazeName;
+      result.algorithmName = this.algorithm.toString();
+      final long start = System.nanoTime();
+      try
+      {
+         return this.simulate(result, start);
+      }
+      finally
+      {
+         this.algorithm.finish();
+      }
+   }
+
+   /**
+    * Runs the simulation and fills in the result.
+    */
+   private SimulationResult simulate(SimulationResult result, long start)
+   {
+      try
+      {
+         this.controller = new RobotController(this.maze, this.algorithm, this.budget);
+         if (this.recordTrace)
+            this.controller.startTrace();
+         this.previousRunTotalSquaresTraversed = 0;
+         this.previousRunTotalTurnsTaken = 0;
+         this.recompute(result);
+
+         if (this.controller.isRobotCrashed())
+         {
+            result.outcome = SimulationResult.Outcome.Crashed;
+            result.message = this.controller.getCrashException().getMessage();
+         }
+         else if (this.controller.isTimeLimitReached())
+         {
+            result.outcome = SimulationResult.Outcome.TimeLimitReached;
+            result.message = this.controller.getTimeLimitMessage();
+         }
+         else if (this.controller.isStepLimitReached())
+            result.outcome = SimulationResult.Outcome.StepLimitReached;
+         else
+            result.outcome = SimulationResult.Outcome.Completed;
+      }
+      catch (RuntimeException e)
+      {
+         result.outcome = SimulationResult.Outcome.Error;
+         result.message = e.toString();
+      }
+      result.elapsedNanos = System.nanoTime() - start;
+      if (this.controller != null)
+      {
+         result.totalSteps = this.controller.getStepCount();
+         result.trace = this.controller.getTrace();
+         // Described once the run is over so the outcome is known.
+         if (result.trace != null)
+            result.trace.setDescription(result.toString());
+         result.robotPathModel = this.controller.getRobotModelMaster().getRobotPathModel();
+         result.totalCellsVisited = result.robotPathModel.getCellsVisited();
+         result.counters = Collections.unmodifiableMap(new LinkedHashMap<String, Number>(this.algorithm.getCounters()));
+         result.estimateRunTimes(this.maze, this.profile);
+      }
+      return result;
+   }
+
+   /**
+    * This function simulates a run through the maze for the mouse and
+    * algorithm.
+    */
+   private void recompute(SimulationResult result)
+   {
+      trackARun();
+
+      if (this.controller.isRobotDone())
+      {
+         if (currentRunSquaresTraversed < this.controller.getRobotMoveCount())
+         { // Just in case the mouse makes it to the center but not back.
+            result.centerFound = true;
+            result.firstRunCells = currentRunSquaresTraversed;
+            result.firstRunTurns = currentRunTurnsTaken;
+            result.bestRunCells = currentRunSquaresTraversed;
+            result.bestRunTurns = currentRunTurnsTaken;
+            result.throughBestRunCells = currentRunSquaresTraversed;
+            result.throughBestRunTurns = currentRunTurnsTaken;
+         }
+         // Otherwise the first run failed to find the center.
+         return;
+      }
+
+      result.centerFound = true;
+      result.firstRunCells = currentRunSquaresTraversed;
+      result.firstRunTurns = currentRunTurnsTaken;
+
+      do
+      {
+         result.bestRunCells = currentRunSquaresTraversed;
+         result.bestRunTurns = currentRunTurnsTaken;
+         result.throughBestRunCells = previousRunTotalSquaresTraversed + currentRunSquaresTraversed;
+         result.throughBestRunTurns = previousRunTotalTurnsTaken + currentRunTurnsTaken;
+         previousRunTotalSquaresTraversed = this.controller.getRobotMoveCount();
+         previousRunTotalTurnsTaken = this.controller.getRobotTurnCount();
+         trackARun();
+      }
+      while (result.bestRunCells > currentRunSquaresTraversed && !this.controller.isRobotDone());
+   }
+
+   /**
+    * Track a run.
+    */
+   private void trackARun()
+   {
+      currentRunSquaresTraversed = 0;
+      currentRunTurnsTaken = 0;
+
+      while (!this.controller.isRobotDone() && !this.controller.getRobotModelMaster().isAtCenter())
+      {
+         final RobotMove move = this.controller.nextMove();
+         if (move == null)
+         {
+            continue;
+         }
+         if (move.getStep().isTurn())
+         {
+            currentRunTurnsTaken += move.getCount();
+         }
+         else
+         {
+            currentRunSquaresTraversed += move.getCount();
+         }
+      }
+
+      while (!this.controller.isRobotDone() && !this.controller.getRobotModelMaster().isAtStart())
+      {
+         this.controller.nextStep();
+      }
+   }
+}
@@ -0,0 +1,273 @@
+package maze.sim;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Map;
+
+import maze.ai.MotionProfile;
+import maze.ai.SpeedRunPlanner;
+import maze.ai.StepTrace;
+import maze.model.MazeModel;
+import maze.model.RobotPathModel;
+
+/**
+ * The statistics and outcome of running one robot AI algorithm against one
+ * maze. Instances are created by {@link Simulation} and are read only.
+ * @author Vincent Frey
+ * @author Luke Last
+ */
+public final class SimulationResult implements Cloneable, Serializable
+{
+   private static final long serialVersionUID = 2804476427155286197L;
+
+   /**
+    * The ways a simulation can end.
+    */
+   public static enum Outcome
+   {
+      /**
+       * The robot found the center and stopped improving its best run.
+       */
+      Completed,
+      /**
+       * The robot ran out of steps before it stopped improving. If the center
+       * was never found the run statistics are not available.
+       */
+      StepLimitReached,
+      /**
+       * The run used up its wall clock or processor time limit. The message
+       * tells which.
+       */
+      TimeLimitReached,
+      /**
+       * The robot ran into a wall.
+       */
+      Crashed,
+      /**
+       * The AI algorithm threw an exception.
+       */
+      Error,
+   }
+
+   String mazeName;
+   String algorithmName;
+   Outcome outcome;
+   String message;
+   boolean centerFound;
+   int totalCellsVisited;
+   int totalSteps;
+   int firstRunCells;
+   int firstRunTurns;
+   int bestRunCells;
+   int bestRunTurns;
+   int throughBestRunCells;
+   int throughBestRunTurns;
+   double bestRunSeconds = Double.NaN;
+   double speedRunSeconds = Double.NaN;
+   long elapsedNanos;
+   /**
+    * Set on the copies handed out by the result cache.
+    */
+   transient boolean cached;
+   RobotPathModel robotPathModel;
+   Map<String, Number> counters = Collections.emptyMap();
+   /**
+    * Not kept by the result cache since it can be large.
+    */
+   transient StepTrace trace;
+
+   /**
+    * Instances are only created by the simulation engine.
+    */
+   SimulationResult()
+   {}
+
+   public String getMazeName()
+   {
+      return mazeName;
+   }
+
+   public String getAlgorithmName()
+   {
+      return algorithmName;
+   }
+
+   public Outcome getOutcome()
+   {
+      return outcome;
+   }
+
+   /**
+    * Get a description of why the simulation did not complete normally.
+    * @return The crash or error message, or null.
+    */
+   public String getMessage()
+   {
+      return message;
+   }
+
+   /**
+    * Did the robot find the center box at least once or did it fail to win at
+    * all.
+    * @return true if the robot made it to the center at least once.
+    */
+   public boolean wasCenterFound()
+   {
+      return centerFound;
+   }
+
+   public int getTotalTraversed()
+   {
+      return totalCellsVisited;
+   }
+
+   /**
+    * Get the total number of steps, moves and turns, that the robot took.
+    */
+   public int getTotalSteps()
+   {
+      return totalSteps;
+   }
+
+   public int getFirstRunCells()
+   {
+      return firstRunCells;
+   }
+
+   public int getFirstRunTurns()
+   {
+      return firstRunTurns;
+   }
+
+   public int getBestRunCells()
+   {
+      return bestRunCells;
+   }
+
+   public int getBestRunTurns()
+   {
+      return bestRunTurns;
+   }
+
+   public int getThroughBestRunCells()
+   {
+      return throughBestRunCells;
+   }
+
+   public int getThroughBestRunTurns()
+   {
+      return throughBestRunTurns;
+   }
+
+   /**
+    * Get the estimated time of the best run the robot made.
+    * @return Seconds or NaN if the center was not found.
+    * @see MotionProfile#getRunSeconds(java.util.List)
+    */
+   public double getBestRunSeconds()
+   {
+      return bestRunSeconds;
+   }
+
+   /**
+    * Get the estimated time of the fastest run through the cells the robot
+    * visited, which is how fast a robot could run the maze with what the
+    * algorithm explored. This is what decides a competition.
+    * @return Seconds or NaN if there is no run to the center through visited
+    *         cells.
+    * @see SpeedRunPlanner
+    */
+   public double getSpeedRunSeconds()
+   {
+      return speedRunSeconds;
+   }
+
+   /**
+    * Get the wall clock time the simulation took. For a result taken from the
+    * cache this is the time it took to look it up.
+    * @return Time in nanoseconds.
+    * @see #isCached()
+    */
+   public long getElapsedNanos()
+   {
+      return elapsedNanos;
+   }
+
+   /**
+    * Tells if the result was taken from a {@link ResultCache} instead of
+    * running the simulation.
+    */
+   public boolean isCached()
+   {
+      return cached;
+   }
+
+   public RobotPathModel getRobotPathModel()
+   {
+      return robotPathModel;
+   }
+
+   /**
+    * Estimates the run times of the robot's path for a robot that moves as
+    * described.
+    * @param maze The maze the robot ran through.
+    * @param profile How the robot moves.
+    */
+   void estimateRunTimes(MazeModel maze, MotionProfile profile)
+   {
+      bestRunSeconds = Double.NaN;
+      speedRunSeconds = Double.NaN;
+      if (robotPathModel == null || centerFound == false)
+         return;
+      bestRunSeconds = profile.getRunSeconds(robotPathModel.getPathBest());
+      final SpeedRunPlanner.Route route = new SpeedRunPlanner(profile).plan(maze, robotPathModel);
+      if (route != null)
+         speedRunSeconds = route.getSeconds();
+   }
+
+   /**
+    * Creates a copy for a maze with the same walls but a different name. Only
+    * the visited cells and the first and best runs of the path are kept.
+    * @param name The name of the maze for the copy.
+    */
+   SimulationResult copyFor(String name)
+   {
+      try
+      {
+         final SimulationResult copy = (SimulationResult) super.clone();
+         copy.mazeName = name;
+         if (robotPathModel != null)
+            copy.robotPathModel = robotPathModel.getSummary();
+         return copy;
+      }
+      catch (CloneNotSupportedException e)
+      {
+         throw new RuntimeException(e);
+      }
+   }
+
+   @Override
+   public String toString()
+   {
+      return this.algorithmName + " on " + this.mazeName + ": " + this.outcome;
+   }
+
+   /**
+    * Get the record of every step the robot took.
+    * @return The trace or null if it was not recorded.
+    * @see Simulation#setRecordTrace(boolean)
+    */
+   public StepTrace getTrace()
+   {
+      return trace;
+   }
+
+   /**
+    * Get the statistics the algorithm kept about its own work.
+    * @return Counter values by name, see {@link maze.ai.RobotBase#getCounters()}.
+    */
+   public Map<String, Number> getCounters()
+   {
+      return counters;
+   }
+}
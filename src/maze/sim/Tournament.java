@@ -0,0 +1,238 @@
+package maze.sim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.swing.ListModel;
+
+import maze.ai.MotionProfile;
+import maze.ai.RobotBase;
+import maze.ai.RunBudget;
+import maze.model.MazeInfo;
+import maze.model.MazeInfoModel;
+import maze.model.MazeModel;
+
+/**
+ * Runs every algorithm against every maze and collects the results. The (maze
+ * x algorithm) jobs are spread across all processor cores with a fork-join
+ * pool. Each job gets its own copy of the maze and a new instance of the
+ * algorithm so no state is shared between jobs. Results already in a
+ * {@link ResultCache} are not run again.
+ * @author Luke Last
+ */
+public final class Tournament
+{
+   private final List<String> mazeNames = new ArrayList<String>();
+   private final List<MazeModel> mazes = new ArrayList<MazeModel>();
+   private final List<RobotBase> algorithms = new ArrayList<RobotBase>();
+   private ResultCache cache;
+   private boolean recordTraces;
+   private RunBudget budget = RunBudget.DEFAULT;
+   private MotionProfile profile = MotionProfile.DEFAULT;
+   /**
+    * Wall hashes of the mazes, computed when the tournament is run.
+    */
+   private String[] wallHashes;
+
+   /**
+    * Add a maze to be run by every algorithm.
+    * @param name The name used to label the results.
+    * @param maze The maze, it is not modified.
+    */
+   public void addMaze(String name, MazeModel maze)
+   {
+      this.mazeNames.add(name);
+      this.mazes.add(maze);
+   }
+
+   /**
+    * Adds all the mazes from the global maze collection.
+    */
+   public void addMazes(MazeInfoModel mazeInfoModel)
+   {
+      final ListModel<?> model = mazeInfoModel.getMazeInfoComboBoxModel();
+      for (int i = 0; i < model.getSize(); i++)
+      {
+         final MazeInfo mi = (MazeInfo) model.getElementAt(i);
+         this.addMaze(mi.getName(), mi.getModel());
+      }
+   }
+
+   /**
+    * Add an algorithm to be run on every maze. The given instance is only used
+    * as a template, it is never run.
+    */
+   public void addAlgorithm(RobotBase algorithm)
+   {
+      this.algorithms.add(algorithm);
+   }
+
+   /**
+    * Adds all the algorithms in a list model like the global robot list model.
+    * @see RobotBase#getRobotListModel()
+    */
+   public void addAlgorithms(ListModel<?> robotListModel)
+   {
+      for (int i = 0; i < robotListModel.getSize(); i++)
+      {
+         this.addAlgorithm((RobotBase) robotListModel.getElementAt(i));
+      }
+   }
+
+   /**
+    * Use a cache to skip simulations that have already been run.
+    * @param cache The cache or null to run every simulation.
+    */
+   public void setResultCache(ResultCache cache)
+   {
+      this.cache = cache;
+   }
+
+   /**
+    * Set the limits on each simulation.
+    * @param budget The step and time limits of a single run.
+    */
+   public void setBudget(RunBudget budget)
+   {
+      if (budget == null)
+         throw new IllegalArgumentException("The budget cannot be null.");
+      this.budget = budget;
+   }
+
+   /**
+    * Set how the robot moves for the estimated run times of every simulation.
+    */
+   public void setMotionProfile(MotionProfile profile)
+   {
+      if (profile == null)
+         throw new IllegalArgumentException("The motion profile cannot be null.");
+      this.profile = profile;
+   }
+
+   /**
+    * Choose whether every step of every simulation is recorded. Recorded
+    * simulations are always run, they are not taken from the result cache.
+    * @see SimulationResult#getTrace()
+    */
+   public void setRecordTraces(boolean recordTraces)
+   {
+      this.recordTraces = recordTraces;
+   }
+
+   /**
+    * Get the total number of simulations that will be run.
+    */
+   public int getJobCount()
+   {
+      return this.mazes.size() * this.algorithms.size();
+   }
+
+   /**
+    * Runs all the simulations using every available processor.
+    * @return The results ordered by maze and then by algorithm.
+    */
+   public List<SimulationResult> run()
+   {
+      return this.run(Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Runs all the simulations.
+    * @param parallelism The number of threads to use.
+    * @return The results ordered by maze and then by algorithm.
+    */
+   public List<SimulationResult> run(int parallelism)
+   {
+      final SimulationResult[] results = new SimulationResult[this.getJobCount()];
+      if (results.length == 0)
+         return Collections.emptyList();
+      if (this.cache != null)
+      {
+         this.wallHashes = new String[this.mazes.size()];
+         for (int i = 0; i < this.wallHashes.length; i++)
+            this.wallHashes[i] = this.mazes.get(i).getWallHash();
+      }
+      final ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try
+      {
+         pool.invoke(new JobRange(results, 0, results.length));
+      }
+      finally
+      {
+         pool.shutdown();
+      }
+      final List<SimulationResult> list = new ArrayList<SimulationResult>(results.length);
+      Collections.addAll(list, results);
+      return list;
+   }
+
+   /**
+    * Run a single job of the matrix.
+    * @param job The job index, maze major.
+    */
+   private SimulationResult runJob(int job)
+   {
+      final int mazeIndex = job / this.algorithms.size();
+      final RobotBase template = this.algorithms.get(job % this.algorithms.size());
+      final String mazeName = this.mazeNames.get(mazeIndex);
+      final RobotBase algorithm;
+      try
+      {
+         algorithm = template.newInstance();
+      }
+      catch (Exception e)
+      {
+         final SimulationResult result = new SimulationResult();
+         result.mazeName = mazeName;
+         result.algorithmName = template.toString();
+         result.outcome = SimulationResult.Outcome.Error;
+         result.message = "Cannot create a new instance of the algorithm: " + e;
+         return result;
+      }
+      final MazeModel maze = this.mazes.get(mazeIndex).clone();
+      if (this.cache != null && !this.recordTraces)
+         return this.cache.run(mazeName, maze, this.wallHashes[mazeIndex], algorithm, this.budget, this.profile);
+      final Simulation simulation = new Simulation(mazeName, maze, algorithm);
+      simulation.setBudget(this.budget);
+      simulation.setMotionProfile(this.profile);
+      simulation.setRecordTrace(this.recordTraces);
+      return simulation.run();
+   }
+
+   /**
+    * Splits a range of jobs in half until each task is a single job.
+    */
+   private final class JobRange extends RecursiveAction
+   {
+      private static final long serialVersionUID = 2871506412183329317L;
+
+      private final SimulationResult[] results;
+      private final int from;
+      private final int to;
+
+      JobRange(SimulationResult[] results, int from, int to)
+      {
+         this.results = results;
+         this.from = from;
+         this.to = to;
+      }
+
+      @Override
+      protected void compute()
+      {
+         if (this.to - this.from == 1)
+         {
+            this.results[this.from] = runJob(this.from);
+         }
+         else
+         {
+            final int middle = (this.from + this.to) >>> 1;
+            invokeAll(new JobRange(this.results, this.from, middle),
+                      new JobRange(this.results, middle, this.to));
+         }
+      }
+   }
+}
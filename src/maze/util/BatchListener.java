@@ -0,0 +1,21 @@
+package maze.util;
+
+import java.util.Collection;
+
+/**
+ * A Listener that can take all the events of a batch in one call. A
+ * ListenerSubject that ends a batch of changes passes the coalesced events to
+ * these Listeners at once, other Listeners get them one at a time.
+ * @see ListenerSubject#beginBatch()
+ * @param <T> The type of the event object.
+ */
+public interface BatchListener<T> extends Listener<T>
+{
+   /**
+    * This is called when a batch of changes has ended.
+    * @param events The distinct events fired during the batch in the order
+    *           they were first fired. It is never empty and is shared with
+    *           the other listeners, so it must not be changed or kept.
+    */
+   public void eventsFired(Collection<T> events);
+}
@@ -1,12 +1,17 @@
 package maze.util;
 
 import java.awt.EventQueue;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * Implements the observer design pattern. A ListenerSubject can have Listeners
  * registered with it and then notify those Listeners when something happens.
  * This class can be extended or instances of it can be created to allow a class
- * to have multiple events that can be registered with.
+ * to have multiple events that can be registered with.<br />
+ * Notifications can be held back during a batch of changes, see
+ * {@link #beginBatch()}.
  * @author Luke Last
  * @see Listener
  * @version 2009-05-30
@@ -38,15 +43,49 @@ public class ListenerSubject<T>
     */
    private DelayedNotifier delayedNotifier;
 
+   /**
+    * How many batches have been started and not yet ended.
+    */
+   private int batchDepth;
+
+   /**
+    * The distinct events fired during the current batch in the order they were
+    * first fired. Created with the first event held back, null when there is
+    * none.
+    */
+   private Set<T> batchEvents;
+
+   /**
+    * The last new event held back by the current batch.
+    */
+   private T lastBatchEvent;
+
    /**
     * Notifies all registered listeners. Normal listeners are notified
     * Immediately, delayed listeners are notified with a new task on the event
-    * queue.
+    * queue. During a batch the event is held back until the batch ends.
     * @param event The event object that should be passed to each registered
     *           Listener.
     */
    public final void notifyListeners(final T event)
    {
+      if (this.batchDepth > 0)
+      {
+         // Nobody would be notified so there is nothing to hold back.
+         if (this.listener == null && this.delayedListener == null)
+         {
+            return;
+         }
+         if (this.batchEvents == null)
+         {
+            this.batchEvents = new LinkedHashSet<T>();
+         }
+         if (this.batchEvents.add(event))
+         {
+            this.lastBatchEvent = event;
+         }
+         return;
+      }
       final Listener<T> copy = this.listener;
       if (copy != null)
       {
@@ -59,6 +98,88 @@ public class ListenerSubject<T>
       }
    }
 
+   /**
+    * Starts holding back notifications so a bulk change notifies the
+    * listeners once instead of for every small change. Batches can be nested,
+    * the listeners are notified when the outermost batch ends. A batch belongs
+    * to the thread making the changes and should be ended in a finally block.
+    * Listeners added during a batch are not told about the events fired before
+    * they were added.
+    */
+   public final void beginBatch()
+   {
+      this.batchDepth++;
+   }
+
+   /**
+    * Ends a batch. When the outermost batch ends each distinct event fired
+    * during it is passed to the listeners once, in the order it was first
+    * fired. A {@link BatchListener} gets all of them in a single call.
+    * Delayed listeners are notified once with the last event.
+    * @throws IllegalStateException If no batch has been started.
+    */
+   public final void endBatch()
+   {
+      if (this.batchDepth == 0)
+      {
+         throw new IllegalStateException("No batch has been started.");
+      }
+      this.batchDepth--;
+      if (this.batchDepth > 0)
+      {
+         return;
+      }
+      final Set<T> events = this.batchEvents;
+      final T last = this.lastBatchEvent;
+      this.batchEvents = null;
+      this.lastBatchEvent = null;
+      if (events == null)
+      {
+         return;
+      }
+      final Listener<T> copy = this.listener;
+      if (copy != null)
+      {
+         fireBatch(copy, events);
+      }
+      if (this.delayedListener != null && this.pendingNotify == false)
+      {
+         this.pendingNotify = true;
+         EventQueue.invokeLater(this.getDelayedNotifier(last));
+      }
+   }
+
+   /**
+    * Passes the events of a batch to a listener and each listener linked to
+    * it.
+    */
+   private static <T> void fireBatch(final Listener<T> listener, final Collection<T> events)
+   {
+      if (listener instanceof ListenerMulticaster<?>)
+      {
+         final ListenerMulticaster<T> multicaster = (ListenerMulticaster<T>) listener;
+         if (multicaster.a != null)
+         {
+            fireBatch(multicaster.a, events);
+         }
+         if (multicaster.b != null)
+         {
+            fireBatch(multicaster.b, events);
+         }
+      }
+      else if (listener instanceof BatchListener<?>)
+      {
+         ((BatchListener<T>) listener).eventsFired(events);
+      }
+      else
+      {
+         for (T event : events)
+         {
+            listener.eventFired(event);
+         }
+      }
+   }
+
    /**
     * This allows us to only create a new instance once and then reuse it for
     * better performance.
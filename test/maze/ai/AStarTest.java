@@ -0,0 +1,129 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+import maze.model.CellIndexTable;
+import maze.model.MazeCell;
+import maze.model.MazeInfo;
+import maze.model.MazeModel;
+import maze.sim.Simulation;
+import maze.sim.SimulationResult;
+
+import org.junit.Test;
+
+/**
+ * Compares the A* solvers with the flood fill on the bundled example mazes.
+ */
+public class AStarTest
+{
+   static final String[] MAZES =
+   {
+      "APEC2002.MAZ", "DEFAULT.MAZ", "HITEL01.MAZ", "HITEL02.MAZ", "LongPath.MAZ", "MINOS03Final.MAZ",
+      "MM03FINS.MAZ", "SEOUL01.MAZ", "SEOUL02.MAZ"
+   };
+
+   static MazeModel load(String name) throws Exception
+   {
+      final InputStream in = MazeInfo.class.getResourceAsStream("mazeExamples/" + name);
+      final MazeModel maze = new MazeModel();
+      maze.loadMaze(in, false);
+      in.close();
+      return maze;
+   }
+
+   /**
+    * Get the fewest cells to move through from the start to the center.
+    */
+   private static int shortestPath(MazeModel maze)
+   {
+      final CellIndexTable cells = maze.getCellIndexTable();
+      final int[] distance = new int[cells.getCellCount()];
+      Arrays.fill(distance, -1);
+      final ArrayDeque<Integer> queue = new ArrayDeque<Integer>();
+      final int start = cells.indexOf(maze.getStartingCell());
+      distance[start] = 0;
+      queue.add(start);
+      while (queue.isEmpty() == false)
+      {
+         final int cell = queue.poll();
+         for (int dir = 0; dir < 4; dir++)
+         {
+            final int neighbor = cells.neighbor(cell, dir);
+            if (neighbor != CellIndexTable.NONE && maze.isWall(cell, dir) == false && distance[neighbor] < 0)
+            {
+               distance[neighbor] = distance[cell] + 1;
+               queue.add(neighbor);
+            }
+         }
+      }
+      int shortest = Integer.MAX_VALUE;
+      for (MazeCell goal : maze.getWinningCells())
+      {
+         final int d = distance[cells.indexOf(goal)];
+         if (d >= 0)
+            shortest = Math.min(shortest, d);
+      }
+      return shortest;
+   }
+
+   private static long getExpanded(SimulationResult result)
+   {
+      return result.getCounters().get("expanded").longValue();
+   }
+
+   private static SimulationResult simulate(String name, RobotBase algorithm) throws Exception
+   {
+      return new Simulation(name, load(name), algorithm).run();
+   }
+
+   /**
+    * Both searches must find the center, give the same best run and be no
+    * worse than the flood fill, while expanding fewer cells than flooding the
+    * whole maze for every search.
+    */
+   @Test
+   public void testExampleMazes() throws Exception
+   {
+      for (String name : MAZES)
+      {
+         final SimulationResult flood = simulate(name, new Floodfill());
+         final SimulationResult forward = simulate(name, new AStar());
+         final SimulationResult both = simulate(name, new BidirectionalAStar());
+         assertEquals(name, SimulationResult.Outcome.Completed, flood.getOutcome());
+         assertEquals(name, SimulationResult.Outcome.Completed, forward.getOutcome());
+         assertEquals(name, SimulationResult.Outcome.Completed, both.getOutcome());
+
+         assertEquals(name, forward.getBestRunCells(), both.getBestRunCells());
+         assertTrue(name, forward.getBestRunCells() <= flood.getBestRunCells());
+         assertTrue(name, forward.getBestRunCells() >= shortestPath(load(name)));
+
+         final int cellCount = load(name).getCellIndexTable().getCellCount();
+         for (SimulationResult result : new SimulationResult[] { forward, both })
+         {
+            final long searches = result.getCounters().get("searches").longValue();
+            final long expanded = getExpanded(result);
+            assertTrue(name, searches > 0);
+            assertTrue(name + " " + result.getAlgorithmName(), expanded < searches * cellCount);
+         }
+      }
+   }
+
+   /**
+    * Searching from both ends expands fewer cells on some of the example
+    * mazes, this pins two of them.
+    */
+   @Test
+   public void testBidirectionalExpandsFewer() throws Exception
+   {
+      for (String name : new String[] { "LongPath.MAZ", "MM03FINS.MAZ" })
+      {
+         final long forward = getExpanded(simulate(name, new AStar()));
+         final long both = getExpanded(simulate(name, new BidirectionalAStar()));
+         assertTrue(name + " " + both + " >= " + forward, both < forward);
+      }
+   }
+}
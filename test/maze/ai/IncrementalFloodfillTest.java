@@ -0,0 +1,66 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import maze.model.Direction;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+
+import org.junit.Test;
+
+/**
+ * Checks that repairing the flood fill distances gives the same distances as
+ * searching the whole maze again.
+ */
+public class IncrementalFloodfillTest
+{
+   /**
+    * Reveals the walls of each example maze one at a time in a random order
+    * and compares the repaired distances with a new search after each one.
+    */
+   @Test
+   public void testRepairMatchesFlood() throws Exception
+   {
+      final Random random = new Random(7);
+      for (String name : AStarTest.MAZES)
+      {
+         final MazeModel maze = AStarTest.load(name);
+         final Floodfill incremental = new IncrementalFloodfill();
+         final Floodfill full = new Floodfill();
+         new RobotController(maze, incremental);
+         new RobotController(maze, full);
+         incremental.updateDistances();
+
+         final List<Object[]> walls = new ArrayList<Object[]>();
+         for (int x = 1; x <= maze.getSize().width; x++)
+            for (int y = 1; y <= maze.getSize().height; y++)
+               for (Direction direction : Direction.values())
+                  if (maze.isWall(MazeCell.valueOf(x, y), direction))
+                     walls.add(new Object[]
+                     {
+                        MazeCell.valueOf(x, y), direction
+                     });
+         Collections.shuffle(walls, random);
+
+         for (int i = 0; i < walls.size(); i++)
+         {
+            final MazeCell cell = (MazeCell) walls.get(i)[0];
+            final Direction direction = (Direction) walls.get(i)[1];
+            incremental.addWall(cell, direction);
+            incremental.updateDistances();
+            full.addWall(cell, direction);
+            full.updateDistances();
+            final int[][] expected = full.getUnderstandingInt();
+            final int[][] actual = incremental.getUnderstandingInt();
+            for (int x = 0; x < expected.length; x++)
+               assertArrayEquals(name + " wall " + i + " column " + x, expected[x], actual[x]);
+         }
+         assertTrue(name, ((Number) incremental.getCounters().get("repairs")).intValue() > 0);
+      }
+   }
+}
@@ -0,0 +1,43 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import maze.model.MazeModel;
+import maze.sim.SimulationResult;
+import maze.sim.Tournament;
+
+import org.junit.Test;
+
+/**
+ * Tests the pool of interpreters of a compiled script.
+ */
+public class PythonScriptTest
+{
+   /**
+    * Every run of a tournament uses a new instance of the robot, the
+    * interpreter must still go back to the pool at the end of each run.
+    */
+   @Test
+   public void testPoolReusedAcrossTournament() throws Exception
+   {
+      final PythonFileRobot robot = PythonFileRobot.loadBundled("GoStraight.py");
+      final PythonScript script = robot.getScript();
+      assertEquals(1, script.getIdleCount());
+
+      final Tournament tournament = new Tournament();
+      for (int i = 0; i < 4; i++)
+      {
+         final MazeModel maze = new MazeModel();
+         maze.generateRandomMaze();
+         tournament.addMaze("Maze " + i, maze);
+      }
+      tournament.addAlgorithm(robot);
+      final List<SimulationResult> results = tournament.run(1);
+      assertEquals(4, results.size());
+      for (SimulationResult result : results)
+         assertTrue(result.getMessage(), result.getOutcome() != SimulationResult.Outcome.Error);
+      assertEquals(1, script.getIdleCount());
+   }
+}
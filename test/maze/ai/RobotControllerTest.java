@@ -0,0 +1,84 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+import maze.model.RobotModelMaster;
+
+import org.junit.Test;
+
+/**
+ * Tests how the controller takes the moves of an algorithm.
+ */
+public class RobotControllerTest
+{
+   /**
+    * A run of moves that hits a wall partway moves the robot up to the wall
+    * and then crashes into it, like taking the steps one at a time.
+    */
+   @Test
+   public void testCrashInRun() throws Exception
+   {
+      final MazeModel maze = StepTraceTest.loadExample();
+      final RobotController controller = new RobotController(maze, new RobotBase()
+      {
+         @Override
+         public RobotStep nextStep()
+         {
+            return RobotStep.MoveForward;
+         }
+
+         @Override
+         public RobotMove nextMove()
+         {
+            return RobotMove.forward(maze.getSize().height);
+         }
+      });
+      controller.startTrace();
+      final RobotModelMaster robot = controller.getRobotModelMaster();
+      final MazeCell start = robot.getCurrentLocation();
+      final int open = robot.getOpenMoves(RobotStep.MoveForward, maze.getSize().height);
+      assertTrue(open > 1);
+      assertTrue(open < maze.getSize().height);
+      final RobotMove move = controller.nextMove();
+      assertTrue(controller.isRobotCrashed());
+      assertEquals(open + 1, move.getCount());
+      assertEquals(move.getCount(), controller.getStepCount());
+      assertEquals(MazeCell.valueOf(start.getX(), start.getY() - open), robot.getCurrentLocation());
+      assertTrue(controller.getTrace().isCrashed());
+      StepTraceTest.assertMatchesReplay(controller.getTrace(), maze);
+   }
+
+   /**
+    * Batching the straights of A* takes the same steps with fewer calls.
+    */
+   @Test
+   public void testBatchedMoves() throws Exception
+   {
+      final MazeModel maze = StepTraceTest.loadExample();
+      final StepTrace single = new RobotController(maze, new AStar()
+      {
+         @Override
+         public RobotMove nextMove()
+         {
+            return RobotMove.valueOf(nextStep());
+         }
+      }).runToEnd();
+      final int[] calls = new int[1];
+      final StepTrace batched = new RobotController(maze, new AStar()
+      {
+         @Override
+         public RobotMove nextMove()
+         {
+            calls[0]++;
+            return super.nextMove();
+         }
+      }).runToEnd();
+      assertEquals(single.size(), batched.size());
+      for (int i = 0; i < single.size(); i++)
+         assertEquals("Step " + i, single.getStep(i), batched.getStep(i));
+      assertTrue(calls[0] < batched.size());
+      StepTraceTest.assertMatchesReplay(batched, maze);
+   }
+}
@@ -0,0 +1,187 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests the deadlines of the script step executor.
+ */
+public class ScriptExecutorTest
+{
+   @Test
+   public void testCall()
+   {
+      final ScriptExecutor executor = new ScriptExecutor(1);
+      final RobotStep step = executor.call(new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            return RobotStep.RotateLeft;
+         }
+      }, 1000);
+      assertEquals(RobotStep.RotateLeft, step);
+   }
+
+   /**
+    * A step that ignores being interrupted holds on to its worker, the next
+    * step must still run on another one.
+    */
+   @Test
+   public void testHungStep() throws Exception
+   {
+      final ScriptExecutor executor = new ScriptExecutor(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final CountDownLatch finished = new CountDownLatch(1);
+      try
+      {
+         executor.call(new Callable<RobotStep>()
+         {
+            @Override
+            public RobotStep call()
+            {
+               while (release.getCount() > 0)
+               {
+                  // Busy wait without checking for interrupts like a script loop.
+               }
+               finished.countDown();
+               return RobotStep.MoveForward;
+            }
+         }, 50);
+         fail("The step did not time out");
+      }
+      catch (StepTimeoutException e)
+      {}
+      assertEquals(1, executor.getHungCount());
+
+      final RobotStep step = executor.call(new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            return RobotStep.RotateRight;
+         }
+      }, 1000);
+      assertEquals(RobotStep.RotateRight, step);
+
+      release.countDown();
+      assertTrue(finished.await(1, TimeUnit.SECONDS));
+      for (int i = 0; i < 100 && executor.getHungCount() > 0; i++)
+         Thread.sleep(10);
+      assertEquals(0, executor.getHungCount());
+   }
+
+   /**
+    * The deadline of a step starts when a worker starts it, waiting behind a
+    * slow step does not count.
+    */
+   @Test
+   public void testDeadlineStartsOnWorker() throws Exception
+   {
+      final ScriptExecutor executor = new ScriptExecutor(1);
+      final CountDownLatch started = new CountDownLatch(1);
+      final Thread slow = new Thread()
+      {
+         @Override
+         public void run()
+         {
+            executor.call(new Callable<RobotStep>()
+            {
+               @Override
+               public RobotStep call() throws Exception
+               {
+                  started.countDown();
+                  Thread.sleep(300);
+                  return RobotStep.MoveForward;
+               }
+            }, 1000);
+         }
+      };
+      slow.start();
+      assertTrue(started.await(1, TimeUnit.SECONDS));
+
+      final RobotStep step = executor.call(new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            return RobotStep.RotateLeft;
+         }
+      }, 100);
+      assertEquals(RobotStep.RotateLeft, step);
+      slow.join();
+   }
+
+   /**
+    * The pool grows for hung steps only up to twice its size, after that new
+    * steps fail at once.
+    */
+   @Test
+   public void testHungLimit() throws Exception
+   {
+      final ScriptExecutor executor = new ScriptExecutor(1);
+      final CountDownLatch release = new CountDownLatch(1);
+      final Callable<RobotStep> hang = new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            while (release.getCount() > 0)
+            {
+               // Busy wait without checking for interrupts like a script loop.
+            }
+            return RobotStep.MoveForward;
+         }
+      };
+      try
+      {
+         for (int i = 0; i < 2; i++)
+         {
+            try
+            {
+               executor.call(hang, 50);
+               fail("The step did not time out");
+            }
+            catch (StepTimeoutException e)
+            {}
+         }
+         assertEquals(2, executor.getHungCount());
+         assertEquals(2, executor.getAbandonedCount());
+         final long start = System.nanoTime();
+         try
+         {
+            executor.call(hang, 1000);
+            fail("A step ran with every worker hung");
+         }
+         catch (StepTimeoutException e)
+         {}
+         assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+      }
+      finally
+      {
+         release.countDown();
+      }
+      for (int i = 0; i < 100 && executor.getHungCount() > 0; i++)
+         Thread.sleep(10);
+      assertEquals(0, executor.getHungCount());
+      assertEquals(2, executor.getAbandonedCount());
+   }
+
+   @Test(expected = IllegalStateException.class)
+   public void testException()
+   {
+      new ScriptExecutor(1).call(new Callable<RobotStep>()
+      {
+         @Override
+         public RobotStep call()
+         {
+            throw new IllegalStateException();
+         }
+      }, 1000);
+   }
+}
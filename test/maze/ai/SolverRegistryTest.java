@@ -0,0 +1,155 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Tests finding algorithms through solver providers.
+ */
+public class SolverRegistryTest
+{
+   /**
+    * An algorithm that only turns, provided through the registry.
+    */
+   public static final class Spinner extends RobotBase
+   {
+      @Override
+      public RobotStep nextStep()
+      {
+         return RobotStep.RotateLeft;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "Spinner";
+      }
+   }
+
+   public static final class SpinnerProvider implements SolverProvider
+   {
+      @Override
+      public List<RobotBase> createSolvers()
+      {
+         return Collections.<RobotBase> singletonList(new Spinner());
+      }
+   }
+
+   @Test
+   public void testBuiltIn()
+   {
+      final SolverRegistry registry = new SolverRegistry(getClass().getClassLoader());
+      final List<String> names = registry.getNames();
+      assertEquals(RobotBase.createDefaultRobots().length, names.size());
+      assertEquals(names.size(), registry.createAll().length);
+      final RobotBase first = registry.create(names.get(0));
+      assertNotSame(first, registry.create(names.get(0)));
+      assertEquals(names.get(0), first.toString());
+   }
+
+   /**
+    * An algorithm without a constructor the registry can use.
+    */
+   public static final class Broken extends RobotBase
+   {
+      public Broken(int speed)
+      {}
+
+      @Override
+      public RobotStep nextStep()
+      {
+         return RobotStep.MoveForward;
+      }
+
+      @Override
+      public String toString()
+      {
+         return "Broken";
+      }
+   }
+
+   public static final class BrokenProvider implements SolverProvider
+   {
+      @Override
+      public List<RobotBase> createSolvers()
+      {
+         return Arrays.<RobotBase> asList(new Broken(1), new Spinner());
+      }
+   }
+
+   @Test
+   public void testProvider() throws Exception
+   {
+      final SolverRegistry registry = new SolverRegistry(createLoader(SpinnerProvider.class));
+      assertTrue(registry.getNames().contains("Spinner"));
+      assertTrue(registry.create("Spinner") instanceof Spinner);
+   }
+
+   /**
+    * A solver that can not be copied is left out and the others from the
+    * same provider are still there.
+    */
+   @Test
+   public void testBrokenProvider() throws Exception
+   {
+      final SolverRegistry registry = new SolverRegistry(createLoader(BrokenProvider.class));
+      assertFalse(registry.getNames().contains("Broken"));
+      assertTrue(registry.getNames().contains("Spinner"));
+      assertEquals(registry.getNames().size(), registry.createAll().length);
+   }
+
+   /**
+    * Creates a class loader that lists one solver provider.
+    */
+   private static ClassLoader createLoader(Class<? extends SolverProvider> provider) throws Exception
+   {
+      final File dir = File.createTempFile("providers", "");
+      dir.delete();
+      final File services = new File(dir, "META-INF/services");
+      services.mkdirs();
+      final File list = new File(services, SolverProvider.class.getName());
+      final OutputStream out = new FileOutputStream(list);
+      out.write( (provider.getName() + "\n").getBytes("UTF-8"));
+      out.close();
+      // Files are deleted in the reverse order they were registered.
+      dir.deleteOnExit();
+      services.getParentFile().deleteOnExit();
+      services.deleteOnExit();
+      list.deleteOnExit();
+      return new URLClassLoader(new URL[]
+      {
+         dir.toURI().toURL()
+      }, SolverRegistryTest.class.getClassLoader());
+   }
+
+   /**
+    * A copy of a prototype set up for speed runs also does speed runs.
+    */
+   @Test
+   public void testNewInstance()
+   {
+      final RobotBase prototype = new Spinner();
+      assertFalse(prototype.newInstance().isSpeedRun());
+      prototype.setSpeedRun(true);
+      final RobotBase copy = prototype.newInstance();
+      assertTrue(copy instanceof Spinner);
+      assertNotSame(prototype, copy);
+      assertTrue(copy.isSpeedRun());
+   }
+
+   @Test(expected = IllegalArgumentException.class)
+   public void testUnknown()
+   {
+      new SolverRegistry(getClass().getClassLoader()).create("No Such Algorithm");
+   }
+}
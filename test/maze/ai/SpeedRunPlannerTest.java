@@ -0,0 +1,121 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import maze.model.Direction;
+import maze.model.MazeCell;
+import maze.model.MazeModel;
+import maze.model.RobotModelMaster;
+
+import org.junit.Test;
+
+/**
+ * Tests the run time estimates and the fastest run planner.
+ */
+public class SpeedRunPlannerTest
+{
+   private static final double DELTA = 1e-9;
+
+   /**
+    * Drives the steps of a route through the maze, they must take the robot
+    * through the cells of the route without crashing.
+    */
+   private static void assertDrives(MazeModel maze, SpeedRunPlanner.Route route) throws Exception
+   {
+      final RobotModelMaster robot = new RobotModelMaster(maze, maze.getStartingCell(), Direction.North);
+      final List<MazeCell> cells = new ArrayList<MazeCell>();
+      cells.add(robot.getCurrentLocation());
+      for (RobotStep step : route.getSteps())
+      {
+         robot.takeNextStep(step);
+         if (step.isTurn() == false)
+            cells.add(robot.getCurrentLocation());
+      }
+      assertEquals(route.getCells(), cells);
+      assertFalse(robot.isDiagonal());
+   }
+
+   @Test
+   public void testStraight()
+   {
+      final MotionProfile profile = new MotionProfile(0.18, 2, 4, 0.5, 0.2, false);
+      // Too short to reach the top speed, half speeding up and half braking.
+      assertEquals(2 * Math.sqrt(2 * 0.5 / 4), profile.getStraightSeconds(1, 0, 0), DELTA);
+      // Half a second and half a meter to reach 2 m/s, the same to brake and
+      // 2 m at the top speed.
+      assertEquals(2, profile.getStraightSeconds(3, 0, 0), DELTA);
+   }
+
+   /**
+    * Every run must be a path of neighboring cells from the start to the
+    * center that takes as long as driving along it and no less than a run
+    * with diagonals.
+    */
+   @Test
+   public void testRandomMazes() throws Exception
+   {
+      int solved = 0;
+      for (int i = 0; i < 50; i++)
+      {
+         final MazeModel maze = new MazeModel();
+         maze.generateRandomMaze();
+         final SpeedRunPlanner planner = new SpeedRunPlanner(MotionProfile.DEFAULT.withDiagonals(false));
+         final SpeedRunPlanner.Route route = planner.plan(maze);
+         // Random walls may close off the center.
+         if (route == null)
+            continue;
+         solved++;
+         final List<MazeCell> cells = route.getCells();
+         assertEquals(maze.getStartingCell(), cells.get(0));
+         assertTrue(Arrays.asList(maze.getWinningCells()).contains(cells.get(cells.size() - 1)));
+         for (int j = 1; j < cells.size(); j++)
+         {
+            final MazeCell a = cells.get(j - 1);
+            final MazeCell b = cells.get(j);
+            assertEquals(1, Math.abs(a.getX() - b.getX()) + Math.abs(a.getY() - b.getY()));
+         }
+         assertEquals(planner.getProfile().getRunSeconds(cells), route.getSeconds(), 1e-5);
+
+         assertDrives(maze, route);
+
+         final SpeedRunPlanner.Route diagonal = new SpeedRunPlanner(MotionProfile.DEFAULT).plan(maze);
+         assertTrue(diagonal.getSeconds() <= route.getSeconds() + 1e-5);
+         assertDrives(maze, diagonal);
+      }
+      assertTrue(solved > 0);
+   }
+
+   /**
+    * In an open maze the run to the center is a zig-zag that is faster on a
+    * diagonal.
+    */
+   @Test
+   public void testDiagonal() throws Exception
+   {
+      final MazeModel maze = new MazeModel();
+      maze.clearMaze();
+      final double straight = new SpeedRunPlanner(MotionProfile.DEFAULT.withDiagonals(false)).plan(maze)
+                                                                                             .getSeconds();
+      final SpeedRunPlanner.Route diagonal = new SpeedRunPlanner(MotionProfile.DEFAULT).plan(maze);
+      assertTrue(diagonal.getSeconds() < straight);
+      assertTrue(diagonal.getSteps().contains(RobotStep.MoveDiagonal));
+      assertDrives(maze, diagonal);
+   }
+
+   /**
+    * A robot that has only seen the start can not plan a run.
+    */
+   @Test
+   public void testUnexplored()
+   {
+      final MazeModel maze = new MazeModel();
+      maze.clearMaze();
+      final boolean[] allowed = new boolean[maze.getCellIndexTable().getCellCount()];
+      allowed[maze.getCellIndexTable().indexOf(maze.getStartingCell())] = true;
+      assertNull(new SpeedRunPlanner(MotionProfile.DEFAULT).plan(maze, allowed));
+   }
+}
@@ -0,0 +1,113 @@
+package maze.ai;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.InputStream;
+
+import maze.model.MazeInfo;
+import maze.model.MazeModel;
+import maze.model.RobotModelMaster;
+
+import org.junit.Test;
+
+/**
+ * Tests recording, seeking and saving robot step traces.
+ */
+public class StepTraceTest
+{
+   static MazeModel loadExample() throws Exception
+   {
+      final InputStream in = MazeInfo.class.getResourceAsStream("mazeExamples/APEC2002.MAZ");
+      final MazeModel maze = new MazeModel();
+      maze.loadMaze(in, false);
+      in.close();
+      return maze;
+   }
+
+   /**
+    * Checks the trace knows where the robot was after every step.
+    */
+   static void assertMatchesReplay(StepTrace trace, MazeModel maze)
+   {
+      final RobotModelMaster model = trace.createModel(maze);
+      for (int step = 0; step <= trace.size(); step++)
+      {
+         assertEquals("Step " + step, model.getCurrentLocation(), trace.getLocation(step));
+         assertEquals("Step " + step, model.getDirection(), trace.getDirection(step));
+         assertEquals("Step " + step, model.isDiagonal(), trace.isDiagonal(step));
+         if (step < trace.size())
+            trace.replay(model, step, step + 1);
+      }
+   }
+
+   @Test
+   public void testSeek() throws Exception
+   {
+      final MazeModel maze = loadExample();
+      final RobotController controller = new RobotController(maze, new Floodfill());
+      final StepTrace trace = controller.runToEnd();
+      assertTrue(trace.size() > StepTrace.KEYFRAME_INTERVAL * 2);
+      assertEquals(controller.getStepCount(), trace.size());
+      assertEquals(controller.getRobotModelMaster().getCurrentLocation(), trace.getLocation(trace.size()));
+      assertMatchesReplay(trace, maze);
+   }
+
+   /**
+    * Speed runs of A* cut through zig-zags with 45 degree turns and diagonal
+    * steps.
+    */
+   @Test
+   public void testDiagonalSteps() throws Exception
+   {
+      final MazeModel maze = loadExample();
+      final AStar robot = new AStar();
+      robot.setSpeedRun(true);
+      final StepTrace trace = new RobotController(maze, robot).runToEnd();
+      boolean diagonal = false;
+      for (int i = 0; i < trace.size(); i++)
+         diagonal |= trace.getStep(i) == RobotStep.MoveDiagonal;
+      assertTrue(diagonal);
+      assertFalse(trace.isCrashed());
+      assertMatchesReplay(trace, maze);
+   }
+
+   @Test
+   public void testCrash() throws Exception
+   {
+      final MazeModel maze = loadExample();
+      // Always drive straight, which hits a wall.
+      final RobotController controller = new RobotController(maze, new RobotBase()
+      {
+         @Override
+         public RobotStep nextStep()
+         {
+            return RobotStep.MoveForward;
+         }
+      });
+      final StepTrace trace = controller.runToEnd();
+      assertTrue(trace.isCrashed());
+      assertEquals(controller.getRobotModelMaster().getCurrentLocation(), trace.getLocation(trace.size()));
+      assertMatchesReplay(trace, maze);
+   }
+
+   @Test
+   public void testReadWrite() throws Exception
+   {
+      final MazeModel maze = loadExample();
+      final StepTrace trace = new RobotController(maze, new Tremaux()).runToEnd();
+      final File file = File.createTempFile("robot", ".trace");
+      file.deleteOnExit();
+      trace.write(file);
+      final StepTrace read = StepTrace.read(file);
+      file.delete();
+
+      assertEquals(trace.size(), read.size());
+      assertEquals(trace.isCrashed(), read.isCrashed());
+      assertEquals(trace.getDescription(), read.getDescription());
+      assertEquals(maze.getWallHash(), read.getMazeHash());
+      for (int i = 0; i < trace.size(); i++)
+         assertEquals(trace.getStep(i), read.getStep(i));
+      assertMatchesReplay(read, maze);
+   }
+}
@@ -0,0 +1,122 @@
+package maze.model;
+
+import static org.junit.Assert.*;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests writing and reading .mz3 maze containers.
+ */
+public class MazeContainerTest
+{
+   private static MazeModel[] createMazes()
+   {
+      final MazeModel[] mazes = new MazeModel[4];
+      for (int i = 0; i < mazes.length - 1; i++)
+      {
+         mazes[i] = new MazeModel(8 + i * 10, 8 + i * 6);
+         mazes[i].generateRandomMaze();
+      }
+      // An empty maze always compresses well.
+      mazes[mazes.length - 1] = new MazeModel(64, 64);
+      mazes[mazes.length - 1].clearMaze();
+      return mazes;
+   }
+
+   private static File write(MazeModel[] mazes, boolean compress) throws Exception
+   {
+      final File file = File.createTempFile("maze", ".mz3");
+      file.deleteOnExit();
+      final MazeContainer.Writer writer = new MazeContainer.Writer(file, compress);
+      for (int i = 0; i < mazes.length; i++)
+         writer.add("Maze " + i, mazes[i]);
+      writer.close();
+      return file;
+   }
+
+   private static void assertRoundTrip(boolean compress) throws Exception
+   {
+      final MazeModel[] mazes = createMazes();
+      final File file = write(mazes, compress);
+      final MazeContainer container = new MazeContainer(file);
+      try
+      {
+         assertEquals(mazes.length, container.getMazeCount());
+         // Read out of order to use the index.
+         for (int i = mazes.length - 1; i >= 0; i--)
+         {
+            final MazeContainer.Entry entry = container.getEntry(i);
+            assertEquals("Maze " + i, entry.getName());
+            assertEquals(mazes[i].getSize(), entry.getSize());
+            assertEquals(mazes[i].getStartingCell(), entry.getStartingCell());
+            assertTrue(Arrays.equals(mazes[i].getWinningCells(), entry.getWinningCells()));
+            // Random walls may not get any smaller.
+            if (!compress || i == mazes.length - 1)
+               assertEquals(compress, entry.isCompressed());
+
+            final MazeModel loaded = container.load(i);
+            final Dimension size = mazes[i].getSize();
+            for (int x = 1; x <= size.width; x++)
+            {
+               for (int y = 1; y <= size.height; y++)
+                  assertEquals(mazes[i].getWallMask(x, y), loaded.getWallMask(x, y));
+            }
+         }
+      }
+      finally
+      {
+         container.close();
+         file.delete();
+      }
+   }
+
+   @Test
+   public void testRoundTrip() throws Exception
+   {
+      assertRoundTrip(false);
+   }
+
+   @Test
+   public void testCompressedRoundTrip() throws Exception
+   {
+      assertRoundTrip(true);
+   }
+
+   @Test
+   public void testChecksum() throws Exception
+   {
+      final File file = write(createMazes(), false);
+      final MazeContainer container = new MazeContainer(file);
+      final long last = file.length() - 8 * container.getMazeCount() - 1;
+      container.close();
+
+      // Flip a bit in the walls of the last maze.
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      raf.seek(last);
+      final int value = raf.read();
+      raf.seek(last);
+      raf.write(value ^ 1);
+      raf.close();
+
+      final MazeContainer corrupt = new MazeContainer(file);
+      try
+      {
+         corrupt.load(0);
+         corrupt.load(corrupt.getMazeCount() - 1);
+         fail("Corrupt walls were loaded");
+      }
+      catch (IOException expected)
+      {}
+      finally
+      {
+         corrupt.close();
+         file.delete();
+      }
+   }
+}
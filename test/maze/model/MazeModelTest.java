@@ -0,0 +1,94 @@
+package maze.model;
+
+import static org.junit.Assert.*;
+
+import java.awt.Dimension;
+import java.io.File;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+/**
+ * Tests reading and writing maze files.
+ */
+public class MazeModelTest
+{
+   private static void assertSameWalls(MazeModel expected, MazeModel actual)
+   {
+      assertEquals(expected.getSize(), actual.getSize());
+      final Dimension size = expected.getSize();
+      for (int x = 1; x <= size.width; x++)
+      {
+         for (int y = 1; y <= size.height; y++)
+         {
+            assertEquals("Cell " + x + "," + y, expected.getWallMask(x, y), actual.getWallMask(x, y));
+         }
+      }
+   }
+
+   /**
+    * Saves a maze to a temporary file and loads it back.
+    */
+   private static MazeModel roundTrip(MazeModel maze, String name, String ext) throws Exception
+   {
+      final File file = File.createTempFile("maze", ext);
+      file.deleteOnExit();
+      maze.saveMaze(file.getPath(), name);
+      final MazeModel loaded = new MazeModel();
+      assertEquals(name, loaded.loadMaze(file.getPath()));
+      file.delete();
+      return loaded;
+   }
+
+   @Test
+   public void testMz2RoundTrip() throws Exception
+   {
+      for (int size : new int[]
+      {
+         4, 16, 30, 32, 66
+      })
+      {
+         final MazeModel maze = new MazeModel(size, size + 2);
+         maze.generateRandomMaze();
+         assertSameWalls(maze, roundTrip(maze, "Random " + size, ".mz2"));
+      }
+   }
+
+   @Test
+   public void testMazRoundTrip() throws Exception
+   {
+      final MazeModel maze = new MazeModel();
+      maze.generateRandomMaze();
+      assertSameWalls(maze, roundTrip(maze, null, ".maz"));
+   }
+
+   @Test
+   public void testLoadExample() throws Exception
+   {
+      final InputStream in = MazeInfo.class.getResourceAsStream("mazeExamples/Large.mz2");
+      final MazeModel maze = new MazeModel();
+      maze.loadMaze(in, true);
+      in.close();
+      assertEquals(new Dimension(32, 32), maze.getSize());
+      // The example was saved with every wall set before it was edited, so it
+      // has bits set past the last wall which must be ignored.
+      assertSameWalls(maze, roundTrip(maze, "Large", ".mz2"));
+   }
+
+   @Test
+   public void testExampleHeaders() throws Exception
+   {
+      for (String name : MazeInfoModel.getExampleMazeNames())
+      {
+         final MazeInfo lazy = MazeInfo.loadHeader("mazeExamples/" + name, name);
+         assertNotNull(name, lazy);
+         assertFalse(lazy.isLoaded());
+         final InputStream in = MazeInfo.class.getResourceAsStream("mazeExamples/" + name);
+         final MazeInfo eager = MazeInfo.load(in, name);
+         in.close();
+         assertEquals(name, eager.getModel().getSize(), lazy.getSize());
+         assertSameWalls(eager.getModel(), lazy.getModel());
+         assertTrue(lazy.isLoaded());
+      }
+   }
+}
@@ -0,0 +1,89 @@
+package maze.sim;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+
+import maze.ai.Floodfill;
+import maze.model.MazeModel;
+
+import org.junit.Test;
+
+/**
+ * Tests remembering simulation results.
+ */
+public class ResultCacheTest
+{
+   private static MazeModel createMaze()
+   {
+      final MazeModel maze = new MazeModel();
+      maze.generateRandomMaze();
+      return maze;
+   }
+
+   private static void assertSameStats(SimulationResult expected, SimulationResult actual)
+   {
+      assertEquals(expected.getOutcome(), actual.getOutcome());
+      assertEquals(expected.getTotalSteps(), actual.getTotalSteps());
+      assertEquals(expected.getTotalTraversed(), actual.getTotalTraversed());
+      assertEquals(expected.getBestRunCells(), actual.getBestRunCells());
+      assertEquals(expected.getRobotPathModel().getPathBest(),
+                   actual.getRobotPathModel().getPathBest());
+   }
+
+   @Test
+   public void testHit()
+   {
+      final ResultCache cache = new ResultCache(8, null);
+      final MazeModel maze = createMaze();
+      final SimulationResult first = cache.run("First", maze.clone(), new Floodfill());
+      final SimulationResult second = cache.run("Second", maze.clone(), new Floodfill());
+      assertEquals(1, cache.getHits());
+      assertEquals("Second", second.getMazeName());
+      assertSameStats(first, second);
+      assertFalse(first.isCached());
+      assertTrue(second.isCached());
+
+      // Changing a wall changes the key.
+      final MazeModel edited = maze.clone();
+      if (edited.getWall(1, 1, MazeModel.SOUTH))
+         edited.clearWall(1, 1, MazeModel.SOUTH);
+      else
+         edited.setWall(1, 1, MazeModel.SOUTH);
+      assertFalse(maze.getWallHash().equals(edited.getWallHash()));
+      cache.run("Edited", edited, new Floodfill());
+      assertEquals(1, cache.getHits());
+      assertEquals(2, cache.size());
+   }
+
+   @Test
+   public void testEviction()
+   {
+      final ResultCache cache = new ResultCache(2, null);
+      final MazeModel oldest = createMaze();
+      cache.run("Oldest", oldest.clone(), new Floodfill());
+      cache.run("A", createMaze(), new Floodfill());
+      cache.run("B", createMaze(), new Floodfill());
+      assertEquals(2, cache.size());
+      cache.run("Oldest", oldest.clone(), new Floodfill());
+      assertEquals(0, cache.getHits());
+   }
+
+   @Test
+   public void testSave() throws Exception
+   {
+      final File file = File.createTempFile("results", ".bin");
+      file.deleteOnExit();
+      file.delete();
+      final MazeModel maze = createMaze();
+      final ResultCache cache = new ResultCache(8, file);
+      final SimulationResult first = cache.run("Maze", maze.clone(), new Floodfill());
+      cache.save();
+
+      final ResultCache loaded = new ResultCache(8, file);
+      assertEquals(1, loaded.size());
+      assertSameStats(first, loaded.run("Maze", maze.clone(), new Floodfill()));
+      assertEquals(1, loaded.getHits());
+      file.delete();
+   }
+}
@@ -0,0 +1,67 @@
+package maze.sim;
+
+import static org.junit.Assert.*;
+
+import java.util.List;
+
+import maze.ai.Floodfill;
+import maze.ai.RobotBase;
+import maze.model.MazeModel;
+
+import org.junit.Test;
+
+/**
+ * Tests running the same algorithms on many threads at once.
+ */
+public class TournamentTest
+{
+   private static Tournament createTournament()
+   {
+      final Tournament tournament = new Tournament();
+      for (int i = 0; i < 6; i++)
+      {
+         final MazeModel maze = new MazeModel();
+         maze.generateRandomMaze();
+         tournament.addMaze("Maze " + i, maze);
+      }
+      for (RobotBase robot : RobotBase.createDefaultRobots())
+         tournament.addAlgorithm(robot);
+      return tournament;
+   }
+
+   /**
+    * Every run gets its own instance of the algorithm, so running in parallel
+    * must give the same results as running one at a time.
+    */
+   @Test
+   public void testParallelMatchesSequential()
+   {
+      final Tournament tournament = createTournament();
+      final List<SimulationResult> sequential = tournament.run(1);
+      final List<SimulationResult> parallel = tournament.run(4);
+      assertEquals(sequential.size(), parallel.size());
+      for (int i = 0; i < sequential.size(); i++)
+      {
+         final SimulationResult expected = sequential.get(i);
+         final SimulationResult actual = parallel.get(i);
+         assertEquals(expected.toString(), expected.getOutcome(), actual.getOutcome());
+         assertEquals(expected.toString(), expected.getTotalSteps(), actual.getTotalSteps());
+         assertEquals(expected.toString(), expected.getBestRunCells(), actual.getBestRunCells());
+      }
+   }
+
+   /**
+    * A recorded trace is described with the outcome of its run.
+    */
+   @Test
+   public void testTraceDescription()
+   {
+      final MazeModel maze = new MazeModel();
+      maze.generateRandomMaze();
+      final Simulation simulation = new Simulation("Random", maze, new Floodfill());
+      simulation.setRecordTrace(true);
+      final SimulationResult result = simulation.run();
+      assertNotNull(result.getOutcome());
+      assertEquals(result.toString(), result.getTrace().getDescription());
+   }
+}
@@ -2,6 +2,13 @@ package maze.util;
 
 import static org.junit.Assert.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import maze.model.MazeCell;
+import maze.model.MazeModel;
 import maze.util.ListenerSubject;
 
 import org.junit.Test;
@@ -155,6 +162,97 @@ public class ListenerSubjectTest
       model.removeListener(null);
    }
 
+   /**
+    * Events fired during a batch are held back until the outermost batch ends
+    * and then delivered once each.
+    */
+   @Test
+   public void testBatch() throws Exception
+   {
+      final ListenerSubject<String> model = new ListenerSubject<String>();
+      final List<String> single = new ArrayList<String>();
+      final List<Collection<String>> batches = new ArrayList<Collection<String>>();
+      model.addListener(new Listener<String>()
+      {
+         @Override
+         public void eventFired(String event)
+         {
+            single.add(event);
+         }
+      });
+      model.addListener(new BatchListener<String>()
+      {
+         @Override
+         public void eventFired(String event)
+         {
+            fail("Batches must be delivered at once.");
+         }
+
+         @Override
+         public void eventsFired(Collection<String> events)
+         {
+            batches.add(new ArrayList<String>(events));
+         }
+      });
+
+      model.beginBatch();
+      model.notifyListeners("A");
+      model.beginBatch();
+      model.notifyListeners("B");
+      model.notifyListeners("A");
+      model.endBatch();
+      assertTrue(single.isEmpty());
+      model.notifyListeners("C");
+      model.endBatch();
+      assertEquals(Arrays.asList("A", "B", "C"), single);
+      assertEquals(1, batches.size());
+      assertEquals(Arrays.asList("A", "B", "C"), batches.get(0));
+
+      // An empty batch notifies no one.
+      model.beginBatch();
+      model.endBatch();
+      assertEquals(1, batches.size());
+
+      try
+      {
+         model.endBatch();
+         fail("Ended a batch that was not started.");
+      }
+      catch (IllegalStateException e)
+      {
+         // Expected.
+      }
+   }
+
+   /**
+    * Generating a random maze notifies the listeners of each cell at most
+    * once.
+    */
+   @Test
+   public void testRandomMazeBatch() throws Exception
+   {
+      final MazeModel maze = new MazeModel();
+      final int[] calls = new int[2];
+      maze.addListener(new BatchListener<MazeCell>()
+      {
+         @Override
+         public void eventFired(MazeCell event)
+         {
+            calls[0]++;
+         }
+
+         @Override
+         public void eventsFired(Collection<MazeCell> events)
+         {
+            calls[1]++;
+            assertTrue(events.size() <= maze.getSize().width * maze.getSize().height);
+         }
+      });
+      maze.generateRandomMaze();
+      assertEquals(0, calls[0]);
+      assertEquals(1, calls[1]);
+   }
+
    private static class MessageListener implements Listener<String>
    {
       public String message;